@@ -0,0 +1,21 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zerocoinj.AccumulatorUpdate")
+@Label("Accumulator Update")
+@Description("Coin added to an accumulator or to a witness")
+final class AccumulatorUpdateEvent extends ZerocoinEvent {
+
+    @Label("Denomination")
+    String denomination;
+
+    @Label("Witness")
+    boolean witness;
+}
@@ -0,0 +1,24 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zerocoinj.Commitment")
+@Label("Coin Commitment")
+@Description("Search of a prime coin commitment while minting")
+final class CommitmentEvent extends ZerocoinEvent {
+
+    @Label("Attempts")
+    int attempts;
+
+    @Override
+    public Span setAttempts(int attempts) {
+        this.attempts = attempts;
+        return this;
+    }
+}
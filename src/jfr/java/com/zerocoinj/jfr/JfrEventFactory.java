@@ -0,0 +1,58 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+/**
+ * Creates the Flight Recorder events, only loaded when the runtime has jdk.jfr.
+ */
+final class JfrEventFactory implements EventFactory {
+
+    @Override
+    public Span spend(String operation, String denomination) {
+        SpendEvent event = new SpendEvent();
+        if (!event.isEnabled()) return Span.NOOP;
+        event.operation = operation;
+        event.denomination = denomination;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Span proof(String proof, String operation) {
+        ProofEvent event = new ProofEvent();
+        if (!event.isEnabled()) return Span.NOOP;
+        event.proof = proof;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Span commitment() {
+        CommitmentEvent event = new CommitmentEvent();
+        if (!event.isEnabled()) return Span.NOOP;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Span accumulatorUpdate(String denomination, boolean witness) {
+        AccumulatorUpdateEvent event = new AccumulatorUpdateEvent();
+        if (!event.isEnabled()) return Span.NOOP;
+        event.denomination = denomination;
+        event.witness = witness;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public Span jniCall(String method) {
+        JniCallEvent event = new JniCallEvent();
+        if (!event.isEnabled()) return Span.NOOP;
+        event.method = method;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,21 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// The serial number SoK makes hundreds of calls per spend, only the slow ones are recorded by default
+@Name("com.zerocoinj.JniCall")
+@Label("JNI Bridge Call")
+@Description("Call to the native bridge library")
+@Threshold("1 ms")
+final class JniCallEvent extends ZerocoinEvent {
+
+    @Label("Method")
+    String method;
+}
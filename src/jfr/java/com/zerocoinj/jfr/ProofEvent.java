@@ -0,0 +1,30 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zerocoinj.Proof")
+@Label("Zerocoin Proof")
+@Description("Generation or verification of a spend sub-proof")
+final class ProofEvent extends ZerocoinEvent {
+
+    @Label("Proof")
+    String proof;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Override
+    public Span setValid(boolean valid) {
+        this.valid = valid;
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zerocoinj.Spend")
+@Label("Coin Spend")
+@Description("CoinSpend creation or verification")
+final class SpendEvent extends ZerocoinEvent {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Denomination")
+    String denomination;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Failed Stage")
+    String failure;
+
+    @Override
+    public Span setValid(boolean valid) {
+        this.valid = valid;
+        return this;
+    }
+
+    @Override
+    public Span setFailure(String failure) {
+        this.failure = failure;
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+
+/**
+ * Base of the zerocoinj events, measures from the span creation to {@link #finish()}.
+ */
+@Category("Zerocoinj")
+abstract class ZerocoinEvent extends Event implements Span {
+
+    @Override
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding coins to an accumulator and to a witness, one modular exponentiation each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AccumulatorBenchmark {
+
+    private static final int COINS = 16;
+
+    private List<ZeroCoin> coins;
+    private Accumulator accumulator;
+    private AccumulatorWitness witness;
+    private int next;
+
+    @Setup
+    public void setup() {
+        coins = Fixtures.mint(COINS + 1);
+        accumulator = new Accumulator(Fixtures.CONTEXT.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        // The witnessed coin is kept out of the pool, addElement would skip it
+        witness = new AccumulatorWitness(accumulator.copy(), coins.remove(COINS));
+    }
+
+    private ZeroCoin nextCoin() {
+        return coins.get(next++ & (COINS - 1));
+    }
+
+    @Benchmark
+    public Accumulator accumulate() {
+        return accumulator.accumulate(nextCoin());
+    }
+
+    @Benchmark
+    public AccumulatorWitness witnessAddElement() {
+        witness.addElement(nextCoin());
+        return witness;
+    }
+}
@@ -0,0 +1,96 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.accumulators.Accumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire handling and verification of the fixture spend.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CoinSpendBenchmark {
+
+    private byte[] bytes;
+    private ByteBuffer direct;
+    private CoinSpend spend;
+    private Accumulator accumulator;
+
+    @Setup
+    public void setup() {
+        bytes = Fixtures.coinSpendBytes();
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        ((Buffer) direct).flip();
+        spend = Fixtures.coinSpend();
+        accumulator = Fixtures.accumulator();
+    }
+
+    @Benchmark
+    public CoinSpend parse() {
+        return CoinSpend.parse(Fixtures.PARAMS, Fixtures.CONTEXT, bytes);
+    }
+
+    @Benchmark
+    public CoinSpend parseByteBuffer() {
+        return CoinSpend.parse(Fixtures.PARAMS, Fixtures.CONTEXT, direct);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return spend.bitcoinSerialize();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return spend.verify(accumulator);
+    }
+
+    /**
+     * The hash is memoized, each invocation hashes a freshly parsed spend. Long enough (tens of us) for a per
+     * invocation setup, note the gc profiler allocation includes the parse.
+     */
+    @State(Scope.Thread)
+    public static class Unhashed {
+
+        CoinSpend spend;
+        private byte[] bytes;
+
+        @Setup
+        public void read() {
+            bytes = Fixtures.coinSpendBytes();
+        }
+
+        @Setup(Level.Invocation)
+        public void parse() {
+            spend = CoinSpend.parse(Fixtures.PARAMS, Fixtures.CONTEXT, bytes);
+        }
+    }
+
+    @Benchmark
+    public byte[] signatureHash(Unhashed unhashed) {
+        return unhashed.spend.signatureHash();
+    }
+}
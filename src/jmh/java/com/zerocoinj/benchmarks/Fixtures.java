@@ -0,0 +1,73 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.JniBridge;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.core.exceptions.InvalidSerialException;
+import org.pivxj.core.Context;
+import org.pivxj.core.ECKey;
+import org.pivxj.core.NetworkParameters;
+import org.pivxj.params.MainNetParams;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared benchmark context and the {@code mint_spend_test/} fixtures, a spend created by the c++ library
+ * and the accumulator it verifies against. Paths are relative to the project directory.
+ */
+final class Fixtures {
+
+    static final NetworkParameters PARAMS = MainNetParams.get();
+    static final ZerocoinContext CONTEXT = new ZerocoinContext(new JniBridge());
+
+    static {
+        Context.getOrCreate(PARAMS);
+    }
+
+    private Fixtures() {
+    }
+
+    static byte[] read(String name) {
+        try {
+            return Files.readAllBytes(Paths.get("mint_spend_test", name));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read fixture " + name + ", benchmarks run from the project directory", e);
+        }
+    }
+
+    static byte[] coinSpendBytes() {
+        return read("serialized_coinSpend.txt");
+    }
+
+    static CoinSpend coinSpend() {
+        return CoinSpend.parse(PARAMS, CONTEXT, coinSpendBytes());
+    }
+
+    static Accumulator accumulator() {
+        return Accumulator.parse(PARAMS, CONTEXT.getAccumulatorParams(), read("serialized_accumulator.txt"));
+    }
+
+    static List<ZeroCoin> mint(int amount) {
+        List<ZeroCoin> coins = new ArrayList<>(amount);
+        while (coins.size() < amount) {
+            try {
+                coins.add(ZeroCoin.mintCoin(CONTEXT, new ECKey(), CoinDenomination.ZQ_ONE));
+            } catch (InvalidSerialException e) {
+                // The key hash is not a valid serial, try with another key
+            }
+        }
+        return coins;
+    }
+}
@@ -0,0 +1,85 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.JavaBridge;
+import com.zerocoinj.JniBridge;
+import com.zerocoinj.NativeStatus;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.JniBridgeWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pivxj.core.Utils;
+
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call cost of the seed expansion done for every set challenge bit of a serial number signature verification,
+ * through the byte[] bridge method and through caller owned direct buffers, including the bignum conversions of
+ * each. The backend is a parameter so it's recorded with the results, the NATIVE runs fail if the native library
+ * isn't in java.library.path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JniBridgeBenchmark {
+
+    @Param({"NATIVE", "JAVA"})
+    private NativeStatus.Backend backend;
+
+    private JniBridgeWrapper bridge;
+    private BigInteger seed;
+    private ByteBuffer seedBuffer;
+    private ByteBuffer out;
+    private ByteBufferReader reader;
+
+    @Setup
+    public void setup() {
+        if (backend == NativeStatus.Backend.NATIVE) {
+            if (!NativeStatus.get().isLoaded()) throw new IllegalStateException("Native bridge not loaded: " + NativeStatus.get());
+            bridge = new JniBridge();
+        } else {
+            bridge = new JavaBridge();
+        }
+        seed = new BigInteger(256, new Random(1));
+        seedBuffer = ByteBuffer.allocateDirect(64);
+        out = ByteBuffer.allocateDirect(JniBridgeWrapper.EXPANDED_SEED_SIZE);
+        reader = new ByteBufferReader(out);
+    }
+
+    @Benchmark
+    public BigInteger byteArray() {
+        byte[] result = bridge.compute1024seed(Utils.reverseBytes(Utils.encodeMPI(seed, false)));
+        return Utils.decodeMPI(Utils.reverseBytes(result), false);
+    }
+
+    @Benchmark
+    public BigInteger directBuffer() {
+        ((Buffer) seedBuffer).clear();
+        new ByteBufferWriter(seedBuffer).writeBignum(seed);
+        ((Buffer) seedBuffer).flip();
+        ((Buffer) out).clear();
+        bridge.compute1024seed(seedBuffer, out);
+        ((Buffer) out).flip();
+        return reader.reset(out).readBignum();
+    }
+}
@@ -0,0 +1,147 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares JMH json results with a baseline and fails (exit code 1) when a benchmark is slower than the baseline
+ * beyond its tolerance, or when a baseline benchmark has no result (it failed or was not run).
+ *
+ * Baseline format:
+ * <pre>
+ * {
+ *   "defaultTolerance": 0.25,
+ *   "benchmarks": {
+ *     "com.zerocoinj.benchmarks.CoinSpendBenchmark.verify": { "mode": "thrpt", "score": 1.6, "unit": "ops/s", "tolerance": 0.25 }
+ *   }
+ * }
+ * </pre>
+ * The tolerance is the allowed relative slowdown. Throughput modes are better when higher, time modes when lower.
+ *
+ * Arguments: {@code <baseline.json> <results.json> [--update]}, {@code --update} writes the results as the new
+ * baseline keeping the tolerances.
+ */
+public class PerformanceGate {
+
+    private static final double DEFAULT_TOLERANCE = 0.10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: <baseline.json> <results.json> [--update]");
+        }
+        Path baselineFile = Paths.get(args[0]);
+        JSONObject baseline = Files.exists(baselineFile) ? new JSONObject(read(baselineFile)) : new JSONObject();
+        JSONArray results = new JSONArray(read(Paths.get(args[1])));
+
+        if (args.length > 2 && args[2].equals("--update")) {
+            update(baseline, results);
+            Files.write(baselineFile, baseline.toString(2).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Baseline updated, " + baselineFile.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = compare(baseline, results);
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println("Performance regressions:");
+            for (String regression : regressions) {
+                System.out.println("  " + regression);
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the comparison table.
+     *
+     * @return the regressions description
+     */
+    static List<String> compare(JSONObject baseline, JSONArray results) {
+        double defaultTolerance = baseline.optDouble("defaultTolerance", DEFAULT_TOLERANCE);
+        JSONObject benchmarks = baseline.optJSONObject("benchmarks");
+        if (benchmarks == null) benchmarks = new JSONObject();
+
+        List<String> regressions = new ArrayList<>();
+        List<String> measured = new ArrayList<>();
+        System.out.println(String.format("%-70s %12s %12s %-8s %9s %9s  %s", "benchmark", "baseline", "current", "unit", "change", "tolerance", "status"));
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String name = result.getString("benchmark");
+            String mode = result.getString("mode");
+            JSONObject metric = result.getJSONObject("primaryMetric");
+            double score = metric.getDouble("score");
+            String unit = metric.getString("scoreUnit");
+            measured.add(name);
+
+            JSONObject expected = benchmarks.optJSONObject(name);
+            if (expected == null) {
+                System.out.println(String.format("%-70s %12s %12.3f %-8s %9s %9s  %s", name, "-", score, unit, "-", "-", "NEW"));
+                continue;
+            }
+            if (!mode.equals(expected.optString("mode", mode)) || !unit.equals(expected.optString("unit", unit))) {
+                regressions.add(name + ": measured in " + mode + " " + unit + ", baseline in " + expected.optString("mode") + " " + expected.optString("unit"));
+                continue;
+            }
+            double baseScore = expected.getDouble("score");
+            double tolerance = expected.optDouble("tolerance", defaultTolerance);
+            // Positive when faster
+            double change = isThroughput(mode) ? (score - baseScore) / baseScore : (baseScore - score) / baseScore;
+            boolean regressed = change < -tolerance;
+            System.out.println(String.format("%-70s %12.3f %12.3f %-8s %+8.1f%% %8.0f%%  %s", name, baseScore, score, unit,
+                    change * 100, tolerance * 100, regressed ? "REGRESSION" : "ok"));
+            if (regressed) {
+                regressions.add(String.format("%s: %.3f %s, baseline %.3f %s, %.1f%% slower (tolerance %.0f%%)",
+                        name, score, unit, baseScore, unit, -change * 100, tolerance * 100));
+            }
+        }
+        for (String name : benchmarks.keySet()) {
+            if (!measured.contains(name)) {
+                System.out.println(String.format("%-70s %12.3f %12s %-8s %9s %9s  %s", name, benchmarks.getJSONObject(name).getDouble("score"),
+                        "-", benchmarks.getJSONObject(name).optString("unit"), "-", "-", "NOT RUN"));
+                regressions.add(name + ": no result, the benchmark failed or was not run");
+            }
+        }
+        return regressions;
+    }
+
+    static void update(JSONObject baseline, JSONArray results) {
+        if (!baseline.has("defaultTolerance")) baseline.put("defaultTolerance", DEFAULT_TOLERANCE);
+        JSONObject benchmarks = baseline.optJSONObject("benchmarks");
+        if (benchmarks == null) {
+            benchmarks = new JSONObject();
+            baseline.put("benchmarks", benchmarks);
+        }
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String name = result.getString("benchmark");
+            JSONObject entry = benchmarks.optJSONObject(name);
+            if (entry == null) {
+                entry = new JSONObject();
+                benchmarks.put(name, entry);
+            }
+            entry.put("mode", result.getString("mode"));
+            entry.put("score", result.getJSONObject("primaryMetric").getDouble("score"));
+            entry.put("unit", result.getJSONObject("primaryMetric").getString("scoreUnit"));
+        }
+    }
+
+    private static boolean isThroughput(String mode) {
+        return mode.equals("thrpt");
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.Commitment;
+import com.zerocoinj.core.CommitmentProofOfKnowledge;
+import com.zerocoinj.core.SerialNumberSignatureOfKnowledge;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import com.zerocoinj.core.context.ZerocoinContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pivxj.core.Sha256Hash;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and verification of each spend proof.
+ *
+ * Proofs are created for a freshly minted coin, the same way {@link CoinSpend} does it, and verified from the
+ * fixture spend so verification runs over the c++ library output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ProofBenchmark {
+
+    private final ZerocoinContext context = Fixtures.CONTEXT;
+
+    // Creation inputs
+    private ZeroCoin coin;
+    private Accumulator accumulator;
+    private AccumulatorWitness witness;
+    private Commitment serialCommitment;
+    private Commitment accCommitment;
+    private Sha256Hash messageHash;
+
+    // Fixture
+    private CoinSpend spend;
+    private Accumulator spendAccumulator;
+    private Sha256Hash spendHash;
+
+    @Setup
+    public void setup() {
+        List<ZeroCoin> coins = Fixtures.mint(3);
+        coin = coins.get(0);
+        accumulator = new Accumulator(context.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        witness = new AccumulatorWitness(accumulator.copy(), coin);
+        for (ZeroCoin minted : coins) {
+            accumulator.accumulate(minted);
+            witness.addElement(minted);
+        }
+        serialCommitment = new Commitment(coin.getCommitment().getCommitmentValue(), context.getSerialNumberSoKCommitmentGroup());
+        accCommitment = new Commitment(coin.getCommitment().getCommitmentValue(),
+                context.getAccumulatorParams().getAccumulatorPoKCommitmentGroup());
+        messageHash = Sha256Hash.of(coin.getSerial().toByteArray());
+
+        spend = Fixtures.coinSpend();
+        spendAccumulator = Fixtures.accumulator();
+        spendHash = Sha256Hash.wrap(spend.signatureHash());
+    }
+
+    @Benchmark
+    public CommitmentProofOfKnowledge commitmentPoKCreate() {
+        return new CommitmentProofOfKnowledge(context.getSerialNumberSoKCommitmentGroup(),
+                context.getAccumulatorParams().getAccumulatorPoKCommitmentGroup(), serialCommitment, accCommitment);
+    }
+
+    @Benchmark
+    public boolean commitmentPoKVerify() {
+        return spend.getCommitmentPoK().verify(spend.getSerialCommitmentToCoinValue(), spend.getAccCommitmentToCoinValue());
+    }
+
+    @Benchmark
+    public AccumulatorProofOfKnowledge accumulatorPoKCreate() {
+        return new AccumulatorProofOfKnowledge(context.getAccumulatorParams(), accCommitment, witness, accumulator);
+    }
+
+    @Benchmark
+    public boolean accumulatorPoKVerify() {
+        return spend.getAccumulatorPoK().verify(spendAccumulator, spend.getAccCommitmentToCoinValue());
+    }
+
+    @Benchmark
+    public SerialNumberSignatureOfKnowledge serialNumberSoKCreate() {
+        return new SerialNumberSignatureOfKnowledge(context, coin, serialCommitment, messageHash, null);
+    }
+
+    @Benchmark
+    public boolean serialNumberSoKVerify() {
+        return spend.getSerialNumberSoK().verify(spend.getCoinSerialNumber(), spend.getSerialCommitmentToCoinValue(), spendHash);
+    }
+}
@@ -0,0 +1,269 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.SpendType;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.pivxj.core.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End to end spend lifecycle: mint N coins, accumulate them, build a witness per coin, create the spends,
+ * serialize, parse and verify them.
+ *
+ * The pipeline runs once per thread count, every stage but the accumulation (sequential by nature) spreads its
+ * items over the threads. Prints the latency percentiles of each stage and writes a json report.
+ *
+ * Arguments: {@code [--coins N] [--threads 1,2,4] [--report path]}
+ */
+public class SpendLifecycleBenchmark {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private final int coins;
+
+    private SpendLifecycleBenchmark(int coins) {
+        this.coins = coins;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int coins = 20;
+        int[] threadCounts = {1, Runtime.getRuntime().availableProcessors()};
+        Path report = Paths.get("build", "reports", "lifecycle", "report.json");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--coins":
+                    coins = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threadCounts = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).distinct().toArray();
+                    break;
+                case "--report":
+                    report = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i] + ", usage: [--coins N] [--threads 1,2,4] [--report path]");
+            }
+        }
+        if (coins < 2) throw new IllegalArgumentException("At least two coins are needed");
+
+        SpendLifecycleBenchmark benchmark = new SpendLifecycleBenchmark(coins);
+        JSONArray runs = new JSONArray();
+        int invalid = 0;
+        for (int threads : threadCounts) {
+            Run run = benchmark.run(threads);
+            run.print();
+            runs.put(run.toJson());
+            invalid += run.invalid;
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("benchmark", "spendLifecycle");
+        json.put("timestamp", System.currentTimeMillis());
+        json.put("java", System.getProperty("java.version"));
+        json.put("processors", Runtime.getRuntime().availableProcessors());
+        json.put("coins", coins);
+        json.put("runs", runs);
+        if (report.getParent() != null) Files.createDirectories(report.getParent());
+        Files.write(report, json.toString(2).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Report written to " + report.toAbsolutePath());
+
+        if (invalid > 0) {
+            System.err.println(invalid + " spends didn't verify");
+            System.exit(1);
+        }
+    }
+
+    private Run run(int threads) throws Exception {
+        System.out.println(String.format("Spend lifecycle, %d coins, %d threads", coins, threads));
+        Run run = new Run(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+
+            ZeroCoin[] minted = new ZeroCoin[coins];
+            run.stage("mint", executor, coins, i -> minted[i] = Fixtures.mint(1).get(0));
+
+            Accumulator initial = new Accumulator(Fixtures.CONTEXT.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+            Accumulator accumulator = initial.copy();
+            run.stage("accumulate", null, coins, i -> accumulator.accumulate(minted[i]));
+
+            AccumulatorWitness[] witnesses = new AccumulatorWitness[coins];
+            run.stage("witness", executor, coins, i -> {
+                AccumulatorWitness witness = new AccumulatorWitness(initial.copy(), minted[i]);
+                for (ZeroCoin coin : minted) {
+                    witness.addElement(coin);
+                }
+                witnesses[i] = witness;
+            });
+
+            CoinSpend[] spends = new CoinSpend[coins];
+            run.stage("spend", executor, coins, i -> spends[i] = new CoinSpend(Fixtures.CONTEXT, minted[i], accumulator,
+                    BigInteger.ZERO, witnesses[i], Sha256Hash.of(minted[i].getSerial().toByteArray()), SpendType.SPEND, null));
+
+            byte[][] serialized = new byte[coins][];
+            run.stage("serialize", executor, coins, i -> serialized[i] = spends[i].bitcoinSerialize());
+
+            CoinSpend[] parsed = new CoinSpend[coins];
+            run.stage("parse", executor, coins, i -> parsed[i] = CoinSpend.parse(Fixtures.PARAMS, Fixtures.CONTEXT, serialized[i]));
+
+            AtomicInteger invalid = new AtomicInteger();
+            run.stage("verify", executor, coins, i -> {
+                if (!parsed[i].verify(accumulator)) invalid.incrementAndGet();
+            });
+
+            run.wallNanos = System.nanoTime() - start;
+            run.invalid = invalid.get();
+            return run;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface Task {
+        void run(int item) throws Exception;
+    }
+
+    private class Run {
+
+        final int threads;
+        final List<Stage> stages = new ArrayList<>();
+        long wallNanos;
+        int invalid;
+
+        Run(int threads) {
+            this.threads = threads;
+        }
+
+        /**
+         * Runs the task for every item, on the executor or on the caller thread if it's null.
+         */
+        void stage(String name, ExecutorService executor, int items, Task task) throws Exception {
+            long[] latencies = new long[items];
+            long start = System.nanoTime();
+            if (executor == null) {
+                for (int i = 0; i < items; i++) {
+                    long itemStart = System.nanoTime();
+                    task.run(i);
+                    latencies[i] = System.nanoTime() - itemStart;
+                }
+            } else {
+                List<Future<?>> futures = new ArrayList<>(items);
+                for (int i = 0; i < items; i++) {
+                    final int item = i;
+                    futures.add(executor.submit(() -> {
+                        long itemStart = System.nanoTime();
+                        task.run(item);
+                        latencies[item] = System.nanoTime() - itemStart;
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            stages.add(new Stage(name, executor == null ? 1 : threads, System.nanoTime() - start, latencies));
+        }
+
+        void print() {
+            System.out.println(String.format("%-11s %8s %10s %10s %10s %10s %10s", "stage", "threads", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            for (Stage stage : stages) {
+                System.out.println(String.format("%-11s %8d %10.2f %10.3f %10.3f %10.3f %10.3f", stage.name, stage.threads, stage.throughput(),
+                        millis(stage.percentile(0.5)), millis(stage.percentile(0.99)), millis(stage.percentile(0.999)), millis(stage.max())));
+            }
+            System.out.println(String.format("Total %.1f s, %.2f spends/s end to end", wallNanos / 1e9, spendsPerSecond()));
+        }
+
+        double spendsPerSecond() {
+            return coins / (wallNanos / 1e9);
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("threads", threads);
+            json.put("wallMillis", millis(wallNanos));
+            json.put("spendsPerSecond", spendsPerSecond());
+            json.put("invalidSpends", invalid);
+            JSONObject stagesJson = new JSONObject();
+            for (Stage stage : stages) {
+                stagesJson.put(stage.name, stage.toJson());
+            }
+            json.put("stages", stagesJson);
+            return json;
+        }
+    }
+
+    private static class Stage {
+
+        final String name;
+        final int threads;
+        final long wallNanos;
+        // Sorted
+        final long[] latencies;
+
+        Stage(String name, int threads, long wallNanos, long[] latencies) {
+            this.name = name;
+            this.threads = threads;
+            this.wallNanos = wallNanos;
+            this.latencies = latencies;
+            Arrays.sort(latencies);
+        }
+
+        double throughput() {
+            return latencies.length / (wallNanos / 1e9);
+        }
+
+        /**
+         * Nearest rank percentile.
+         */
+        long percentile(double percentile) {
+            int rank = (int) Math.ceil(percentile * latencies.length);
+            return latencies[Math.max(rank, 1) - 1];
+        }
+
+        long max() {
+            return latencies[latencies.length - 1];
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("threads", threads);
+            json.put("count", latencies.length);
+            json.put("wallMillis", millis(wallNanos));
+            json.put("opsPerSecond", throughput());
+            JSONObject percentiles = new JSONObject();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                percentiles.put(PERCENTILE_NAMES[i], millis(percentile(PERCENTILES[i])));
+            }
+            percentiles.put("max", millis(max()));
+            json.put("latencyMillis", percentiles);
+            return json;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
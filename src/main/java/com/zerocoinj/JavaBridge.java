@@ -0,0 +1,97 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.JniBridgeWrapper;
+import org.pivxj.core.Utils;
+import org.pivxj.core.VarInt;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.util.BigIntegers;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+/**
+ * Java implementation of the bridge, used by {@link JniBridge} when the native library is not available.
+ *
+ * Same seed expansion as the native code: libzerocoin's CHashWriter keeps hashing after each GetHash() from the
+ * state its last inner SHA256 was left in, which is rebuilt here from the hash bytes.
+ */
+public class JavaBridge implements JniBridgeWrapper {
+
+    private static final BigInteger UINT256_MODULUS = BigInteger.ONE.shiftLeft(256);
+    // CBigNum::randBignum(~uint256(0))
+    private static final BigInteger SEED_MAX = UINT256_MODULUS.subtract(BigInteger.valueOf(2));
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public byte[] compute1024seed(byte[] seed) {
+        BigInteger num = Utils.decodeMPI(Utils.reverseBytes(seed), false).abs();
+        return Utils.reverseBytes(Utils.encodeMPI(seedTo1024(num), false));
+    }
+
+    @Override
+    public void compute1024seed(ByteBuffer seed, ByteBuffer out) {
+        new ByteBufferWriter(out).writeBignum(seedTo1024(new ByteBufferReader(seed).readBignum().abs()));
+    }
+
+    @Override
+    public String computeVSeedAndVExpanded() {
+        BigInteger seed = BigIntegers.createRandomInRange(BigInteger.ZERO, SEED_MAX, random);
+        return seed.toString() + "||" + seedTo1024(seed).toString();
+    }
+
+    /**
+     * @return the concatenation of 4 chained hashes of the seed low 256 bits
+     */
+    static BigInteger seedTo1024(BigInteger seed) {
+        // uint256 serialization, little endian
+        byte[] bigEndian = BigIntegers.asUnsignedByteArray(seed.mod(UINT256_MODULUS));
+        byte[] hashSeed = new byte[32];
+        for (int i = 0; i < bigEndian.length; i++) {
+            hashSeed[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        SHA256Digest sha = new SHA256Digest();
+        sha.update(hashSeed, 0, hashSeed.length);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(132);
+        for (int i = 0; i < 4; i++) {
+            byte[] hash = doubleSha(sha);
+            sha = continueFrom(hash);
+            byte[] vHash = Utils.reverseBytes(Utils.encodeMPI(new BigInteger(1, Utils.reverseBytes(hash)), false));
+            result.write(vHash, 0, vHash.length);
+            // hasher << vResult, a serialized vector
+            byte[] vResult = result.toByteArray();
+            byte[] size = new VarInt(vResult.length).encode();
+            sha.update(size, 0, size.length);
+            sha.update(vResult, 0, vResult.length);
+        }
+        return Utils.decodeMPI(Utils.reverseBytes(result.toByteArray()), false);
+    }
+
+    private static byte[] doubleSha(SHA256Digest sha) {
+        byte[] hash = new byte[32];
+        sha.doFinal(hash, 0);
+        sha.update(hash, 0, hash.length);
+        sha.doFinal(hash, 0);
+        return hash;
+    }
+
+    /**
+     * @return a digest in the state of a SHA256 that just output {@code hash} after hashing one block,
+     * from the encoded state layout: xBuf, xBufOff, byteCount, H1..H8, xOff
+     */
+    private static SHA256Digest continueFrom(byte[] hash) {
+        byte[] state = new byte[52];
+        state[15] = 64;
+        System.arraycopy(hash, 0, state, 16, hash.length);
+        return new SHA256Digest(state);
+    }
+}
@@ -6,37 +6,108 @@ package com.zerocoinj;
 
 import com.zerocoinj.utils.JniBridgeWrapper;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
+/**
+ * Bridge to the native libzerocoin code. The library is loaded on the first call, if it isn't available the calls
+ * run on {@link JavaBridge}. See {@link NativeStatus} for the outcome.
+ */
 public class JniBridge implements JniBridgeWrapper {
 
-    static {
-        System.out.println(("***********************************************************************************"));
-        System.out.println(("*** Native library initialization sequence beginning.  "));
-        System.out.println(("*** java.library.path: " + System.getProperty("java.library.path")));
-        System.out.println(("***"));
-
-        // Load the JNI bridge
-        System.out.println(("***"));
-        System.out.println(("*** Loading JNI bridge library..."));
-        try {
-            System.loadLibrary("bridge");
-        } catch (Error | Exception e) {
-            System.out.println("***********************************************************************************");
-            System.out.println("*** Failed to load JNI bridge library: " + e.getMessage());
-            System.out.println("***********************************************************************************");
-        }
-
-        System.out.println(("***"));
-        System.out.println(("*** Native library initialization sequence complete.  "));
-        System.out.println(("***********************************************************************************"));
+    private static final class Fallback {
+        static final JavaBridge BRIDGE = new JavaBridge();
     }
 
     public JniBridge() {
     }
 
+    /**
+     * @return the loading outcome, loading the library if it wasn't yet
+     */
+    public static NativeStatus status() {
+        return NativeStatus.get();
+    }
+
     // Compute seed
-    public native byte[] compute1024seed(byte[] seed);
+    @Override
+    public byte[] compute1024seed(byte[] seed) {
+        return NativeStatus.get().isLoaded() ? nativeCompute1024seed(seed) : Fallback.BRIDGE.compute1024seed(seed);
+    }
+
+    /**
+     * Native when both buffers are direct, the library reads and writes them in place.
+     */
+    @Override
+    public void compute1024seed(ByteBuffer seed, ByteBuffer out) {
+        if (!NativeStatus.get().isLoaded()) {
+            Fallback.BRIDGE.compute1024seed(seed, out);
+        } else if (!seed.isDirect() || !out.isDirect()) {
+            JniBridgeWrapper.super.compute1024seed(seed, out);
+        } else {
+            int written = nativeCompute1024seedDirect(seed, seed.position(), seed.remaining(), out, out.position(), out.remaining());
+            if (written < 0) {
+                throw new IllegalArgumentException("Invalid seed or output buffer smaller than " + EXPANDED_SEED_SIZE + " bytes");
+            }
+            ((Buffer) out).position(out.position() + written);
+        }
+    }
 
     //
-    public native String computeVSeedAndVExpanded();
+    @Override
+    public String computeVSeedAndVExpanded() {
+        return NativeStatus.get().isLoaded() ? nativeComputeVSeedAndVExpanded() : Fallback.BRIDGE.computeVSeedAndVExpanded();
+    }
+
+    /**
+     * The proofs are only verified natively, there is no Java fallback behind these methods.
+     */
+    @Override
+    public boolean canVerifyProofs() {
+        return NativeStatus.get().isLoaded();
+    }
+
+    @Override
+    public boolean verifySerialNumberSoK(byte[] params, byte[] proof, byte[] coinSerialNumber, byte[] valueOfCommitmentToCoin, byte[] msghash) {
+        checkLoaded();
+        return nativeVerifySerialNumberSoK(params, proof, coinSerialNumber, valueOfCommitmentToCoin, msghash);
+    }
+
+    @Override
+    public boolean verifyAccumulatorPoK(byte[] params, byte[] proof, byte[] accumulatorValue, byte[] valueOfCommitmentToCoin) {
+        checkLoaded();
+        return nativeVerifyAccumulatorPoK(params, proof, accumulatorValue, valueOfCommitmentToCoin);
+    }
+
+    private static void checkLoaded() {
+        if (!NativeStatus.get().isLoaded()) {
+            throw new UnsupportedOperationException("Native library not loaded: " + NativeStatus.get());
+        }
+    }
+
+    /**
+     * Throws {@link UnsatisfiedLinkError} if the loaded library lacks the bridge methods, e.g. an older build.
+     */
+    static void probe() {
+        JniBridge bridge = new JniBridge();
+        bridge.nativeCompute1024seed(new byte[]{1});
+        ByteBuffer empty = ByteBuffer.allocateDirect(0);
+        bridge.nativeCompute1024seedDirect(empty, 0, 0, empty, 0, 0);
+        byte[] none = new byte[0];
+        bridge.nativeVerifySerialNumberSoK(none, none, none, none, none);
+        bridge.nativeVerifyAccumulatorPoK(none, none, none, none);
+    }
+
+    private native byte[] nativeCompute1024seed(byte[] seed);
+
+    /**
+     * @return bytes written to {@code out}, -1 if the seed is malformed or doesn't fit
+     */
+    private native int nativeCompute1024seedDirect(ByteBuffer seed, int seedOffset, int seedLength, ByteBuffer out, int outOffset, int outLength);
+
+    private native String nativeComputeVSeedAndVExpanded();
+
+    private native boolean nativeVerifySerialNumberSoK(byte[] params, byte[] proof, byte[] coinSerialNumber, byte[] valueOfCommitmentToCoin, byte[] msghash);
+
+    private native boolean nativeVerifyAccumulatorPoK(byte[] params, byte[] proof, byte[] accumulatorValue, byte[] valueOfCommitmentToCoin);
 }
@@ -0,0 +1,115 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.NativeStatus.Backend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Loads the bridge library for {@link NativeStatus}.
+ */
+final class NativeLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(NativeLoader.class);
+
+    static final String LIBRARY = "bridge";
+    static final String JAVA_LIBRARY_PATH = "java.library.path";
+
+    private NativeLoader() {
+    }
+
+    static NativeStatus load() {
+        String platform = platform();
+        if (!Boolean.parseBoolean(System.getProperty("zerocoinj.native", "true"))) {
+            log.info("Native bridge disabled, using the Java implementation");
+            return new NativeStatus(Backend.JAVA, platform, null, null);
+        }
+
+        Throwable error;
+        try {
+            System.loadLibrary(LIBRARY);
+            JniBridge.probe();
+            log.debug("Native bridge loaded from {}", JAVA_LIBRARY_PATH);
+            return new NativeStatus(Backend.NATIVE, platform, JAVA_LIBRARY_PATH, null);
+        } catch (UnsatisfiedLinkError e) {
+            error = e;
+        }
+
+        String resource = resource(platform);
+        try (InputStream in = NativeLoader.class.getResourceAsStream(resource)) {
+            if (in != null) {
+                Path file = extract(in);
+                System.load(file.toString());
+                JniBridge.probe();
+                log.debug("Native bridge loaded from {}", file);
+                return new NativeStatus(Backend.NATIVE, platform, file.toString(), null);
+            }
+        } catch (IOException | UnsatisfiedLinkError e) {
+            error.addSuppressed(e);
+        }
+
+        log.info("Native bridge not available for {}, using the Java implementation: {}", platform, error.getMessage());
+        return new NativeStatus(Backend.JAVA, platform, null, error);
+    }
+
+    /**
+     * @return the bundled library of the platform, e.g. "/native/linux-x86_64/libbridge.so"
+     */
+    static String resource(String platform) {
+        return "/native/" + platform + "/" + System.mapLibraryName(LIBRARY);
+    }
+
+    static String platform() {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        if (os.startsWith("linux")) {
+            os = "linux";
+        } else if (os.startsWith("mac") || os.startsWith("darwin")) {
+            os = "osx";
+        } else if (os.startsWith("windows")) {
+            os = "windows";
+        } else {
+            os = os.replaceAll("\\W", "");
+        }
+        String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+        switch (arch) {
+            case "amd64":
+            case "x86_64":
+                arch = "x86_64";
+                break;
+            case "aarch64":
+            case "arm64":
+                arch = "aarch64";
+                break;
+            case "x86":
+            case "i386":
+            case "i686":
+                arch = "x86";
+                break;
+            default:
+                break;
+        }
+        return os + "-" + arch;
+    }
+
+    /**
+     * Copies the library to a new temp dir, both removed on exit.
+     */
+    static Path extract(InputStream in) throws IOException {
+        Path dir = Files.createTempDirectory("zerocoinj-native");
+        dir.toFile().deleteOnExit();
+        Path file = dir.resolve(System.mapLibraryName(LIBRARY));
+        // Registered after the dir to be deleted before it
+        file.toFile().deleteOnExit();
+        Files.copy(in, file);
+        return file;
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+/**
+ * Outcome of loading the native bridge library, see {@link #get()}.
+ *
+ * The library is loaded once, on the first call of {@link JniBridge} or of {@link #get()}: first from
+ * {@code java.library.path}, then extracted from the jar ({@code /native/<platform>/libbridge.so}) to a temp dir.
+ * If neither works the bridge runs on {@link JavaBridge}. {@code -Dzerocoinj.native=false} skips the loading.
+ */
+public final class NativeStatus {
+
+    public enum Backend {
+        NATIVE, JAVA
+    }
+
+    private static final class Holder {
+        static final NativeStatus STATUS = NativeLoader.load();
+    }
+
+    private final Backend backend;
+    private final String platform;
+    private final String library;
+    private final Throwable error;
+
+    NativeStatus(Backend backend, String platform, String library, Throwable error) {
+        this.backend = backend;
+        this.platform = platform;
+        this.library = library;
+        this.error = error;
+    }
+
+    /**
+     * @return the status, loading the library if it wasn't yet
+     */
+    public static NativeStatus get() {
+        return Holder.STATUS;
+    }
+
+    public boolean isLoaded() {
+        return backend == Backend.NATIVE;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return os and arch of the runtime, e.g. "linux-x86_64", naming the bundled library directory
+     */
+    public String getPlatform() {
+        return platform;
+    }
+
+    /**
+     * @return where the library was loaded from, the file or "java.library.path", null if it wasn't
+     */
+    public String getLibrary() {
+        return library;
+    }
+
+    /**
+     * @return why the library couldn't be loaded, null if it was or the loading was disabled
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "NativeStatus{" +
+                "backend=" + backend +
+                ", platform=" + platform +
+                (library != null ? ", library=" + library : "") +
+                (error != null ? ", error=" + error : "") +
+                '}';
+    }
+}
@@ -5,24 +5,40 @@
 package com.zerocoinj.core;
 
 import com.google.common.base.Preconditions;
+import com.zerocoinj.core.VerificationResult.Stage;
 import com.zerocoinj.core.accumulators.Accumulator;
 import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
 import com.zerocoinj.core.accumulators.AccumulatorWitness;
 import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spongycastle.util.encoders.Hex;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static com.zerocoinj.core.ZeroCoin.*;
-import static com.zerocoinj.utils.ZUtils.serializeBytesVarInt;
+import static com.zerocoinj.utils.ByteBufferWriter.bignumSize;
+import static com.zerocoinj.utils.ByteBufferWriter.byteArraySize;
+import static com.zerocoinj.utils.ByteBufferWriter.varIntSize;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 /**
  * The complete proof needed to spend a zerocoin.
@@ -53,6 +69,21 @@ public class CoinSpend extends Message {
     private byte[] vchSig;
     private SpendType spendType;
 
+    // Memoized signatureHash(). The hashed fields are set once, by the constructor or the parse, and never change.
+    // Parsed spends hash the payload bytes while parsing instead of encoding the numbers again
+    private volatile byte[] signatureHash;
+    // Memoized contentHash()
+    private volatile Sha256Hash contentHash;
+
+    // Hashed field offsets indexes, the field positions in the payload
+    private static final int ACC_COMMITMENT = 0;
+    private static final int SERIAL_COMMITMENT = 1;
+    private static final int SERIAL = 2;
+    private static final int ACC_POK = 3;
+    private static final int SOK = 4;
+    private static final int COMMITMENT_POK = 5;
+    private static final int COMMITMENT_POK_END = 6;
+
     public static CoinSpend parse(NetworkParameters params, ZerocoinContext zParams, byte[] payload){
         CoinSpend coinSpend = new CoinSpend(params);
         // Add protocol if i need it in the future
@@ -74,6 +105,65 @@ public class CoinSpend extends Message {
         return coinSpend;
     }
 
+    /**
+     * Parses the spend contained in the buffer remaining bytes without copying the payload.
+     * The buffer position is not modified and the spend doesn't keep it, it can be reused once this returns.
+     */
+    public static CoinSpend parse(NetworkParameters params, ZerocoinContext zParams, ByteBuffer buffer){
+        ByteBufferReader reader = new ByteBufferReader(buffer);
+        CoinSpend coinSpend = parse(params, zParams, reader);
+        if (reader.hasRemaining()) throw new RuntimeException("There are more bytes to parse?");
+        return coinSpend;
+    }
+
+    /**
+     * Parses a spend from the reader current position, see {@link ByteBufferReader}.
+     *
+     * The serialized spend isn't length prefixed and a version 1 spend is told apart from the later ones only by
+     * ending where the optional version fields start, so the reader has to end with the spend: its limit must be
+     * the end of this spend, a version 1 spend followed by other data is parsed as a newer one.
+     */
+    public static CoinSpend parse(NetworkParameters params, ZerocoinContext zParams, ByteBufferReader reader){
+        CoinSpend coinSpend = new CoinSpend(params);
+        coinSpend.zParams = zParams;
+        int start = reader.position();
+
+        coinSpend.denomination = CoinDenomination.fromValue((int) reader.readUint32());
+        coinSpend.pTxHash = reader.readHash();
+        coinSpend.accChecksum = BigInteger.valueOf(reader.readUint32());
+        int[] offsets = new int[COMMITMENT_POK_END + 1];
+        offsets[ACC_COMMITMENT] = reader.position() - start;
+        coinSpend.accCommitmentToCoinValue = reader.readBignum();
+        offsets[SERIAL_COMMITMENT] = reader.position() - start;
+        coinSpend.serialCommitmentToCoinValue = reader.readBignum();
+        offsets[SERIAL] = reader.position() - start;
+        coinSpend.coinSerialNumber = reader.readBignum();
+        offsets[ACC_POK] = reader.position() - start;
+        coinSpend.accumulatorPoK = AccumulatorProofOfKnowledge.parse(params, zParams, reader);
+        offsets[SOK] = reader.position() - start;
+        coinSpend.serialNumberSoK = SerialNumberSignatureOfKnowledge.parse(params, zParams, reader);
+        offsets[COMMITMENT_POK] = reader.position() - start;
+        coinSpend.commitmentPoK = CommitmentProofOfKnowledge.parse(
+                params,
+                zParams.getSerialNumberSoKCommitmentGroup(),
+                zParams.getAccumulatorParams().getAccumulatorPoKCommitmentGroup(),
+                reader
+        );
+        offsets[COMMITMENT_POK_END] = reader.position() - start;
+        if (reader.hasRemaining()) {
+            coinSpend.version = (int) reader.readVarInt();
+            coinSpend.pubKey = ECKey.fromPublicOnly(reader.readByteArray());
+            coinSpend.vchSig = reader.readByteArray();
+            coinSpend.spendType = SpendType.values()[(int) reader.readVarInt()];
+        } else {
+            coinSpend.log.warn("Version 1 serial arrived??", coinSpend);
+        }
+
+        coinSpend.length = reader.position() - start;
+        coinSpend.signatureHash = coinSpend.hashPayload(reader.slice(start, reader.position()), offsets);
+        return coinSpend;
+    }
+
     private CoinSpend(NetworkParameters params) {
         super(params);
     }
@@ -106,6 +196,8 @@ public class CoinSpend extends Message {
                      final AccumulatorWitness witness, final Sha256Hash pTxHash, final SpendType spendType,
                      SerialNumberSignatureOfKnowledge.RandomNumbers randomNumbers
     ){
+        Span span = ZerocoinEvents.spend(ZerocoinEvents.CREATE, coin.getCoinDenomination());
+        long start = System.nanoTime();
 
         this.denomination = coin.getCoinDenomination();
         this.version = coin.getVersion();
@@ -186,31 +278,122 @@ public class CoinSpend extends Message {
 
             }
         }
+        Metrics.recordSince(Metric.SPEND_CREATE, start);
+        span.setValid(true).finish();
 
     }
 
+    /**
+     * @return the hash signed by the serial number SoK and the spend key. Computed once, parsed spends hash
+     * their payload bytes directly
+     */
     public final byte[] signatureHash() {
-        HashWriter h = new HashWriter();
-        //h.print(true);
-        h.write(serialCommitmentToCoinValue)
-                .write(accCommitmentToCoinValue)
-                .write(commitmentPoK)
-                .write(accumulatorPoK)
-                .write(pTxHash)
-                .write(coinSerialNumber)
-                .write(accChecksum.longValue())
-                .write(denomination.getDenomination());
-        ;
-        if (version >= PUBKEY_VERSION) {
-            h.writeInternal(new VarInt(spendType.ordinal()).encode());
+        byte[] hash = signatureHash;
+        if (hash == null) {
+            hash = computeSignatureHash();
+            signatureHash = hash;
+        }
+        return hash.clone();
+    }
+
+    /**
+     * @return hash of the whole serialized spend, computed once
+     */
+    Sha256Hash contentHash() {
+        Sha256Hash hash = contentHash;
+        if (hash == null) {
+            hash = Sha256Hash.of(bitcoinSerialize());
+            contentHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Signature hash of a parsed spend from its payload bytes, while the payload is known to hold the parsed values.
+     *
+     * @return the hash, or null if the numbers aren't encoded as the hash writer would do it
+     */
+    private byte[] hashPayload(ByteBuffer payload, int[] offsets) {
+        if (!isCanonical(payload, offsets)) {
+            return null;
+        }
+        try (HashWriter h = HashWriter.acquire()) {
+            // Same order and encoding as computeSignatureHash(), the payload is: denomination, pTxHash, checksum,
+            // accCommitment, serialCommitment, serial, accPoK, SoK, commitmentPoK
+            h.writeBytes(payload, offsets[SERIAL_COMMITMENT], offsets[SERIAL])
+                    .writeBytes(payload, offsets[ACC_COMMITMENT], offsets[SERIAL_COMMITMENT])
+                    .writeBytes(payload, offsets[COMMITMENT_POK], offsets[COMMITMENT_POK_END])
+                    .writeBytes(payload, offsets[ACC_POK], offsets[SOK])
+                    .writeBytes(payload, 4, 36)
+                    .writeBytes(payload, offsets[SERIAL], offsets[ACC_POK])
+                    .writeBytes(payload, 36, 40)
+                    .writeBytes(payload, 0, 4);
+            if (version >= PUBKEY_VERSION) {
+                h.writeVarInt(spendType.ordinal());
+            }
+            return h.doubleShaReversed();
+        }
+    }
+
+    private byte[] computeSignatureHash() {
+        try (HashWriter h = HashWriter.acquire()) {
+            //h.print(true);
+            h.write(serialCommitmentToCoinValue)
+                    .write(accCommitmentToCoinValue)
+                    .write(commitmentPoK)
+                    .write(accumulatorPoK)
+                    .write(pTxHash)
+                    .write(coinSerialNumber)
+                    .write(accChecksum.longValue())
+                    .write(denomination.getDenomination());
+            if (version >= PUBKEY_VERSION) {
+                h.writeVarInt(spendType.ordinal());
+            }
+            return h.doubleShaReversed();
         }
-        return h.doubleShaReversed();
+    }
+
+    /**
+     * The payload numbers can be hashed as they are only if they are encoded as the hash writer would do it,
+     * minimal length and MPI, otherwise the hash has to be computed from the decoded values.
+     */
+    private static boolean isCanonical(ByteBuffer payload, int[] offsets) {
+        return isCanonical(payload, offsets[ACC_COMMITMENT], offsets[SOK])
+                && isCanonical(payload, offsets[COMMITMENT_POK], offsets[COMMITMENT_POK_END]);
+    }
+
+    private static boolean isCanonical(ByteBuffer payload, int from, int to) {
+        int pos = from;
+        while (pos < to) {
+            int length = payload.get(pos) & 0xff;
+            if (length == 0xfd) {
+                length = (payload.get(pos + 1) & 0xff) | (payload.get(pos + 2) & 0xff) << 8;
+                if (length < 0xfd) return false;
+                pos += 3;
+            } else if (length > 0xfd) {
+                // Numbers are never that long
+                return false;
+            } else {
+                pos++;
+            }
+            if (length > 0) {
+                // The most significant byte only holds the sign when the next one needs its top bit. Zero is empty
+                int msb = payload.get(pos + length - 1) & 0x7f;
+                if (msb == 0 && (length == 1 || (payload.get(pos + length - 2) & 0x80) == 0)) return false;
+            }
+            pos += length;
+        }
+        return pos == to;
     }
 
     /**
      * Additional verification layer that requires the spend be signed by the private key associated with the serial
      */
     public boolean hasValidSignature() {
+        return hasValidSignature(signatureHash());
+    }
+
+    private boolean hasValidSignature(byte[] signatureHash) {
         //No private key for V1
         if (version < PUBKEY_VERSION)
             return true;
@@ -230,39 +413,190 @@ public class CoinSpend extends Message {
             return false;
         }
 
-        return pubKey.verify(Utils.reverseBytes(signatureHash()), vchSig);
+        return pubKey.verify(Utils.reverseBytes(signatureHash), vchSig);
     }
 
     public boolean verify(Accumulator a) {
+        VerificationResult result = verify(a, false);
+        if (!result.isValid()) {
+            log.debug("CoinSpend::Verify: failed, {}", result);
+        }
+        return result.isValid();
+    }
+
+    /**
+     * Verifies the spend, signature included, recording how long each stage took.
+     *
+     * @param a the accumulator the spend was made against
+     * @return the result of the verification, with the failing stage (if any) and the timings
+     */
+    public VerificationResult verifyDetailed(Accumulator a) {
+        return verify(a, true);
+    }
+
+    private VerificationResult verify(Accumulator a, boolean checkSignature) {
+        Span span = ZerocoinEvents.spend(ZerocoinEvents.VERIFY, denomination);
+        long verifyStart = System.nanoTime();
+        VerificationResult result = verifyStages(a, checkSignature);
+        Metrics.recordSince(Metric.SPEND_VERIFY, verifyStart);
+        end(span, result);
+        return result;
+    }
+
+    private VerificationResult verifyStages(Accumulator a, boolean checkSignature) {
+        VerificationResult.Timings timings = new VerificationResult.Timings();
+
         // Double check that the version is the same as marked in the serial
-        if (extractVersionFromSerial(coinSerialNumber) != version) {
-            log.info( "CoinSpend::Verify: version does not match serial=" + extractVersionFromSerial(coinSerialNumber) + " actual=" + version + ", serial: " + coinSerialNumber.toString(16));
-            return false;
+        long start = System.nanoTime();
+        boolean valid = extractVersionFromSerial(coinSerialNumber) == version;
+        timings.record(Stage.VERSION, start);
+        if (!valid) {
+            return timings.failed(Stage.VERSION);
         }
 
-        if (a.getDenomination() != this.denomination) {
-            log.info("CoinsSpend::Verify: failed, denominations do not match");
-            return false;
+        start = System.nanoTime();
+        valid = a.getDenomination() == this.denomination;
+        timings.record(Stage.DENOMINATION, start);
+        if (!valid) {
+            return timings.failed(Stage.DENOMINATION);
+        }
+
+        byte[] signatureHash = null;
+        if (checkSignature) {
+            start = System.nanoTime();
+            signatureHash = signatureHash();
+            valid = hasValidSignature(signatureHash);
+            timings.record(Stage.SIGNATURE, start);
+            if (!valid) {
+                return timings.failed(Stage.SIGNATURE);
+            }
         }
 
         // Verify both of the sub-proofs using the given meta-data
-        if (!commitmentPoK.verify(serialCommitmentToCoinValue, accCommitmentToCoinValue)) {
-            log.info("CoinsSpend::Verify: commitmentPoK failed");
-            return false;
+        start = System.nanoTime();
+        valid = commitmentPoK.verify(serialCommitmentToCoinValue, accCommitmentToCoinValue);
+        timings.record(Stage.COMMITMENT_POK, start);
+        if (!valid) {
+            return timings.failed(Stage.COMMITMENT_POK);
         }
 
-        if (!accumulatorPoK.verify(a, accCommitmentToCoinValue)) {
-            log.info("CoinsSpend::Verify: accumulatorPoK failed");
-            return false;
+        start = System.nanoTime();
+        valid = accumulatorPoK.verify(a, accCommitmentToCoinValue);
+        timings.record(Stage.ACCUMULATOR_POK, start);
+        if (!valid) {
+            return timings.failed(Stage.ACCUMULATOR_POK);
         }
 
-        byte[] signatureHash = signatureHash();
-        if (!serialNumberSoK.verify(coinSerialNumber, serialCommitmentToCoinValue, Sha256Hash.wrap(signatureHash))) {
-            log.info("CoinsSpend::Verify: serialNumberSoK failed. sighash: " + Hex.toHexString(signatureHash));
-            return false;
+        start = System.nanoTime();
+        if (signatureHash == null) {
+            signatureHash = signatureHash();
+        }
+        valid = serialNumberSoK.verify(coinSerialNumber, serialCommitmentToCoinValue, Sha256Hash.wrap(signatureHash));
+        timings.record(Stage.SERIAL_NUMBER_SOK, start);
+        if (!valid) {
+            return timings.failed(Stage.SERIAL_NUMBER_SOK);
         }
 
-        return true;
+        return timings.valid();
+    }
+
+    /**
+     * Verifies the spend, signature included, without blocking the caller.
+     *
+     * The cheap checks (serial version, denomination and signature) run first, then the three proofs
+     * are verified concurrently on the given executor. As soon as one of them fails the returned future
+     * is completed and the proofs not started yet are cancelled.
+     *
+     * @param a the accumulator the spend was made against
+     * @param executor executor where the checks are run
+     * @return a future completed with the result of the verification
+     */
+    public CompletableFuture<VerificationResult> verifyAsync(final Accumulator a, final Executor executor) {
+        final Span span = ZerocoinEvents.spend(ZerocoinEvents.VERIFY, denomination);
+        final long verifyStart = System.nanoTime();
+        final CompletableFuture<VerificationResult> result = new CompletableFuture<>();
+        result.whenComplete((r, t) -> {
+            Metrics.recordSince(Metric.SPEND_VERIFY, verifyStart);
+            if (r != null) {
+                end(span, r);
+            } else {
+                span.setFailure(String.valueOf(t)).finish();
+            }
+        });
+        final VerificationResult.Timings timings = new VerificationResult.Timings();
+        runAsync(() -> {
+            // Double check that the version is the same as marked in the serial
+            long start = System.nanoTime();
+            boolean valid = extractVersionFromSerial(coinSerialNumber) == version;
+            timings.record(Stage.VERSION, start);
+            if (!valid) {
+                result.complete(timings.failed(Stage.VERSION));
+                return;
+            }
+
+            start = System.nanoTime();
+            valid = a.getDenomination() == this.denomination;
+            timings.record(Stage.DENOMINATION, start);
+            if (!valid) {
+                result.complete(timings.failed(Stage.DENOMINATION));
+                return;
+            }
+
+            start = System.nanoTime();
+            final byte[] signatureHash = signatureHash();
+            valid = hasValidSignature(signatureHash);
+            timings.record(Stage.SIGNATURE, start);
+            if (!valid) {
+                result.complete(timings.failed(Stage.SIGNATURE));
+                return;
+            }
+
+            // Verify the three sub-proofs concurrently
+            List<CompletableFuture<Boolean>> proofs = Arrays.asList(
+                    supplyAsync(() -> timings.time(Stage.COMMITMENT_POK,
+                            () -> commitmentPoK.verify(serialCommitmentToCoinValue, accCommitmentToCoinValue)), executor),
+                    supplyAsync(() -> timings.time(Stage.SERIAL_NUMBER_SOK,
+                            () -> serialNumberSoK.verify(coinSerialNumber, serialCommitmentToCoinValue, Sha256Hash.wrap(signatureHash))), executor)
+            );
+            final long accumulatorStart = System.nanoTime();
+            CompletableFuture<AccumulatorProofOfKnowledge.Equation> accumulatorProof =
+                    accumulatorPoK.findFailingEquationAsync(a, accCommitmentToCoinValue, executor);
+
+            List<CompletableFuture<?>> reported = Arrays.asList(
+                    report(result, timings, proofs.get(0), Stage.COMMITMENT_POK),
+                    report(result, timings, proofs.get(1), Stage.SERIAL_NUMBER_SOK),
+                    report(result, timings, accumulatorProof.thenApply(equation -> {
+                        timings.record(Stage.ACCUMULATOR_POK, accumulatorStart);
+                        return equation == null;
+                    }), Stage.ACCUMULATOR_POK)
+            );
+            CompletableFuture.allOf(reported.toArray(new CompletableFuture<?>[0]))
+                    .whenComplete((v, t) -> result.complete(timings.valid()));
+            result.whenComplete((r, t) -> {
+                proofs.forEach(proof -> proof.cancel(false));
+                accumulatorProof.cancel(false);
+            });
+        }, executor).whenComplete((v, t) -> {
+            if (t != null) result.completeExceptionally(t);
+        });
+        return result;
+    }
+
+    private static void end(Span span, VerificationResult result) {
+        span.setValid(result.isValid());
+        if (!result.isValid()) span.setFailure(result.getFailedStage().name());
+        span.finish();
+    }
+
+    private static CompletableFuture<Boolean> report(CompletableFuture<VerificationResult> result, VerificationResult.Timings timings,
+                                                     CompletableFuture<Boolean> proof, Stage stage) {
+        return proof.whenComplete((valid, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else if (!valid) {
+                result.complete(timings.failed(stage));
+            }
+        });
     }
 
     @Override
@@ -271,13 +605,20 @@ public class CoinSpend extends Message {
         this.denomination = CoinDenomination.fromValue((int) readUint32());
         this.pTxHash = readHash();
         this.accChecksum =  BigInteger.valueOf(readUint32());
+        int[] offsets = new int[COMMITMENT_POK_END + 1];
+        offsets[ACC_COMMITMENT] = cursor;
         this.accCommitmentToCoinValue = readBignum();
+        offsets[SERIAL_COMMITMENT] = cursor;
         this.serialCommitmentToCoinValue = readBignum();
+        offsets[SERIAL] = cursor;
         this.coinSerialNumber = readBignum();
+        offsets[ACC_POK] = cursor;
         this.accumulatorPoK = AccumulatorProofOfKnowledge.parse(params, zParams, payload, cursor, false);
         this.cursor = this.offset = this.accumulatorPoK.getCursor();
+        offsets[SOK] = cursor;
         this.serialNumberSoK = SerialNumberSignatureOfKnowledge.parse(params, zParams, payload, cursor, false);
         this.cursor = this.offset = this.serialNumberSoK.getCursor();
+        offsets[COMMITMENT_POK] = cursor;
         this.commitmentPoK = CommitmentProofOfKnowledge.parse(
                 params,
                 zParams.getSerialNumberSoKCommitmentGroup(),
@@ -287,6 +628,7 @@ public class CoinSpend extends Message {
                 false
         );
         this.cursor = this.offset = this.commitmentPoK.getCursor();
+        offsets[COMMITMENT_POK_END] = cursor;
         try {
             this.version = (int) readVarInt();
             this.pubKey = ECKey.fromPublicOnly(readByteArray());
@@ -297,28 +639,65 @@ public class CoinSpend extends Message {
         }
 
         if (cursor != payload.length) throw new RuntimeException("There are more bytes to parse?");
+        this.signatureHash = hashPayload(ByteBuffer.wrap(payload), offsets);
     }
 
     @Override
     public byte[] bitcoinSerialize() {
-        try (ByteArrayOutputStream buff = new ByteArrayOutputStream()) {
-            Utils.uint32ToByteStreamLE(denomination.getDenomination(), buff);
-            buff.write(pTxHash.getReversedBytes());
-            Utils.uint32ToByteStreamLE(accChecksum.longValue(), buff);
-            ZUtils.serializeBigInteger(buff, accCommitmentToCoinValue);
-            ZUtils.serializeBigInteger(buff, serialCommitmentToCoinValue);
-            ZUtils.serializeBigInteger(buff, coinSerialNumber);
-            buff.write(accumulatorPoK.bitcoinSerialize());
-            buff.write(serialNumberSoK.bitcoinSerialize());
-            buff.write(commitmentPoK.bitcoinSerialize());
-            buff.write(new VarInt(version).encode());
-            serializeBytesVarInt(pubKey.getPubKey(), buff);
-            serializeBytesVarInt(vchSig, buff);
-            buff.write(new VarInt(spendType.ordinal()).encode());
-            return buff.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot serialize CoinSpend", e);
-        }
+        byte[] bytes = new byte[getSerializedSize()];
+        serialize(new ByteBufferWriter(ByteBuffer.wrap(bytes)));
+        return bytes;
+    }
+
+    @Override
+    protected void bitcoinSerializeToStream(OutputStream stream) throws IOException {
+        stream.write(bitcoinSerialize());
+    }
+
+    /**
+     * @return exact size of the serialized spend
+     */
+    public int getSerializedSize() {
+        return 4 + 32 + 4 +
+                bignumSize(accCommitmentToCoinValue) +
+                bignumSize(serialCommitmentToCoinValue) +
+                bignumSize(coinSerialNumber) +
+                accumulatorPoK.getSerializedSize() +
+                serialNumberSoK.getSerializedSize() +
+                commitmentPoK.getSerializedSize() +
+                varIntSize(version) +
+                byteArraySize(pubKey.getPubKey()) +
+                byteArraySize(vchSig) +
+                varIntSize(spendType.ordinal());
+    }
+
+    /**
+     * Writes the spend at the buffer position, advancing it {@link #getSerializedSize()} bytes.
+     *
+     * @throws BufferOverflowException if the buffer doesn't have enough space, nothing is written then
+     */
+    public void serialize(ByteBuffer buffer) {
+        if (buffer.remaining() < getSerializedSize()) throw new BufferOverflowException();
+        serialize(new ByteBufferWriter(buffer));
+    }
+
+    /**
+     * Writes the spend, {@link #getSerializedSize()} bytes, at the writer position.
+     */
+    public void serialize(ByteBufferWriter writer) {
+        writer.writeUint32(denomination.getDenomination());
+        writer.writeHash((pTxHash != null) ? pTxHash : Sha256Hash.ZERO_HASH);
+        writer.writeUint32(accChecksum.longValue());
+        writer.writeBignum(accCommitmentToCoinValue);
+        writer.writeBignum(serialCommitmentToCoinValue);
+        writer.writeBignum(coinSerialNumber);
+        accumulatorPoK.serialize(writer);
+        serialNumberSoK.serialize(writer);
+        commitmentPoK.serialize(writer);
+        writer.writeVarInt(version);
+        writer.writeByteArray(pubKey.getPubKey());
+        writer.writeByteArray(vchSig);
+        writer.writeVarInt(spendType.ordinal());
     }
 
 
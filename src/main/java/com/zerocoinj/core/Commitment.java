@@ -6,6 +6,7 @@ package com.zerocoinj.core;
 
 import com.zerocoinj.core.context.IntegerGroupParams;
 import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.spongycastle.util.BigIntegers;
 
@@ -38,8 +39,8 @@ public class Commitment {
         // Manually compute a Pedersen commitment to the content "s" under randomness "r"
         // C = g^s * h^r mod p
         this.commitmentValue =
-                params.getG().modPow(this.content,params.getModulus()).multiply(
-                        params.getH().modPow(this.randomness, params.getModulus())).mod(params.getModulus());
+                ModMath.mod(ModMath.modPow(params.getG(), this.content,params.getModulus()).multiply(
+                        ModMath.modPow(params.getH(), this.randomness, params.getModulus())), params.getModulus());
     }
 
     public Commitment(BigInteger content, BigInteger randomness, IntegerGroupParams params) {
@@ -48,8 +49,8 @@ public class Commitment {
         // Manually compute a Pedersen commitment to the content "s" under randomness "r"
         // C = g^s * h^r mod p
         this.commitmentValue =
-                params.getG().modPow(this.content,params.getModulus()).multiply(
-                        params.getH().modPow(this.randomness, params.getModulus())).mod(params.getModulus());
+                ModMath.mod(ModMath.modPow(params.getG(), this.content,params.getModulus()).multiply(
+                        ModMath.modPow(params.getH(), this.randomness, params.getModulus())), params.getModulus());
     }
 
     public BigInteger getCommitmentValue() {
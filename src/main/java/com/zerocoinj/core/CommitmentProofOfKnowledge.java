@@ -6,6 +6,13 @@ package com.zerocoinj.core;
 
 import com.google.common.base.Preconditions;
 import com.zerocoinj.core.context.IntegerGroupParams;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.Message;
 import org.pivxj.core.NetworkParameters;
@@ -13,14 +20,14 @@ import org.pivxj.core.ProtocolException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import static com.zerocoinj.core.Commitment.COMMITMENT_EQUALITY_CHALLENGE_SIZE;
 import static com.zerocoinj.core.Commitment.COMMITMENT_EQUALITY_SECMARGIN;
 import static com.zerocoinj.core.context.ZerocoinDefines.ZEROCOIN_COMMITMENT_EQUALITY_PROOF;
+import static com.zerocoinj.utils.ByteBufferWriter.bignumSize;
 import static com.zerocoinj.utils.ZUtils.*;
 import static java.lang.Math.max;
 
@@ -49,6 +56,8 @@ public class CommitmentProofOfKnowledge extends Message {
      * @param b the second commitment
      */
     public CommitmentProofOfKnowledge(final IntegerGroupParams aParams, final IntegerGroupParams bParams, final Commitment a, final Commitment b){
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.COMMITMENT_POK, ZerocoinEvents.PROVE);
+        long start = System.nanoTime();
         this.aParams = aParams;
         this.bParams = bParams;
 
@@ -83,14 +92,14 @@ public class CommitmentProofOfKnowledge extends Message {
         //
         // Where (g1, h1, p1) are from "aParams" and (g2, h2, p2) are from "bParams".
         BigInteger T1 = mul_mod(
-                this.aParams.getG().modPow(r1, this.aParams.getModulus()),
-                this.aParams.getH().modPow(r2, this.aParams.getModulus()),
+                ModMath.modPow(this.aParams.getG(), r1, this.aParams.getModulus()),
+                ModMath.modPow(this.aParams.getH(), r2, this.aParams.getModulus()),
                 this.aParams.getModulus()
         );
 
         BigInteger T2 = mul_mod(
-                this.bParams.getG().modPow(r1, this.bParams.getModulus()),
-                this.bParams.getH().modPow(r3, this.bParams.getModulus()),
+                ModMath.modPow(this.bParams.getG(), r1, this.bParams.getModulus()),
+                ModMath.modPow(this.bParams.getH(), r3, this.bParams.getModulus()),
                 this.bParams.getModulus()
         );
 
@@ -123,11 +132,12 @@ public class CommitmentProofOfKnowledge extends Message {
 
         // We're done. The proof is S1, S2, S3 and "challenge", all of which
         // are stored in member variables.
+        Metrics.recordSince(Metric.COMMITMENT_POK_PROVE, start);
+        span.setValid(true).finish();
     }
 
     private BigInteger calculateChallenge(BigInteger a, BigInteger b, BigInteger commitOne, BigInteger commitTwo) {
-        try {
-            HashWriter hashWriter = new HashWriter();
+        try (HashWriter hashWriter = HashWriter.acquire()) {
 
             // Hash together the following elements:
             // * A string identifying the proof
@@ -163,6 +173,15 @@ public class CommitmentProofOfKnowledge extends Message {
 
 
     public boolean verify(BigInteger A, BigInteger B) {
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.COMMITMENT_POK, ZerocoinEvents.VERIFY);
+        long start = System.nanoTime();
+        boolean valid = verifyProof(A, B);
+        Metrics.recordSince(Metric.COMMITMENT_POK_VERIFY, start);
+        span.setValid(valid).finish();
+        return valid;
+    }
+
+    private boolean verifyProof(BigInteger A, BigInteger B) {
 
         // Compute the maximum range of S1, S2, S3 and verify that the given values are
         // in a correct range. This might be an unnecessary check.
@@ -185,14 +204,14 @@ public class CommitmentProofOfKnowledge extends Message {
 
         // Compute T1 = g1^S1 * h1^S2 * inverse(A^{challenge}) mod p1
 
-        BigInteger T1 = mul_mod(A.modPow(this.challenge, aParams.getModulus()).modInverse(aParams.getModulus()),
-                mul_mod(aParams.getG().modPow(S1, aParams.getModulus()), aParams.getH().modPow(S2, aParams.getModulus()), aParams.getModulus())
+        BigInteger T1 = mul_mod(ModMath.modInverse(ModMath.modPow(A, this.challenge, aParams.getModulus()), aParams.getModulus()),
+                mul_mod(ModMath.modPow(aParams.getG(), S1, aParams.getModulus()), ModMath.modPow(aParams.getH(), S2, aParams.getModulus()), aParams.getModulus())
                 , aParams.getModulus());
 
 
         // Compute T2 = g2^S1 * h2^S3 * inverse(B^{challenge}) mod p2
-        BigInteger firstPartT2 = B.modPow(this.challenge, this.bParams.getModulus()).modInverse(bParams.getModulus());
-        BigInteger secondPartT2 = mul_mod(this.bParams.getG().modPow(S1, bParams.getModulus()),bParams.getH().modPow(S3, bParams.getModulus()), bParams.getModulus());
+        BigInteger firstPartT2 = ModMath.modInverse(ModMath.modPow(B, this.challenge, this.bParams.getModulus()), bParams.getModulus());
+        BigInteger secondPartT2 = mul_mod(ModMath.modPow(this.bParams.getG(), S1, bParams.getModulus()),ModMath.modPow(bParams.getH(), S3, bParams.getModulus()), bParams.getModulus());
         BigInteger T2 = mul_mod(firstPartT2, secondPartT2, bParams.getModulus());
 
         // Hash T1 and T2 along with all of the public parameters
@@ -259,6 +278,25 @@ public class CommitmentProofOfKnowledge extends Message {
         return cPoK;
     }
 
+    /**
+     * Parses the proof from the reader current position, see {@link ByteBufferReader}.
+     */
+    public static CommitmentProofOfKnowledge parse(
+            NetworkParameters params,
+            final IntegerGroupParams aParams,
+            final IntegerGroupParams bParams,
+            ByteBufferReader reader
+    ) {
+        CommitmentProofOfKnowledge cPoK = new CommitmentProofOfKnowledge(params, aParams, bParams);
+        int start = reader.position();
+        cPoK.S1 = reader.readBignum();
+        cPoK.S2 = reader.readBignum();
+        cPoK.S3 = reader.readBignum();
+        cPoK.challenge = reader.readBignum();
+        cPoK.length = reader.position() - start;
+        return cPoK;
+    }
+
     @Override
     protected void parse() throws ProtocolException {
         S1 = readBignum();
@@ -269,25 +307,26 @@ public class CommitmentProofOfKnowledge extends Message {
 
     @Override
     public byte[] bitcoinSerialize() {
-        ByteArrayOutputStream buffer = null;
-        try {
-            buffer = new ByteArrayOutputStream();
-            ZUtils.serializeBigInteger(buffer,S1);
-            ZUtils.serializeBigInteger(buffer,S2);
-            ZUtils.serializeBigInteger(buffer,S3);
-            ZUtils.serializeBigInteger(buffer,challenge);
-            return buffer.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot serialize CommitmentPoK", e);
-        } finally {
-            try {
-                if (buffer != null) {
-                    buffer.close();
-                }
-            } catch (IOException e) {
-                // nothing
-            }
-        }
+        byte[] bytes = new byte[getSerializedSize()];
+        serialize(new ByteBufferWriter(ByteBuffer.wrap(bytes)));
+        return bytes;
+    }
+
+    /**
+     * @return exact size of the serialized proof
+     */
+    public int getSerializedSize() {
+        return bignumSize(S1) + bignumSize(S2) + bignumSize(S3) + bignumSize(challenge);
+    }
+
+    /**
+     * Writes the proof, {@link #getSerializedSize()} bytes, at the writer position.
+     */
+    public void serialize(ByteBufferWriter writer) {
+        writer.writeBignum(S1);
+        writer.writeBignum(S2);
+        writer.writeBignum(S3);
+        writer.writeBignum(challenge);
     }
 
     @Override
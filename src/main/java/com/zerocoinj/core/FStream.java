@@ -12,23 +12,47 @@ import org.pivxj.core.Sha256Hash;
 import org.pivxj.core.Utils;
 import org.pivxj.core.VarInt;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public abstract class FStream<C extends FStream<C>> {
 
+    // Longer byte arrays are handed to writeInternal as they are instead of being copied to the scratch
+    private static final int MAX_SCRATCH_SIZE = 8 * 1024;
+
+    // Every value is encoded here, length prefix included, and handed to writeInternal in a single call
+    private byte[] scratch = new byte[512];
+
     public C write(boolean b) {
-        byte bytes = (byte) (b ? 1:0);
-        byte[] array = new byte[]{bytes};
-        writeInternal(array);
+        scratch[0] = (byte) (b ? 1:0);
+        writeInternal(scratch, 0, 1);
         return (C) this;
     }
 
+    /**
+     * Var int length followed by the little endian MPI (same bytes as {@code reverseBytes(encodeMPI(bigInteger, false))}).
+     */
     public C write(BigInteger bigInteger){
-        byte[] bigIntBytes = Utils.reverseBytes(Utils.encodeMPI(bigInteger, false));
-        writeCompactSize(bigIntBytes);
+        if (bigInteger.signum() == 0) {
+            // Empty MPI
+            scratch[0] = 0;
+            writeInternal(scratch, 0, 1);
+            return (C) this;
+        }
+        boolean negative = bigInteger.signum() < 0;
+        // Positive two's complement, so the most significant bit is free for the MPI sign
+        byte[] magnitude = (negative ? bigInteger.negate() : bigInteger).toByteArray();
+        int length = magnitude.length;
+        byte[] buf = scratch(9 + length);
+        int pos = putVarInt(buf, 0, length);
+        for (int i = length - 1; i > 0; i--) {
+            buf[pos++] = magnitude[i];
+        }
+        buf[pos++] = negative ? (byte) (magnitude[0] | 0x80) : magnitude[0];
+        writeInternal(buf, 0, pos);
         return (C) this;
     }
 
@@ -38,16 +62,38 @@ public abstract class FStream<C extends FStream<C>> {
     }
 
     public C write(int num){
-        byte[] buffer = new byte[4];
-        Utils.uint32ToByteArrayLE(num, buffer, 0);
-        writeInternal(buffer);
+        Utils.uint32ToByteArrayLE(num, scratch, 0);
+        writeInternal(scratch, 0, 4);
         return (C) this;
     }
 
     public C write(long l) {
-        byte[] buffer = new byte[4];
-        Utils.uint32ToByteArrayLE(l,buffer,0);
-        writeInternal(buffer);
+        Utils.uint32ToByteArrayLE(l, scratch, 0);
+        writeInternal(scratch, 0, 4);
+        return (C) this;
+    }
+
+    /**
+     * Writes the buffer bytes between the given absolute positions as they are, without length.
+     * The buffer position is not modified.
+     */
+    public C writeBytes(ByteBuffer buffer, int from, int to) {
+        if (buffer.hasArray()) {
+            writeInternal(buffer.array(), buffer.arrayOffset() + from, to - from);
+        } else {
+            ByteBuffer source = buffer.duplicate();
+            ((Buffer) source).limit(to).position(from);
+            while (source.hasRemaining()) {
+                int length = Math.min(source.remaining(), scratch.length);
+                source.get(scratch, 0, length);
+                writeInternal(scratch, 0, length);
+            }
+        }
+        return (C) this;
+    }
+
+    public C writeVarInt(long value) {
+        writeInternal(scratch, 0, putVarInt(scratch, 0, value));
         return (C) this;
     }
 
@@ -60,9 +106,14 @@ public abstract class FStream<C extends FStream<C>> {
     public C write(Sha256Hash sha256Hash){
         // TODO: Check me..
         if (sha256Hash == null){
-            writeInternal(Sha256Hash.wrap(new byte[32]).getBytes());
-        }else
-            writeInternal(sha256Hash.getReversedBytes());
+            Arrays.fill(scratch, 0, 32, (byte) 0);
+        }else {
+            byte[] bytes = sha256Hash.getBytes();
+            for (int i = 0; i < 32; i++) {
+                scratch[i] = bytes[31 - i];
+            }
+        }
+        writeInternal(scratch, 0, 32);
         return (C) this;
     }
 
@@ -132,38 +183,65 @@ public abstract class FStream<C extends FStream<C>> {
     }
 
     private void writeCompactSize(byte[] buffer) {
-        int nSize = buffer.length;
-        if (nSize < 253) {
-            write(buffer,0);
-        } else{
-            byte[] b = new VarInt(buffer.length).encode();
-            writeInternal(b);
-            writeInternal(buffer);
+        if (buffer.length + 9 > MAX_SCRATCH_SIZE) {
+            writeVarInt(buffer.length);
+            writeInternal(buffer, 0, buffer.length);
+            return;
         }
+        byte[] buf = scratch(9 + buffer.length);
+        int pos = putVarInt(buf, 0, buffer.length);
+        System.arraycopy(buffer, 0, buf, pos, buffer.length);
+        writeInternal(buf, 0, pos + buffer.length);
     }
 
     /**
      * TODO: Check if i really need this method.. 100% sure that i don't need it anymore..
+     * Writes the low byte of the length followed by the buffer.
      * @param buffer
      * @param extraSpace
      */
     public void write(byte[] buffer, int extraSpace) {
-        byte[] lengthArray = null;
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        byteArrayOutputStream.write(buffer.length);
-        close(byteArrayOutputStream);
-        lengthArray = byteArrayOutputStream.toByteArray();
-        writeInternal(lengthArray);
-        //if (buffer.length == 0) writeInternal(lengthArray);
-        writeInternal(buffer);
-    }
-
-    private void close(ByteArrayOutputStream byteArrayOutputStream) {
-        try {
-            byteArrayOutputStream.close();
-        } catch (IOException e) {
-            // nothing..
+        scratch[0] = (byte) buffer.length;
+        writeInternal(scratch, 0, 1);
+        writeInternal(buffer, 0, buffer.length);
+    }
+
+    private byte[] scratch(int size) {
+        if (scratch.length < size) {
+            scratch = new byte[Math.max(size, scratch.length * 2)];
         }
+        return scratch;
+    }
+
+    /**
+     * Bitcoin var int, same bytes as {@link VarInt#encode()}.
+     * @return position after the var int
+     */
+    private static int putVarInt(byte[] buf, int pos, long value) {
+        if (value >= 0 && value < 253) {
+            buf[pos++] = (byte) value;
+        } else if (value >= 0 && value <= 0xffff) {
+            buf[pos++] = (byte) 253;
+            buf[pos++] = (byte) value;
+            buf[pos++] = (byte) (value >> 8);
+        } else if (value >= 0 && value <= 0xffffffffL) {
+            buf[pos++] = (byte) 254;
+            Utils.uint32ToByteArrayLE(value, buf, pos);
+            pos += 4;
+        } else {
+            buf[pos++] = (byte) 255;
+            Utils.uint64ToByteArrayLE(value, buf, pos);
+            pos += 8;
+        }
+        return pos;
+    }
+
+    /**
+     * Writes {@code len} bytes of the buffer starting at {@code off}. The buffer may be reused by the caller as soon as
+     * the method returns. Implementations should override it to avoid the copy.
+     */
+    public void writeInternal(byte[] buf, int off, int len) {
+        writeInternal(Arrays.copyOfRange(buf, off, off + len));
     }
 
     public abstract void writeInternal(byte[] buf);
@@ -11,25 +11,81 @@ import org.spongycastle.crypto.digests.SHA256Digest;
 import org.spongycastle.util.encoders.Hex;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 
 import static org.pivxj.core.Utils.uint32ToByteArrayBE;
 
-public class HashWriter extends FStream<HashWriter>{
+/**
+ * Double SHA256 writer of the zerocoin serialization.
+ *
+ * Writers are resettable, use {@link #acquire()} and close them when done (try-with-resources) to reuse
+ * the instances of the calling thread instead of allocating a new one per hash.
+ */
+public class HashWriter extends FStream<HashWriter> implements AutoCloseable {
 
-    private Logger logger = LoggerFactory.getLogger(HashWriter.class);
+    private static final Logger logger = LoggerFactory.getLogger(HashWriter.class);
+
+    // Idle writers of each thread. Holds more than one so nested hashing doesn't allocate either
+    private static final int MAX_POOLED = 4;
+    private static final ThreadLocal<ArrayDeque<HashWriter>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
 
     private SHA256Digest sha256Digest;
     //
     private boolean print;
+    // Taken from the pool, returned on close
+    private boolean acquired;
 
     public HashWriter() {
         this.sha256Digest = new SHA256Digest();
     }
 
+    /**
+     * @return an empty writer from the calling thread pool, or a new one if the pool is empty.
+     * {@link #close()} returns it to the pool.
+     */
+    public static HashWriter acquire() {
+        HashWriter writer = POOL.get().pollFirst();
+        if (writer == null) {
+            writer = new HashWriter();
+        }
+        writer.acquired = true;
+        return writer;
+    }
+
+    /**
+     * Discards everything written so far.
+     */
+    public HashWriter reset() {
+        sha256Digest.reset();
+        print = false;
+        return this;
+    }
+
+    /**
+     * Resets the writer and, if it was acquired, returns it to the pool of the calling thread.
+     * The writer must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        reset();
+        if (acquired) {
+            acquired = false;
+            ArrayDeque<HashWriter> pool = POOL.get();
+            if (pool.size() < MAX_POOLED) {
+                pool.push(this);
+            }
+        }
+    }
+
     public void writeInternal(byte[] buffer){
+        writeInternal(buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void writeInternal(byte[] buffer, int off, int len) {
         if (print)
-            logger.info("Writing data (internal): " + Hex.toHexString(buffer));
-        sha256Digest.update(buffer, 0 , buffer.length);
+            logger.info("Writing data (internal): " + Hex.toHexString(buffer, off, len));
+        sha256Digest.update(buffer, off, len);
     }
 
     public byte[] doubleShaReversed(){
@@ -38,7 +94,13 @@ public class HashWriter extends FStream<HashWriter>{
         sha256Digest.reset();
         sha256Digest.update(buf, 0, buf.length);
         sha256Digest.doFinal(buf, 0);
-        return Utils.reverseBytes(buf);
+        // Reversed in place
+        for (int i = 0, j = buf.length - 1; i < j; i++, j--) {
+            byte tmp = buf[i];
+            buf[i] = buf[j];
+            buf[j] = tmp;
+        }
+        return buf;
     }
 
     public static BigInteger toUint256(byte[] out){
@@ -0,0 +1,257 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.core;
+
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
+import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.utils.ByteBufferReader;
+import org.pivxj.core.ECKey;
+import org.pivxj.core.NetworkParameters;
+import org.pivxj.core.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Read only view of a serialized {@link CoinSpend} that decodes its fields on demand.
+ *
+ * Parsing does a single pass over the payload validating its structure and recording where every field starts,
+ * only the denomination and the accumulator checksum are decoded. The rest, proofs included, are decoded the first
+ * time a getter asks for them, so consumers that only need the serial number (double spend checks, indexing)
+ * don't pay for the ~200 numbers of the proofs.
+ *
+ * The view keeps a reference to the buffer, which must not be modified while the view is in use.
+ */
+public class LazyCoinSpend {
+
+    private final NetworkParameters params;
+    private final ZerocoinContext zParams;
+    private final ByteBuffer buffer;
+    private final ByteBufferReader reader;
+
+    private final CoinDenomination denomination;
+    private final long accChecksum;
+
+    // Offsets of the lazy fields
+    private final int accCommitmentOffset;
+    private final int accumulatorPoKOffset;
+    private final int serialNumberSoKOffset;
+    private final int commitmentPoKOffset;
+    // -1 for version 1 spends
+    private final int versionOffset;
+
+    private Sha256Hash pTxHash;
+    private BigInteger accCommitmentToCoinValue;
+    private BigInteger serialCommitmentToCoinValue;
+    private BigInteger coinSerialNumber;
+    private AccumulatorProofOfKnowledge accumulatorPoK;
+    private SerialNumberSignatureOfKnowledge serialNumberSoK;
+    private CommitmentProofOfKnowledge commitmentPoK;
+    private boolean versionDecoded;
+    private int version;
+    private ECKey pubKey;
+    private byte[] vchSig;
+    private SpendType spendType;
+    private CoinSpend coinSpend;
+
+    /**
+     * Scans the spend contained in the buffer remaining bytes. The buffer position is not modified.
+     *
+     * @throws org.pivxj.core.ProtocolException if the payload is malformed
+     */
+    public static LazyCoinSpend parse(NetworkParameters params, ZerocoinContext zParams, ByteBuffer buffer) {
+        return new LazyCoinSpend(params, zParams, buffer.slice());
+    }
+
+    private LazyCoinSpend(NetworkParameters params, ZerocoinContext zParams, ByteBuffer buffer) {
+        this.params = params;
+        this.zParams = zParams;
+        this.buffer = buffer;
+        this.reader = new ByteBufferReader(buffer);
+
+        this.denomination = CoinDenomination.fromValue((int) reader.readUint32());
+        reader.skip(32); // pTxHash
+        this.accChecksum = reader.readUint32();
+        this.accCommitmentOffset = reader.position();
+        reader.skipBignum(); // accCommitmentToCoinValue
+        reader.skipBignum(); // serialCommitmentToCoinValue
+        reader.skipBignum(); // coinSerialNumber
+        this.accumulatorPoKOffset = reader.position();
+        // C_e, C_u, C_r, st_1..3, t_1..4 and the 11 responses
+        for (int i = 0; i < 21; i++) {
+            reader.skipBignum();
+        }
+        this.serialNumberSoKOffset = reader.position();
+        skipBignums(); // s_notprime
+        skipBignums(); // sprime
+        reader.skip(32); // hash
+        this.commitmentPoKOffset = reader.position();
+        // S1, S2, S3 and challenge
+        for (int i = 0; i < 4; i++) {
+            reader.skipBignum();
+        }
+        if (reader.hasRemaining()) {
+            this.versionOffset = reader.position();
+            reader.readVarInt(); // version
+            reader.skipByteArray(); // pubKey
+            reader.skipByteArray(); // vchSig
+            reader.readVarInt(); // spendType
+        } else {
+            this.versionOffset = -1;
+        }
+        if (reader.hasRemaining()) throw new RuntimeException("There are more bytes to parse?");
+    }
+
+    private void skipBignums() {
+        long amount = reader.readVarInt();
+        for (long i = 0; i < amount; i++) {
+            reader.skipBignum();
+        }
+    }
+
+    private ByteBufferReader at(int offset) {
+        reader.position(offset);
+        return reader;
+    }
+
+    public CoinDenomination getDenomination() {
+        return denomination;
+    }
+
+    public BigInteger getAccChecksum() {
+        return BigInteger.valueOf(accChecksum);
+    }
+
+    /**
+     * @return size of the serialized spend
+     */
+    public int getSize() {
+        return buffer.limit();
+    }
+
+    public synchronized Sha256Hash getpTxHash() {
+        if (pTxHash == null) {
+            pTxHash = at(4).readHash();
+        }
+        return pTxHash;
+    }
+
+    public synchronized BigInteger getAccCommitmentToCoinValue() {
+        decodeCommitments();
+        return accCommitmentToCoinValue;
+    }
+
+    public synchronized BigInteger getSerialCommitmentToCoinValue() {
+        decodeCommitments();
+        return serialCommitmentToCoinValue;
+    }
+
+    public synchronized BigInteger getCoinSerialNumber() {
+        decodeCommitments();
+        return coinSerialNumber;
+    }
+
+    private void decodeCommitments() {
+        if (coinSerialNumber == null) {
+            ByteBufferReader reader = at(accCommitmentOffset);
+            accCommitmentToCoinValue = reader.readBignum();
+            serialCommitmentToCoinValue = reader.readBignum();
+            coinSerialNumber = reader.readBignum();
+        }
+    }
+
+    public synchronized AccumulatorProofOfKnowledge getAccumulatorPoK() {
+        if (accumulatorPoK == null) {
+            accumulatorPoK = AccumulatorProofOfKnowledge.parse(params, zParams, at(accumulatorPoKOffset));
+        }
+        return accumulatorPoK;
+    }
+
+    public synchronized SerialNumberSignatureOfKnowledge getSerialNumberSoK() {
+        if (serialNumberSoK == null) {
+            serialNumberSoK = SerialNumberSignatureOfKnowledge.parse(params, zParams, at(serialNumberSoKOffset));
+        }
+        return serialNumberSoK;
+    }
+
+    public synchronized CommitmentProofOfKnowledge getCommitmentPoK() {
+        if (commitmentPoK == null) {
+            commitmentPoK = CommitmentProofOfKnowledge.parse(
+                    params,
+                    zParams.getSerialNumberSoKCommitmentGroup(),
+                    zParams.getAccumulatorParams().getAccumulatorPoKCommitmentGroup(),
+                    at(commitmentPoKOffset)
+            );
+        }
+        return commitmentPoK;
+    }
+
+    public synchronized int getVersion() {
+        decodeVersion();
+        return version;
+    }
+
+    public synchronized ECKey getPubKey() {
+        decodeVersion();
+        return pubKey;
+    }
+
+    public synchronized byte[] getVchSig() {
+        decodeVersion();
+        return vchSig;
+    }
+
+    public synchronized SpendType getSpendType() {
+        decodeVersion();
+        return spendType;
+    }
+
+    private void decodeVersion() {
+        if (!versionDecoded) {
+            if (versionOffset != -1) {
+                ByteBufferReader reader = at(versionOffset);
+                version = (int) reader.readVarInt();
+                pubKey = ECKey.fromPublicOnly(reader.readByteArray());
+                vchSig = reader.readByteArray();
+                spendType = SpendType.values()[(int) reader.readVarInt()];
+            }
+            versionDecoded = true;
+        }
+    }
+
+    /**
+     * @return the fully decoded spend
+     */
+    public synchronized CoinSpend toCoinSpend() {
+        if (coinSpend == null) {
+            coinSpend = CoinSpend.parse(params, zParams, at(0));
+        }
+        return coinSpend;
+    }
+
+    /**
+     * See {@link CoinSpend#verify(Accumulator)}, decodes the whole spend.
+     */
+    public boolean verify(Accumulator a) {
+        return toCoinSpend().verify(a);
+    }
+
+    /**
+     * See {@link CoinSpend#verifyDetailed(Accumulator)}, decodes the whole spend.
+     */
+    public VerificationResult verifyDetailed(Accumulator a) {
+        return toCoinSpend().verifyDetailed(a);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyCoinSpend{" +
+                "denomination=" + denomination +
+                ", accChecksum=" + accChecksum +
+                ", size=" + getSize() +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.core;
+
+import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
+import com.zerocoinj.core.context.AccumulatorAndProofParams;
+import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.JniBridgeWrapper;
+import org.pivxj.core.Sha256Hash;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+
+/**
+ * Verification of the serial number signature and of the accumulator proof in a single bridge call each, with the
+ * serialized proof and parameters, instead of one call per challenge bit and the exponentiations in Java.
+ *
+ * Used when the bridge supports it (the native library is loaded) unless disabled with
+ * {@code -Dzerocoinj.nativeVerify=false} or {@link #setEnabled(boolean)}.
+ */
+public final class NativeProofs {
+
+    private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty("zerocoinj.nativeVerify", "true"));
+
+    // Serialized parameters of the last context and accumulator params used, they don't change once created
+    private static volatile Serialized contextParams;
+    private static volatile Serialized accumulatorParams;
+
+    private NativeProofs() {
+    }
+
+    /**
+     * @return true if the proofs are verified by the bridge
+     */
+    public static boolean isEnabled() {
+        JniBridgeWrapper bridge = ZerocoinContext.jniBridge;
+        return enabled && bridge != null && bridge.canVerifyProofs();
+    }
+
+    public static void setEnabled(boolean enabled) {
+        NativeProofs.enabled = enabled;
+    }
+
+    public static boolean verifySerialNumberSoK(ZerocoinContext params, SerialNumberSignatureOfKnowledge sok,
+                                                BigInteger coinSerialNumber, BigInteger valueOfCommitmentToCoin, Sha256Hash msghash) {
+        Serialized serialized = contextParams;
+        if (serialized == null || serialized.params != params) {
+            serialized = new Serialized(params, new Bytes().write(params).toByteArray());
+            contextParams = serialized;
+        }
+        byte[] proof = sok.bitcoinSerialize();
+        byte[] serial = bignum(coinSerialNumber);
+        byte[] commitment = bignum(valueOfCommitmentToCoin);
+
+        Span jniSpan = ZerocoinEvents.jniCall("verifySerialNumberSoK");
+        long jniStart = System.nanoTime();
+        boolean valid = ZerocoinContext.jniBridge.verifySerialNumberSoK(serialized.bytes, proof, serial, commitment, msghash.getReversedBytes());
+        Metrics.recordSince(Metric.JNI_CALL, jniStart);
+        jniSpan.finish();
+        return valid;
+    }
+
+    public static boolean verifyAccumulatorPoK(AccumulatorAndProofParams params, AccumulatorProofOfKnowledge accPoK,
+                                               BigInteger accumulatorValue, BigInteger valueOfCommitmentToCoin) {
+        Serialized serialized = accumulatorParams;
+        if (serialized == null || serialized.params != params) {
+            serialized = new Serialized(params, new Bytes().write(params).toByteArray());
+            accumulatorParams = serialized;
+        }
+        byte[] proof = accPoK.bitcoinSerialize();
+        byte[] accumulator = bignum(accumulatorValue);
+        byte[] commitment = bignum(valueOfCommitmentToCoin);
+
+        Span jniSpan = ZerocoinEvents.jniCall("verifyAccumulatorPoK");
+        long jniStart = System.nanoTime();
+        boolean valid = ZerocoinContext.jniBridge.verifyAccumulatorPoK(serialized.bytes, proof, accumulator, commitment);
+        Metrics.recordSince(Metric.JNI_CALL, jniStart);
+        jniSpan.finish();
+        return valid;
+    }
+
+    private static byte[] bignum(BigInteger value) {
+        return new Bytes().write(value).toByteArray();
+    }
+
+    private static final class Serialized {
+        final Object params;
+        final byte[] bytes;
+
+        Serialized(Object params, byte[] bytes) {
+            this.params = params;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Bytes extends FStream<Bytes> {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        @Override
+        public void writeInternal(byte[] buf) {
+            writeInternal(buf, 0, buf.length);
+        }
+
+        @Override
+        public void writeInternal(byte[] buf, int off, int len) {
+            out.write(buf, off, len);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
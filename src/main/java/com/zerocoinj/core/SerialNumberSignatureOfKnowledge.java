@@ -6,15 +6,23 @@ package com.zerocoinj.core;
 
 import com.google.common.base.Preconditions;
 import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.JniBridgeWrapper;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.spongycastle.util.encoders.Hex;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
 import static com.zerocoinj.utils.ZUtils.random;
 
@@ -27,6 +35,9 @@ public class SerialNumberSignatureOfKnowledge extends Message {
 
     private static final Logger log = LoggerFactory.getLogger(SerialNumberSignatureOfKnowledge.class);
 
+    // Seed expansion buffers of each verifying thread
+    private static final ThreadLocal<SeedBuffers> SEED_BUFFERS = ThreadLocal.withInitial(SeedBuffers::new);
+
     private ZerocoinContext zParams;
     // Challenge hash
     private Sha256Hash hash;
@@ -59,6 +70,31 @@ public class SerialNumberSignatureOfKnowledge extends Message {
         return sok;
     }
 
+    /**
+     * Parses the signature from the reader current position, see {@link ByteBufferReader}.
+     */
+    public static SerialNumberSignatureOfKnowledge parse(NetworkParameters params, ZerocoinContext zParams, ByteBufferReader reader) {
+        SerialNumberSignatureOfKnowledge sok = new SerialNumberSignatureOfKnowledge(params);
+        sok.zParams = zParams;
+        int start = reader.position();
+        sok.s_notprime = readBignums(reader);
+        sok.sprime = readBignums(reader);
+        sok.hash = reader.readHash();
+        sok.length = reader.position() - start;
+        return sok;
+    }
+
+    private static BigInteger[] readBignums(ByteBufferReader reader) {
+        long amount = reader.readVarInt();
+        // Every number takes at least one byte
+        if (amount < 0 || amount > reader.remaining()) throw new ProtocolException("Invalid amount of numbers " + amount);
+        BigInteger[] nums = new BigInteger[(int) amount];
+        for (int i = 0; i < nums.length; i++) {
+            nums[i] = reader.readBignum();
+        }
+        return nums;
+    }
+
     public SerialNumberSignatureOfKnowledge(NetworkParameters params) {
         super(params);
     }
@@ -72,6 +108,8 @@ public class SerialNumberSignatureOfKnowledge extends Message {
      * @param msghash hash of meta data to create a signature of knowledge on.
      */
     public SerialNumberSignatureOfKnowledge(ZerocoinContext p, final ZeroCoin coin, final Commitment commitmentToCoin, Sha256Hash msghash, RandomNumbers randomNumbers){
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.SERIAL_NUMBER_SOK, ZerocoinEvents.PROVE);
+        long start = System.nanoTime();
         this.zParams = p;
         this.s_notprime = new BigInteger[p.getZkp_iterations()];
         this.sprime = new BigInteger[p.getZkp_iterations()];
@@ -88,12 +126,6 @@ public class SerialNumberSignatureOfKnowledge extends Message {
         BigInteger g = zParams.getSerialNumberSoKCommitmentGroup().getG();
         BigInteger h = zParams.getSerialNumberSoKCommitmentGroup().getH();
 
-        HashWriter hasher = new HashWriter();
-        hasher.write(zParams)
-                .write(commitmentToCoin.getCommitmentValue())
-                .write(coin.getSerial())
-                .write(msghash);
-
         BigInteger[] r = new BigInteger[p.getZkp_iterations()];
         BigInteger[] v_seed = new BigInteger[p.getZkp_iterations()];
         BigInteger[] v_expanded = new BigInteger[p.getZkp_iterations()];
@@ -124,7 +156,11 @@ public class SerialNumberSignatureOfKnowledge extends Message {
                                 false
                                 );*/
 
+                    Span jniSpan = ZerocoinEvents.jniCall("computeVSeedAndVExpanded");
+                    long jniStart = System.nanoTime();
                     String ret = zParams.jniBridge.computeVSeedAndVExpanded();
+                    Metrics.recordSince(Metric.JNI_CALL, jniStart);
+                    jniSpan.finish();
                     String[] retStr = ret.split("\\|\\|");
                     BigInteger vSeed = new BigInteger(retStr[0]);
                     BigInteger bnExpanded = new BigInteger(retStr[1]);
@@ -153,11 +189,17 @@ public class SerialNumberSignatureOfKnowledge extends Message {
         // We can't hash data in parallel either
         // because OPENMP cannot not guarantee loops
         // execute in order.
-        for(int i=0; i < zParams.getZkp_iterations(); i++) {
-            hasher.write(c[i]);
+        byte[] hashbytes;
+        try (HashWriter hasher = HashWriter.acquire()) {
+            hasher.write(zParams)
+                    .write(commitmentToCoin.getCommitmentValue())
+                    .write(coin.getSerial())
+                    .write(msghash);
+            for (int i = 0; i < zParams.getZkp_iterations(); i++) {
+                hasher.write(c[i]);
+            }
+            hashbytes = hasher.doubleShaReversed();
         }
-
-        byte[] hashbytes = hasher.doubleShaReversed();
         this.hash = Sha256Hash.wrap(hashbytes);
         hashbytes = this.hash.getReversedBytes();
 
@@ -172,10 +214,12 @@ public class SerialNumberSignatureOfKnowledge extends Message {
             } else {
                 s_notprime[i]       = r[i] .subtract( coin.getCommitment().getRandomness() );
                 sprime[i]           = v_expanded[i] .subtract (commitmentToCoin.getRandomness() .multiply(
-                        b.modPow(r[i] .subtract( coin.getCommitment().getRandomness() ), zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder()))
+                        ModMath.modPow(b, r[i] .subtract( coin.getCommitment().getRandomness() ), zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder()))
                         );
             }
         }
+        Metrics.recordSince(Metric.SERIAL_NUMBER_SOK_PROVE, start);
+        span.setValid(true).finish();
     }
 
 
@@ -201,12 +245,12 @@ public class SerialNumberSignatureOfKnowledge extends Message {
         BigInteger g = zParams.getSerialNumberSoKCommitmentGroup().getG();
         BigInteger h = zParams.getSerialNumberSoKCommitmentGroup().getH();
 
-        BigInteger exponent = (a.modPow(a_exp, zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder())
-                            .multiply(b.modPow(b_exp, zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder())
-                            ) ) .mod(zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder());
+        BigInteger exponent = ModMath.mod(ModMath.modPow(a, a_exp, zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder())
+                            .multiply(ModMath.modPow(b, b_exp, zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder())
+                            ), zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder());
 
-        return (g.modPow(exponent, zParams.getSerialNumberSoKCommitmentGroup().getModulus()) .multiply( h.modPow(h_exp, zParams.getSerialNumberSoKCommitmentGroup().getModulus()))
-            ).mod( zParams.getSerialNumberSoKCommitmentGroup().getModulus());
+        return ModMath.mod(ModMath.modPow(g, exponent, zParams.getSerialNumberSoKCommitmentGroup().getModulus()) .multiply( ModMath.modPow(h, h_exp, zParams.getSerialNumberSoKCommitmentGroup().getModulus())),
+                zParams.getSerialNumberSoKCommitmentGroup().getModulus());
     }
 
     // Use one 256 bit seed and concatenate 4 unique 256 bit hashes to make a 1024 bit hash
@@ -234,16 +278,26 @@ public class SerialNumberSignatureOfKnowledge extends Message {
     }
 
     public boolean verify(final BigInteger coinSerialNumber, BigInteger valueOfCommitmentToCoin, Sha256Hash msghash) {
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.SERIAL_NUMBER_SOK, ZerocoinEvents.VERIFY);
+        long start = System.nanoTime();
+        boolean valid = NativeProofs.isEnabled()
+                ? NativeProofs.verifySerialNumberSoK(zParams, this, coinSerialNumber, valueOfCommitmentToCoin, msghash)
+                : verifyProof(coinSerialNumber, valueOfCommitmentToCoin, msghash);
+        Metrics.recordSince(Metric.SERIAL_NUMBER_SOK_VERIFY, start);
+        span.setValid(valid).finish();
+        return valid;
+    }
+
+    private boolean verifyProof(final BigInteger coinSerialNumber, BigInteger valueOfCommitmentToCoin, Sha256Hash msghash) {
+        // As libzerocoin, one response of each kind per challenge bit, the bits of a 256 bit hash
+        int iterations = zParams.getZkp_iterations();
+        if (iterations > 256 || s_notprime.length != iterations || sprime.length != iterations) {
+            return false;
+        }
         BigInteger a = zParams.getCoinCommitmentGroup().getG();
         BigInteger b = zParams.getCoinCommitmentGroup().getH();
         BigInteger g = zParams.getSerialNumberSoKCommitmentGroup().getG();
         BigInteger h = zParams.getSerialNumberSoKCommitmentGroup().getH();
-        HashWriter hasher = new HashWriter();
-        hasher.write(zParams)
-                .write(valueOfCommitmentToCoin)
-                .write(coinSerialNumber)
-                .write(msghash);
-
         BigInteger[] tprime = new BigInteger[zParams.getZkp_iterations()];
 
         byte[] hashbytes = this.hash.getReversedBytes();
@@ -256,8 +310,11 @@ public class SerialNumberSignatureOfKnowledge extends Message {
                 int sByte = i / 8;
                 boolean challenge_bit = ((hashbytes[sByte] >> bit) & 0x01) == 1; // true if the value is 1 (todo: check me..)
                 if (challenge_bit) {
-                    byte[] res = zParams.jniBridge.compute1024seed(Utils.reverseBytes(Utils.encodeMPI(sprime[i], false)));
-                    BigInteger result = Utils.decodeMPI(Utils.reverseBytes(res), false);
+                    Span jniSpan = ZerocoinEvents.jniCall("compute1024seed");
+                    long jniStart = System.nanoTime();
+                    BigInteger result = SEED_BUFFERS.get().expand(zParams.jniBridge, sprime[i]);
+                    Metrics.recordSince(Metric.JNI_CALL, jniStart);
+                    jniSpan.finish();
                     tprime[i] = challengeCalculation(
                             coinSerialNumber,
                             s_notprime[i],
@@ -270,11 +327,10 @@ public class SerialNumberSignatureOfKnowledge extends Message {
                     );
                     //log.info("(challenge bit true) tprime pos: " + i + " , number in DEC: " + tprime[i] +",\n compute1024Seed DEC: " + result+"\n");
                 } else {
-                    BigInteger exp = b.modPow(s_notprime[i], zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder());
-                    tprime[i] = (
-                            (valueOfCommitmentToCoin.modPow(exp, zParams.getSerialNumberSoKCommitmentGroup().getModulus()).mod(zParams.getSerialNumberSoKCommitmentGroup().getModulus())).multiply(
-                                    (h.modPow(sprime[i], zParams.getSerialNumberSoKCommitmentGroup().getModulus()).mod(zParams.getSerialNumberSoKCommitmentGroup().getModulus()))
-                            )).mod(zParams.getSerialNumberSoKCommitmentGroup().getModulus());
+                    BigInteger exp = ModMath.modPow(b, s_notprime[i], zParams.getSerialNumberSoKCommitmentGroup().getGroupOrder());
+                    tprime[i] = ModMath.mod((ModMath.mod(ModMath.modPow(valueOfCommitmentToCoin, exp, zParams.getSerialNumberSoKCommitmentGroup().getModulus()), zParams.getSerialNumberSoKCommitmentGroup().getModulus())).multiply(
+                                    (ModMath.mod(ModMath.modPow(h, sprime[i], zParams.getSerialNumberSoKCommitmentGroup().getModulus()), zParams.getSerialNumberSoKCommitmentGroup().getModulus()))
+                            ), zParams.getSerialNumberSoKCommitmentGroup().getModulus());
                     //log.info("(challenge bit false) tprime pos: " + i + " , number in DEC: " + tprime[i] +"\n");
                 }
             }catch (Exception e){
@@ -286,10 +342,18 @@ public class SerialNumberSignatureOfKnowledge extends Message {
                 throw new RuntimeException(e);
             }
         }
-        for(int i = 0; i < zParams.getZkp_iterations(); i++) {
-            hasher.write(tprime[i]);
+        byte[] computedHash;
+        try (HashWriter hasher = HashWriter.acquire()) {
+            hasher.write(zParams)
+                    .write(valueOfCommitmentToCoin)
+                    .write(coinSerialNumber)
+                    .write(msghash);
+            for (int i = 0; i < zParams.getZkp_iterations(); i++) {
+                hasher.write(tprime[i]);
+            }
+            computedHash = hasher.doubleShaReversed();
         }
-        return Sha256Hash.wrap(hasher.doubleShaReversed()).equals(hash);
+        return Sha256Hash.wrap(computedHash).equals(hash);
     }
 
 
@@ -310,32 +374,44 @@ public class SerialNumberSignatureOfKnowledge extends Message {
 
     @Override
     public byte[] unsafeBitcoinSerialize() {
-        ByteArrayOutputStream buffer = null;
-        try {
-            buffer = new ByteArrayOutputStream();
-            serialize(buffer, s_notprime);
-            serialize(buffer, sprime);
-            buffer.write(hash.getReversedBytes());
-            return buffer.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot serialize SerialNumberSoK", e);
-        } finally {
-            try {
-                if (buffer != null) {
-                    buffer.close();
-                }
-            } catch (IOException e) {
-                // Nothing..
-            }
+        return bitcoinSerialize();
+    }
+
+    @Override
+    public byte[] bitcoinSerialize() {
+        byte[] bytes = new byte[getSerializedSize()];
+        serialize(new ByteBufferWriter(ByteBuffer.wrap(bytes)));
+        return bytes;
+    }
+
+    /**
+     * @return exact size of the serialized signature
+     */
+    public int getSerializedSize() {
+        return serializedSize(s_notprime) + serializedSize(sprime) + 32;
+    }
+
+    private static int serializedSize(BigInteger[] nums) {
+        int size = ByteBufferWriter.varIntSize(nums.length);
+        for (BigInteger num : nums) {
+            size += ByteBufferWriter.bignumSize(num);
         }
+        return size;
     }
 
-    private void serialize(ByteArrayOutputStream buf, BigInteger[] nums) throws IOException {
-        buf.write(new VarInt(nums.length).encode());
-        for (BigInteger bigInteger : nums) {
-            byte[] num = ZUtils.serializeBigInteger(bigInteger);
-            buf.write(new VarInt(num.length).encode());
-            buf.write(num);
+    /**
+     * Writes the signature, {@link #getSerializedSize()} bytes, at the writer position.
+     */
+    public void serialize(ByteBufferWriter writer) {
+        serialize(writer, s_notprime);
+        serialize(writer, sprime);
+        writer.writeHash(hash);
+    }
+
+    private static void serialize(ByteBufferWriter writer, BigInteger[] nums) {
+        writer.writeVarInt(nums.length);
+        for (BigInteger num : nums) {
+            writer.writeBignum(num);
         }
     }
 
@@ -354,4 +430,28 @@ public class SerialNumberSignatureOfKnowledge extends Message {
     public int getCursor() {
         return this.cursor;
     }
+
+    /**
+     * Direct buffers passed to {@link JniBridgeWrapper#compute1024seed(ByteBuffer, ByteBuffer)}, reused across calls.
+     */
+    private static final class SeedBuffers {
+
+        private ByteBuffer seed = ByteBuffer.allocateDirect(64);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(JniBridgeWrapper.EXPANDED_SEED_SIZE);
+        private final ByteBufferReader reader = new ByteBufferReader(out);
+
+        BigInteger expand(JniBridgeWrapper bridge, BigInteger value) {
+            int size = ByteBufferWriter.bignumSize(value);
+            if (seed.capacity() < size) {
+                seed = ByteBuffer.allocateDirect(size);
+            }
+            ((Buffer) seed).clear();
+            new ByteBufferWriter(seed).writeBignum(value);
+            ((Buffer) seed).flip();
+            ((Buffer) out).clear();
+            bridge.compute1024seed(seed, out);
+            ((Buffer) out).flip();
+            return reader.reset(out).readBignum();
+        }
+    }
 }
@@ -0,0 +1,135 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Outcome of a {@link CoinSpend} verification.
+ *
+ * Besides the failing stage it carries how long, in nanoseconds, each stage took so callers
+ * can feed them to their own histograms. Stages that were not executed report {@link #NOT_RUN}.
+ */
+public class VerificationResult {
+
+    /**
+     * The checks performed to verify a spend.
+     */
+    public enum Stage {
+        VERSION, // Version marked in the serial does not match the spend version
+        DENOMINATION, // Accumulator and spend denominations do not match
+        SIGNATURE, // Spend not signed by the key associated with the serial (includes the signature hash)
+        COMMITMENT_POK,
+        ACCUMULATOR_POK,
+        SERIAL_NUMBER_SOK
+    }
+
+    public static final long NOT_RUN = -1;
+
+    private static final long[] NO_TIMINGS = new long[Stage.values().length];
+
+    static {
+        Arrays.fill(NO_TIMINGS, NOT_RUN);
+    }
+
+    private static final VerificationResult VALID = new VerificationResult(null, NO_TIMINGS);
+
+    // Stage that failed, null if the spend is valid
+    private final Stage failedStage;
+    // Nanos spent on each stage, indexed by the stage ordinal
+    private final long[] nanos;
+
+    private VerificationResult(Stage failedStage, long[] nanos) {
+        this.failedStage = failedStage;
+        this.nanos = nanos;
+    }
+
+    public static VerificationResult valid() {
+        return VALID;
+    }
+
+    public static VerificationResult failed(Stage stage) {
+        if (stage == null) throw new IllegalArgumentException("stage cannot be null");
+        return new VerificationResult(stage, NO_TIMINGS);
+    }
+
+    public boolean isValid() {
+        return failedStage == null;
+    }
+
+    public Stage getFailedStage() {
+        return failedStage;
+    }
+
+    /**
+     * @return nanoseconds spent on the stage, or {@link #NOT_RUN} if the stage was not executed
+     */
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * @return nanoseconds spent on all the executed stages. When the stages ran concurrently this is the CPU
+     * time spent on them and not the elapsed time.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long stageNanos : nanos) {
+            if (stageNanos != NOT_RUN) total += stageNanos;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("VerificationResult{")
+                .append(isValid() ? "valid" : "failedStage=" + failedStage);
+        for (Stage stage : Stage.values()) {
+            if (getNanos(stage) != NOT_RUN) {
+                builder.append(", ").append(stage).append('=').append(getNanos(stage)).append("ns");
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Collects the stage timings while a verification is running, possibly from several threads.
+     */
+    static class Timings {
+
+        private final AtomicLongArray nanos = new AtomicLongArray(NO_TIMINGS);
+
+        void record(Stage stage, long startNanos) {
+            nanos.set(stage.ordinal(), System.nanoTime() - startNanos);
+        }
+
+        boolean time(Stage stage, BooleanSupplier check) {
+            long start = System.nanoTime();
+            try {
+                return check.getAsBoolean();
+            } finally {
+                record(stage, start);
+            }
+        }
+
+        VerificationResult valid() {
+            return new VerificationResult(null, snapshot());
+        }
+
+        VerificationResult failed(Stage stage) {
+            return new VerificationResult(stage, snapshot());
+        }
+
+        private long[] snapshot() {
+            long[] copy = new long[nanos.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = nanos.get(i);
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Counter;
+import org.pivxj.core.Sha256Hash;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of spends that were already verified against an accumulator, so the same spend
+ * can be checked on mempool admission, block template construction and block connection paying
+ * the verification cost only once.
+ *
+ * Entries are keyed by the spend signature hash plus the accumulator checksum and denomination. As the
+ * signature hash doesn't cover the serial number SoK nor the signature, every entry also stores the hash
+ * of the whole serialized spend and a hit requires it to match. Both hashes and the accumulator checksum are
+ * computed once per spend and accumulator value, so repeated lookups of the same instances don't hash again.
+ *
+ * Only successful verifications are recorded. Entries are evicted by size and age; when an accumulator
+ * is reorganized out of the chain call {@link #invalidate(Accumulator)} (or {@link #invalidateAll()}).
+ */
+public class VerifiedSpendCache {
+
+    private final Cache<Key, Sha256Hash> cache;
+
+    /**
+     * @param maximumSize maximum amount of verified spends kept
+     * @param expireAfter how long a verified spend is kept
+     * @param unit unit of expireAfter
+     */
+    public VerifiedSpendCache(long maximumSize, long expireAfter, TimeUnit unit) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter, unit)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return true if the spend was already verified against the accumulator
+     */
+    public boolean isVerified(CoinSpend spend, Accumulator a) {
+        Sha256Hash spendHash = cache.getIfPresent(new Key(spend, a));
+        boolean verified = spendHash != null && spendHash.equals(spend.contentHash());
+        Metrics.increment(verified ? Counter.CACHE_HIT : Counter.CACHE_MISS);
+        return verified;
+    }
+
+    /**
+     * Records that the spend is valid for the accumulator.
+     */
+    public void put(CoinSpend spend, Accumulator a) {
+        cache.put(new Key(spend, a), spend.contentHash());
+    }
+
+    /**
+     * Verifies the spend, signature included, unless it was already verified against the accumulator.
+     * See {@link CoinSpend#verifyDetailed(Accumulator)}.
+     */
+    public VerificationResult verify(CoinSpend spend, Accumulator a) {
+        if (isVerified(spend, a)) {
+            return VerificationResult.valid();
+        }
+        VerificationResult result = spend.verifyDetailed(a);
+        if (result.isValid()) {
+            put(spend, a);
+        }
+        return result;
+    }
+
+    /**
+     * Async version of {@link #verify(CoinSpend, Accumulator)}, see {@link CoinSpend#verifyAsync(Accumulator, Executor)}.
+     */
+    public CompletableFuture<VerificationResult> verifyAsync(CoinSpend spend, Accumulator a, Executor executor) {
+        if (isVerified(spend, a)) {
+            return CompletableFuture.completedFuture(VerificationResult.valid());
+        }
+        return spend.verifyAsync(a, executor).thenApply(result -> {
+            if (result.isValid()) {
+                put(spend, a);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Removes every spend verified against the accumulator, to be used when the accumulator is no longer valid
+     * (e.g. the block that checkpointed it was disconnected).
+     */
+    public void invalidate(Accumulator a) {
+        invalidate(a.getChecksum(), a.getDenomination());
+    }
+
+    /**
+     * Removes every spend verified against the accumulator with the given checksum and denomination.
+     */
+    public void invalidate(long accumulatorChecksum, CoinDenomination denomination) {
+        cache.asMap().keySet().removeIf(key ->
+                key.accumulatorChecksum == accumulatorChecksum && key.denomination == denomination);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static final class Key {
+
+        private final Sha256Hash signatureHash;
+        private final long accumulatorChecksum;
+        private final CoinDenomination denomination;
+
+        Key(CoinSpend spend, Accumulator a) {
+            this.signatureHash = Sha256Hash.wrap(spend.signatureHash());
+            this.accumulatorChecksum = a.getChecksum();
+            this.denomination = a.getDenomination();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return accumulatorChecksum == key.accumulatorChecksum &&
+                    denomination == key.denomination &&
+                    signatureHash.equals(key.signatureHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(signatureHash, accumulatorChecksum, denomination);
+        }
+    }
+}
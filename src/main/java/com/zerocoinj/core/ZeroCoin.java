@@ -6,6 +6,11 @@ package com.zerocoinj.core;
 
 import com.zerocoinj.core.context.ZerocoinContext;
 import com.zerocoinj.core.exceptions.InvalidSerialException;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.json.JSONObject;
 import org.pivxj.core.DumpedPrivateKey;
@@ -80,6 +85,10 @@ public class ZeroCoin {
         return height;
     }
 
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public void setParentTxId(Sha256Hash parentTxId) {
         this.parentTxId = parentTxId;
     }
@@ -126,8 +135,10 @@ public class ZeroCoin {
 
 
     public static ZeroCoin mintCoin(ZerocoinContext zerocoinContext, ECKey key, CoinDenomination coinDenomination) throws InvalidSerialException {
+        long start = System.nanoTime();
         BigInteger serial = generateSerial(key);
         Commitment commitment = generateCommitment(zerocoinContext, serial);
+        Metrics.recordSince(Metric.MINT, start);
         return new ZeroCoin(zerocoinContext, serial, commitment, coinDenomination, key);
     }
 
@@ -206,6 +217,7 @@ public class ZeroCoin {
     }
 
     public static Commitment generateCommitment(ZerocoinContext context, Commitment commitment){
+        Span span = ZerocoinEvents.commitment();
         BigInteger commitmentValue = commitment.getCommitmentValue();
         BigInteger r = commitment.getRandomness();
         // Repeat this process up to MAX_COINMINT_ATTEMPTS times until
@@ -221,6 +233,8 @@ public class ZeroCoin {
 
                 // Found a valid coin. Store it.
                 //logger.info("Commitment value found: " + commitmentValue.toString());
+                Metrics.record(Metric.MINT_ATTEMPTS, attempt + 1);
+                span.setAttempts(attempt + 1).finish();
                 return new Commitment(commitment.getContent(), commitmentValue, r);
             }
 
@@ -230,15 +244,16 @@ public class ZeroCoin {
             // The commitment was not prime. Increment "r" and recalculate "C":
             // r = r + r_delta mod q
             // C = C * h mod p
-            r = r.add(r_delta).mod(context.getCoinCommitmentGroup().getGroupOrder());
+            r = ModMath.mod(r.add(r_delta), context.getCoinCommitmentGroup().getGroupOrder());
             commitmentValue =
-                    commitmentValue.multiply(
-                            context.getCoinCommitmentGroup().getH().modPow(r_delta, context.getCoinCommitmentGroup().getModulus())
-                    ).mod(context.getCoinCommitmentGroup().getModulus());
+                    ModMath.mod(commitmentValue.multiply(
+                            ModMath.modPow(context.getCoinCommitmentGroup().getH(), r_delta, context.getCoinCommitmentGroup().getModulus())
+                    ), context.getCoinCommitmentGroup().getModulus());
         }
 
         // We only get here if we did not find a coin within
         // MAX_COINMINT_ATTEMPTS. Throw an exception.
+        span.setAttempts(MAX_COINMINT_ATTEMPTS).finish();
         throw new RuntimeException("Unable to create a new valid commitment (too many attempts)");
     }
 
@@ -8,6 +8,11 @@ import com.google.common.base.Preconditions;
 import com.zerocoinj.core.CoinDenomination;
 import com.zerocoinj.core.ZeroCoin;
 import com.zerocoinj.core.context.AccumulatorAndProofParams;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.Message;
 import org.pivxj.core.NetworkParameters;
@@ -31,6 +36,8 @@ public class Accumulator extends Message {
     private CoinDenomination denomination;
     // Accumulator value
     private BigInteger value;
+    // Memoized getChecksum(), valid while it was computed from the current value
+    private volatile Checksum checksum;
 
 
     public static Accumulator parse(NetworkParameters params, AccumulatorAndProofParams accAndProofOfParams, byte[] payload){
@@ -86,12 +93,37 @@ public class Accumulator extends Message {
         return value;
     }
 
+    /**
+     * @return {@link Accumulators#getChecksum(BigInteger)} of the value, computed once per value
+     */
+    public long getChecksum() {
+        BigInteger current = value;
+        Checksum cached = checksum;
+        if (cached == null || cached.value != current) {
+            cached = new Checksum(current, Accumulators.getChecksum(current));
+            checksum = cached;
+        }
+        return cached.checksum;
+    }
+
     void increment(final BigInteger bnValue) {
         // Compute new accumulator = "old accumulator"^{element} mod N
-        this.value = this.value.modPow(bnValue, this.accAndProofOfParams.getAccumulatorModulus());
+        this.value = ModMath.modPow(this.value, bnValue, this.accAndProofOfParams.getAccumulatorModulus());
     }
 
     public Accumulator accumulate(ZeroCoin coin) {
+        Span span = ZerocoinEvents.accumulatorUpdate(denomination, false);
+        long start = System.nanoTime();
+        add(coin);
+        Metrics.recordSince(Metric.ACCUMULATE, start);
+        span.finish();
+        return this;
+    }
+
+    /**
+     * {@link #accumulate(ZeroCoin)} without recording it, used by the witnesses which record their own updates.
+     */
+    void add(ZeroCoin coin) {
         // Make sure we're initialized
         if(this.value == null) {
             log.warn("Accumulator is not initialized");
@@ -112,7 +144,6 @@ public class Accumulator extends Message {
             log.info("Coin not valid: " + coin);
             throw new RuntimeException("Coin is not valid");
         }
-        return this;
     }
 
     public CoinDenomination getDenomination() {
@@ -143,4 +174,14 @@ public class Accumulator extends Message {
     public String toString() {
         return "value=" + value +", denomination=" + denomination;
     }
+
+    private static final class Checksum {
+        final BigInteger value;
+        final long checksum;
+
+        Checksum(BigInteger value, long checksum) {
+            this.value = value;
+            this.checksum = checksum;
+        }
+    }
 }
@@ -5,22 +5,38 @@
 package com.zerocoinj.core.accumulators;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.zerocoinj.core.Commitment;
 import com.zerocoinj.core.HashWriter;
+import com.zerocoinj.core.NativeProofs;
 import com.zerocoinj.core.context.AccumulatorAndProofParams;
 import com.zerocoinj.core.context.IntegerGroupParams;
 import com.zerocoinj.core.context.ZerocoinContext;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.ModMath;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.Message;
 import org.pivxj.core.NetworkParameters;
 import org.pivxj.core.ProtocolException;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import static com.zerocoinj.utils.ByteBufferWriter.bignumSize;
 import static com.zerocoinj.utils.ZUtils.*;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 
 /**
  * A prove that a value inside the commitment commitmentToCoin is in an accumulator a.
@@ -67,6 +83,27 @@ public class AccumulatorProofOfKnowledge extends Message {
      * @param a
      */
     public AccumulatorProofOfKnowledge(final AccumulatorAndProofParams p, final Commitment commitmentToCoin, final AccumulatorWitness witness, Accumulator a){
+        this(p, commitmentToCoin, witness, a, ZerocoinContext.getSecureRandom(), MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Generates a proof that a commitment to a coin c was accumulated, evaluating the independent
+     * exponentiations of the proof on the given executor.
+     *
+     * Every random value is drawn on the calling thread before any exponentiation starts, so a seeded
+     * random source produces the same proof no matter which executor is used.
+     *
+     * @param p  Cryptographic parameters
+     * @param commitmentToCoin commitment containing the coin we want to prove is accumulated
+     * @param witness The witness to the accumulation of the coin
+     * @param a
+     * @param random source for the proof randomness
+     * @param executor executor where the exponentiations are computed
+     */
+    public AccumulatorProofOfKnowledge(final AccumulatorAndProofParams p, final Commitment commitmentToCoin, final AccumulatorWitness witness, Accumulator a,
+                                       final SecureRandom random, final Executor executor){
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.ACCUMULATOR_POK, ZerocoinEvents.PROVE);
+        long start = System.nanoTime();
         this.zParams = p;
 
         // Params accumulator modulus
@@ -75,6 +112,8 @@ public class AccumulatorProofOfKnowledge extends Message {
         IntegerGroupParams pAccPoKCommitmentGroup = zParams.getAccumulatorPoKCommitmentGroup();
         // Params Accumulator Quadratic Residue group mod N
         IntegerGroupParams accumulatorQRNCommitmentGroup = zParams.getAccumulatorQRNCommitmentGroup();
+        // Params Accumulator Commitment Group modulus
+        BigInteger pAccPoKModulus = pAccPoKCommitmentGroup.getModulus();
 
         BigInteger sg = pAccPoKCommitmentGroup.getG();
         BigInteger sh = pAccPoKCommitmentGroup.getH();
@@ -84,105 +123,161 @@ public class AccumulatorProofOfKnowledge extends Message {
 
         BigInteger e = commitmentToCoin.getContent();
         BigInteger r = commitmentToCoin.getRandomness();
+        BigInteger commitmentValue = commitmentToCoin.getCommitmentValue();
 
         BigInteger aM_4 = pAccModulus.divide(BIGNUM_4);
 
-        BigInteger r_1 = random(aM_4);
-        BigInteger r_2 = random(aM_4);
-        BigInteger r_3 = random(aM_4);
+        // 1. Draw every random value, always in the same order.
 
-        this.C_e = g_n.modPow(e, pAccModulus).multiply(h_n.modPow(r_1, pAccModulus));
-        this.C_u = witness.getValue().multiply(h_n.modPow(r_2, pAccModulus));
-        this.C_r = g_n.modPow(r_2, pAccModulus).multiply(h_n.modPow(r_3, pAccModulus));
+        BigInteger r_1 = random(aM_4, random);
+        BigInteger r_2 = random(aM_4, random);
+        BigInteger r_3 = random(aM_4, random);
 
         BigInteger range = zParams.getMaxCoinValue().multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()));
 
-        BigInteger r_alpha = random(range);
+        BigInteger r_alpha = random(range, random);
 
-        if(isZero( random(BIGNUM_3).mod(BIGNUM_2) )) {
+        if(isZero( ModMath.mod(random(BIGNUM_3, random), BIGNUM_2) )) {
             r_alpha = r_alpha.negate();
         }
 
-        BigInteger r_gamma = random(pAccPoKCommitmentGroup.getModulus());
-        BigInteger r_phi = random(pAccPoKCommitmentGroup.getModulus());
-        BigInteger r_psi = random(pAccPoKCommitmentGroup.getModulus());
-        BigInteger r_sigma = random(pAccPoKCommitmentGroup.getModulus());
-        BigInteger r_xi = random(pAccPoKCommitmentGroup.getModulus());
+        BigInteger r_gamma = random(pAccPoKModulus, random);
+        BigInteger r_phi = random(pAccPoKModulus, random);
+        BigInteger r_psi = random(pAccPoKModulus, random);
+        BigInteger r_sigma = random(pAccPoKModulus, random);
+        BigInteger r_xi = random(pAccPoKModulus, random);
 
         BigInteger r_epsilon =  random(
-                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()))
+                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime())),
+                random
         );
-        if(isZero(random(BIGNUM_3).mod(BIGNUM_2))) {
+        if(isZero(ModMath.mod(random(BIGNUM_3, random), BIGNUM_2))) {
             r_epsilon = r_epsilon.negate();
         }
 
         BigInteger r_eta = random(
-                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()))
+                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime())),
+                random
         );
-        if(isZero(random(BIGNUM_3).mod(BIGNUM_2))) {
+        if(isZero(ModMath.mod(random(BIGNUM_3, random), BIGNUM_2))) {
             r_eta = r_eta.negate();
         }
 
         BigInteger r_zeta = random(
-                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()))
+                (aM_4).multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime())),
+                random
         );
-        if(isZero(random(BIGNUM_3).mod(BIGNUM_2))) {
+        if(isZero(ModMath.mod(random(BIGNUM_3, random), BIGNUM_2))) {
             r_zeta = r_zeta.negate();
         }
 
         BigInteger r_beta = random(
-                (aM_4).multiply(pAccPoKCommitmentGroup.getModulus().multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime())))
+                (aM_4).multiply(pAccPoKModulus.multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()))),
+                random
         );
-        if(isZero(random(BIGNUM_3).mod(BIGNUM_2))) {
+        if(isZero(ModMath.mod(random(BIGNUM_3, random), BIGNUM_2))) {
             r_beta = r_beta.negate();
         }
 
         BigInteger r_delta = random(
-                (aM_4).multiply(pAccPoKCommitmentGroup.getModulus().multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime())))
+                (aM_4).multiply(pAccPoKModulus.multiply(BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime()))),
+                random
         );
-        if(isZero(random(BIGNUM_3).mod(BIGNUM_2))) {
+        if(isZero(ModMath.mod(random(BIGNUM_3, random), BIGNUM_2))) {
             r_delta = r_delta.negate();
         }
 
-        this.st_1 = (
-                sg.modPow(r_alpha, pAccPoKCommitmentGroup.getModulus()).multiply(
-                        sh.modPow(r_phi, pAccPoKCommitmentGroup.getModulus()))
-        ).mod(pAccPoKCommitmentGroup.getModulus());
-
-        this.st_2 =
-                (((commitmentToCoin.getCommitmentValue().multiply(sg.modInverse(pAccPoKCommitmentGroup.getModulus())))
-                        .modPow(r_gamma, pAccPoKCommitmentGroup.getModulus()))
-                        .multiply(sh.modPow(r_psi, pAccPoKCommitmentGroup.getModulus())))
-                        .mod(pAccPoKCommitmentGroup.getModulus());
-
-        this.st_3 = (
-                (sg.multiply(commitmentToCoin.getCommitmentValue())).modPow(r_sigma, pAccPoKCommitmentGroup.getModulus()).multiply(sh.modPow(r_xi, pAccPoKCommitmentGroup.getModulus()))).mod(pAccPoKCommitmentGroup.getModulus());
-
-        this.t_1 = (h_n.modPow(r_zeta, pAccModulus).multiply(g_n.modPow(r_epsilon, pAccModulus))).mod(pAccModulus);
-        this.t_2 = (h_n.modPow(r_eta, pAccModulus).multiply(g_n.modPow(r_alpha, pAccModulus))) .mod(pAccModulus);
-        this.t_3 = (C_u.modPow(r_alpha, pAccModulus).multiply ((h_n.modInverse(pAccModulus)).modPow(r_beta, pAccModulus))) .mod(pAccModulus);
-        this.t_4 = (C_r.modPow(r_alpha, pAccModulus).multiply ((h_n.modInverse(pAccModulus)).modPow(r_delta, pAccModulus)) .multiply ((g_n.modInverse(pAccModulus)).modPow(r_beta, pAccModulus))) .mod(pAccModulus);
-
-        HashWriter hasher = new HashWriter();
-        hasher.write(zParams)
-                .write(sg)
-                .write(sh)
-                .write(g_n)
-                .write(h_n)
-                .write(commitmentToCoin.getCommitmentValue())
-                .write(C_e)
-                .write(C_u)
-                .write(C_r)
-                .write(st_1)
-                .write(st_2)
-                .write(st_3)
-                .write(t_1)
-                .write(t_2)
-                .write(t_3)
-                .write(t_4);
+        // 2. Compute the commitments. Every exponentiation only depends on the random values
+        // and the public params, except t_3 and t_4 which need C_u and C_r first.
 
-        //According to the proof, this hash should be of length k_prime bits.  It is currently greater than that, which should not be a problem, but we should check this.
-        BigInteger c = hasher.toUint256(null,true);
+        CompletableFuture<BigInteger> h_n_inv = supplyAsync(() -> ModMath.modInverse(h_n, pAccModulus), executor);
+        CompletableFuture<BigInteger> g_n_inv = supplyAsync(() -> ModMath.modInverse(g_n, pAccModulus), executor);
+
+        CompletableFuture<BigInteger> C_e = multiply(
+                modPow(g_n, e, pAccModulus, executor),
+                modPow(h_n, r_1, pAccModulus, executor)
+        );
+        CompletableFuture<BigInteger> C_u = modPow(h_n, r_2, pAccModulus, executor)
+                .thenApply(witness.getValue()::multiply);
+        CompletableFuture<BigInteger> C_r = multiply(
+                modPow(g_n, r_2, pAccModulus, executor),
+                modPow(h_n, r_3, pAccModulus, executor)
+        );
+
+        CompletableFuture<BigInteger> st_1 = mulMod(
+                modPow(sg, r_alpha, pAccPoKModulus, executor),
+                modPow(sh, r_phi, pAccPoKModulus, executor),
+                pAccPoKModulus
+        );
+        CompletableFuture<BigInteger> st_2 = mulMod(
+                modPow(supplyAsync(() -> commitmentValue.multiply(ModMath.modInverse(sg, pAccPoKModulus)), executor), r_gamma, pAccPoKModulus, executor),
+                modPow(sh, r_psi, pAccPoKModulus, executor),
+                pAccPoKModulus
+        );
+        CompletableFuture<BigInteger> st_3 = mulMod(
+                modPow(sg.multiply(commitmentValue), r_sigma, pAccPoKModulus, executor),
+                modPow(sh, r_xi, pAccPoKModulus, executor),
+                pAccPoKModulus
+        );
+
+        CompletableFuture<BigInteger> t_1 = mulMod(
+                modPow(h_n, r_zeta, pAccModulus, executor),
+                modPow(g_n, r_epsilon, pAccModulus, executor),
+                pAccModulus
+        );
+        CompletableFuture<BigInteger> t_2 = mulMod(
+                modPow(h_n, r_eta, pAccModulus, executor),
+                modPow(g_n, r_alpha, pAccModulus, executor),
+                pAccModulus
+        );
+        CompletableFuture<BigInteger> t_3 = mulMod(
+                modPow(C_u, r_alpha, pAccModulus, executor),
+                modPow(h_n_inv, r_beta, pAccModulus, executor),
+                pAccModulus
+        );
+        CompletableFuture<BigInteger> t_4 = mulMod(
+                multiply(
+                        modPow(C_r, r_alpha, pAccModulus, executor),
+                        modPow(h_n_inv, r_delta, pAccModulus, executor)
+                ),
+                modPow(g_n_inv, r_beta, pAccModulus, executor),
+                pAccModulus
+        );
+
+        this.C_e = join(C_e);
+        this.C_u = join(C_u);
+        this.C_r = join(C_r);
+        this.st_1 = join(st_1);
+        this.st_2 = join(st_2);
+        this.st_3 = join(st_3);
+        this.t_1 = join(t_1);
+        this.t_2 = join(t_2);
+        this.t_3 = join(t_3);
+        this.t_4 = join(t_4);
+
+        // 3. Challenge and responses.
+
+        BigInteger c;
+        try (HashWriter hasher = HashWriter.acquire()) {
+            hasher.write(zParams)
+                    .write(sg)
+                    .write(sh)
+                    .write(g_n)
+                    .write(h_n)
+                    .write(commitmentValue)
+                    .write(this.C_e)
+                    .write(this.C_u)
+                    .write(this.C_r)
+                    .write(this.st_1)
+                    .write(this.st_2)
+                    .write(this.st_3)
+                    .write(this.t_1)
+                    .write(this.t_2)
+                    .write(this.t_3)
+                    .write(this.t_4);
+            //According to the proof, this hash should be of length k_prime bits.  It is currently greater than that, which should not be a problem, but we should check this.
+            c = hasher.toUint256(null,true);
+        }
 
         // This should not be negative..
         if (isNegative(c))
@@ -191,26 +286,114 @@ public class AccumulatorProofOfKnowledge extends Message {
         this.s_alpha = r_alpha.subtract(c.multiply(e));
         this.s_beta = r_beta.subtract(c.multiply(r_2).multiply(e));
         this.s_zeta = r_zeta .subtract(c.multiply(r_3));
-        this.s_sigma = r_sigma.subtract(c.multiply((e.add(BIGNUM_1)).modInverse(pAccPoKCommitmentGroup.getGroupOrder())));
+        this.s_sigma = r_sigma.subtract(c.multiply(ModMath.modInverse(e.add(BIGNUM_1), pAccPoKCommitmentGroup.getGroupOrder())));
         this.s_eta = r_eta .subtract(c.multiply(r_1));
         this.s_epsilon = r_epsilon .subtract( c.multiply(r_2));
         this.s_delta = r_delta .subtract(c.multiply(r_3.multiply(e)));
-        this.s_xi = r_xi.add( c.multiply(r.multiply((e.add(BIGNUM_1)).modInverse(pAccPoKCommitmentGroup.getGroupOrder()))));
-        this.s_phi = (r_phi.subtract(c.multiply(r))) .mod( pAccPoKCommitmentGroup.getGroupOrder());
-        this.s_gamma = r_gamma .subtract( c.multiply((e.subtract(BIGNUM_1)).modInverse(pAccPoKCommitmentGroup.getGroupOrder())));
-        this.s_psi = r_psi .add( c.multiply(r.multiply((e.subtract(BIGNUM_1)).modInverse(pAccPoKCommitmentGroup.getGroupOrder()))));
+        this.s_xi = r_xi.add( c.multiply(r.multiply(ModMath.modInverse(e.add(BIGNUM_1), pAccPoKCommitmentGroup.getGroupOrder()))));
+        this.s_phi = ModMath.mod(r_phi.subtract(c.multiply(r)), pAccPoKCommitmentGroup.getGroupOrder());
+        this.s_gamma = r_gamma .subtract( c.multiply(ModMath.modInverse(e.subtract(BIGNUM_1), pAccPoKCommitmentGroup.getGroupOrder())));
+        this.s_psi = r_psi .add( c.multiply(r.multiply(ModMath.modInverse(e.subtract(BIGNUM_1), pAccPoKCommitmentGroup.getGroupOrder()))));
+
+        Metrics.recordSince(Metric.ACCUMULATOR_POK_PROVE, start);
+        span.setValid(true).finish();
+    }
+
+    private static CompletableFuture<BigInteger> modPow(BigInteger base, BigInteger exp, BigInteger mod, Executor executor) {
+        return supplyAsync(() -> ModMath.modPow(base, exp, mod), executor);
+    }
+
+    private static CompletableFuture<BigInteger> modPow(CompletableFuture<BigInteger> base, BigInteger exp, BigInteger mod, Executor executor) {
+        return base.thenApplyAsync(b -> ModMath.modPow(b, exp, mod), executor);
+    }
+
+    private static CompletableFuture<BigInteger> multiply(CompletableFuture<BigInteger> one, CompletableFuture<BigInteger> two) {
+        return one.thenCombine(two, BigInteger::multiply);
+    }
+
+    private static CompletableFuture<BigInteger> mulMod(CompletableFuture<BigInteger> one, CompletableFuture<BigInteger> two, BigInteger mod) {
+        return one.thenCombine(two, (x, y) -> mul_mod(x, y, mod));
+    }
+
+    /**
+     * Waits for the value, re-throwing the arithmetic failure (if any) as it was thrown.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * The relations checked when verifying the proof.
+     */
+    public enum Equation {
+        RANGE, ST_1, ST_2, ST_3, T_1, T_2, T_3, T_4
     }
 
     /**
-     * Verifies that a commitment c is accumulated in accumulator a
+     * Verifies that a commitment c is accumulated in accumulator a, in a single native call when
+     * {@link NativeProofs#isEnabled()}
      * @return true if 'a' commitment 'c' is accumulated in accumulator a
      */
     public boolean verify(final Accumulator a, BigInteger valueOfCommitmentToCoin){
+        if (NativeProofs.isEnabled()) {
+            Span span = ZerocoinEvents.proof(ZerocoinEvents.ACCUMULATOR_POK, ZerocoinEvents.VERIFY);
+            long start = System.nanoTime();
+            boolean valid = NativeProofs.verifyAccumulatorPoK(zParams, this, a.getValue(), valueOfCommitmentToCoin);
+            Metrics.recordSince(Metric.ACCUMULATOR_POK_VERIFY, start);
+            span.setValid(valid).finish();
+            return valid;
+        }
+        return verify(a, valueOfCommitmentToCoin, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Verifies that a commitment c is accumulated in accumulator a, evaluating the equations on the given executor.
+     * Always in Java, even when {@link NativeProofs#isEnabled()}: same result as {@link #verify(Accumulator, BigInteger)}
+     * @return true if 'a' commitment 'c' is accumulated in accumulator a
+     */
+    public boolean verify(final Accumulator a, BigInteger valueOfCommitmentToCoin, Executor executor){
+        return findFailingEquation(a, valueOfCommitmentToCoin, executor) == null;
+    }
+
+    /**
+     * Evaluates the verification equations concurrently on the given executor, in Java (the native verifier only
+     * tells whether the proof is valid).
+     * As soon as one of them does not hold the result is returned and the equations not started yet are cancelled.
+     *
+     * @return the first equation found not to hold, or null if 'a' commitment 'c' is accumulated in accumulator a
+     */
+    public Equation findFailingEquation(final Accumulator a, final BigInteger valueOfCommitmentToCoin, final Executor executor){
+        return join(findFailingEquationAsync(a, valueOfCommitmentToCoin, executor));
+    }
+
+    /**
+     * Non blocking version of {@link #findFailingEquation(Accumulator, BigInteger, Executor)}.
+     * Cancelling the returned future cancels the equations not started yet.
+     *
+     * @return a future completed with the first equation found not to hold, or with null if the proof is valid
+     */
+    public CompletableFuture<Equation> findFailingEquationAsync(final Accumulator a, final BigInteger valueOfCommitmentToCoin, final Executor executor){
+        Span span = ZerocoinEvents.proof(ZerocoinEvents.ACCUMULATOR_POK, ZerocoinEvents.VERIFY);
+        long start = System.nanoTime();
+        CompletableFuture<Equation> failure = evaluate(a, valueOfCommitmentToCoin, executor);
+        failure.whenComplete((equation, t) -> {
+            Metrics.recordSince(Metric.ACCUMULATOR_POK_VERIFY, start);
+            span.setValid(t == null && equation == null).finish();
+        });
+        return failure;
+    }
+
+    private CompletableFuture<Equation> evaluate(final Accumulator a, final BigInteger valueOfCommitmentToCoin, final Executor executor){
 
         IntegerGroupParams pAccPoKCommitmentGroup = zParams.getAccumulatorPoKCommitmentGroup();
         IntegerGroupParams accumulatorQRNCommitmentGroup = zParams.getAccumulatorQRNCommitmentGroup();
-        BigInteger accModulus = zParams.getAccumulatorModulus();
 
         BigInteger sg = pAccPoKCommitmentGroup.getG();
         BigInteger sh = pAccPoKCommitmentGroup.getH();
@@ -218,67 +401,7 @@ public class AccumulatorProofOfKnowledge extends Message {
         BigInteger g_n = accumulatorQRNCommitmentGroup.getG();
         BigInteger h_n = accumulatorQRNCommitmentGroup.getH();
 
-        //According to the proof, this hash should be of length k_prime bits.  It is currently greater than that, which should not be a problem, but we should check this.
-        HashWriter hasher = new HashWriter();
-        hasher.write(zParams)
-                .write(sg)
-                .write(sh)
-                .write(g_n)
-                .write(h_n)
-                .write(valueOfCommitmentToCoin)
-                .write(C_e)
-                .write(C_u)
-                .write(C_r)
-                .write(st_1)
-                .write(st_2)
-                .write(st_3)
-                .write(t_1)
-                .write(t_2)
-                .write(t_3)
-                .write(t_4);
-
-        BigInteger c = hasher.toUint256(null,true); //this hash should be of length k_prime bits
-
-        // For some X reason this cannot be null..
-        if (isNegative(c)){
-            c = c.negate();
-        }
-
-        BigInteger st_1_prime = (
-                valueOfCommitmentToCoin.modPow(c, pAccPoKCommitmentGroup.getModulus()).multiply(
-                        sg.modPow(s_alpha, pAccPoKCommitmentGroup.getModulus())).multiply(
-                        sh.modPow(s_phi, pAccPoKCommitmentGroup.getModulus()))
-        ) .mod(pAccPoKCommitmentGroup.getModulus());
-
-        BigInteger st_2_prime = ( (sg.modPow(c, pAccPoKCommitmentGroup.getModulus()) ) .multiply (
-                (valueOfCommitmentToCoin .multiply( sg.modInverse(pAccPoKCommitmentGroup.getModulus())).modPow(s_gamma, pAccPoKCommitmentGroup.getModulus()))) .multiply(
-                        sh.modPow(s_psi, pAccPoKCommitmentGroup.getModulus())) )
-                .mod(pAccPoKCommitmentGroup.getModulus());
-        BigInteger st_3_prime = (
-                ( sg.modPow(c, pAccPoKCommitmentGroup.getModulus()) ) .multiply ( (sg .multiply(valueOfCommitmentToCoin) ).modPow(s_sigma, pAccPoKCommitmentGroup.getModulus()) ) .multiply( sh.modPow(s_xi, pAccPoKCommitmentGroup.getModulus())) ) .mod(pAccPoKCommitmentGroup.getModulus());
-
-        BigInteger t_1_prime = (
-                ( C_r.modPow(c, accModulus) ) .multiply ( h_n.modPow(s_zeta, accModulus) ) .multiply ( g_n.modPow(s_epsilon, accModulus) )
-        ).mod (accModulus);
-        BigInteger t_2_prime = (
-                ( C_e.modPow(c, accModulus) ) .multiply ( h_n.modPow(s_eta, accModulus) ) .multiply (g_n.modPow(s_alpha, accModulus))
-        ) .mod(accModulus);
-        BigInteger t_3_prime = (
-                ( (a.getValue()).modPow(c, accModulus) ) .multiply ( C_u.modPow(s_alpha, accModulus) ) .multiply ( ((h_n.modInverse(accModulus)).modPow(s_beta, accModulus)) )
-        ) .mod(accModulus);
-        BigInteger t_4_prime = (
-                ( C_r.modPow(s_alpha, accModulus) ) .multiply ((h_n.modInverse(accModulus)).modPow(s_delta, accModulus)) .multiply ( ((g_n.modInverse(accModulus)).modPow(s_beta, accModulus)) )
-        ) .mod(accModulus);
-
-        boolean result_st1 = ZUtils.equals(st_1 , st_1_prime);
-        boolean result_st2 = ZUtils.equals(st_2 , st_2_prime);
-        boolean result_st3 = ZUtils.equals(st_3 , st_3_prime);
-
-        boolean result_t1 = ZUtils.equals(t_1 , t_1_prime);
-        boolean result_t2 = ZUtils.equals(t_2 , t_2_prime);
-        boolean result_t3 = ZUtils.equals(t_3 , t_3_prime);
-        boolean result_t4 = ZUtils.equals(t_4 , t_4_prime);
-
+        // The range check is cheap, do it before any exponentiation
         boolean result_range = (
                 ZUtils.isGreaterOrEqualThan(s_alpha , (zParams.getMaxCoinValue() .multiply ( BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime() + 1))).negate()))
                 &&
@@ -286,12 +409,101 @@ public class AccumulatorProofOfKnowledge extends Message {
                         s_alpha,
                         zParams.getMaxCoinValue() .multiply (BIGNUM_2.pow(zParams.getK_prime() + zParams.getK_dprime() + 1))
                 );
+        if (!result_range) {
+            return CompletableFuture.completedFuture(Equation.RANGE);
+        }
 
+        //According to the proof, this hash should be of length k_prime bits.  It is currently greater than that, which should not be a problem, but we should check this.
+        BigInteger hash;
+        try (HashWriter hasher = HashWriter.acquire()) {
+            hasher.write(zParams)
+                    .write(sg)
+                    .write(sh)
+                    .write(g_n)
+                    .write(h_n)
+                    .write(valueOfCommitmentToCoin)
+                    .write(C_e)
+                    .write(C_u)
+                    .write(C_r)
+                    .write(st_1)
+                    .write(st_2)
+                    .write(st_3)
+                    .write(t_1)
+                    .write(t_2)
+                    .write(t_3)
+                    .write(t_4);
+            hash = hasher.toUint256(null,true); //this hash should be of length k_prime bits
+        }
 
-        return result_st1 && result_st2 && result_st3 && result_t1 && result_t2 && result_t3 && result_t4 && result_range;
+        // For some X reason this cannot be null..
+        final BigInteger c = isNegative(hash) ? hash.negate() : hash;
+
+        CompletableFuture<Equation> failure = new CompletableFuture<>();
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+        List<CompletableFuture<Boolean>> reported = new ArrayList<>();
+        for (Equation equation : Equation.values()) {
+            if (equation == Equation.RANGE) continue;
+            // Only happens with executors that run the checks in place
+            if (failure.isDone()) break;
+
+            CompletableFuture<Boolean> check = supplyAsync(() -> holds(equation, a, valueOfCommitmentToCoin, c), executor);
+            checks.add(check);
+            reported.add(check.whenComplete((holds, throwable) -> {
+                if (throwable != null) {
+                    failure.completeExceptionally(throwable);
+                } else if (!holds) {
+                    failure.complete(equation);
+                }
+            }));
+        }
+        CompletableFuture.allOf(reported.toArray(new CompletableFuture<?>[0])).whenComplete((v, t) -> failure.complete(null));
+        failure.whenComplete((equation, t) -> checks.forEach(check -> check.cancel(false)));
 
+        return failure;
     }
 
+    private boolean holds(Equation equation, final Accumulator a, BigInteger valueOfCommitmentToCoin, BigInteger c) {
+
+        IntegerGroupParams pAccPoKCommitmentGroup = zParams.getAccumulatorPoKCommitmentGroup();
+        IntegerGroupParams accumulatorQRNCommitmentGroup = zParams.getAccumulatorQRNCommitmentGroup();
+        BigInteger accModulus = zParams.getAccumulatorModulus();
+
+        BigInteger sg = pAccPoKCommitmentGroup.getG();
+        BigInteger sh = pAccPoKCommitmentGroup.getH();
+
+        BigInteger g_n = accumulatorQRNCommitmentGroup.getG();
+        BigInteger h_n = accumulatorQRNCommitmentGroup.getH();
+
+        switch (equation) {
+            case ST_1:
+                BigInteger st_1_prime = ModMath.mod(ModMath.modPow(valueOfCommitmentToCoin, c, pAccPoKCommitmentGroup.getModulus()).multiply(
+                                ModMath.modPow(sg, s_alpha, pAccPoKCommitmentGroup.getModulus())).multiply(
+                                ModMath.modPow(sh, s_phi, pAccPoKCommitmentGroup.getModulus())), pAccPoKCommitmentGroup.getModulus());
+                return ZUtils.equals(st_1 , st_1_prime);
+            case ST_2:
+                BigInteger st_2_prime = ModMath.mod((ModMath.modPow(sg, c, pAccPoKCommitmentGroup.getModulus()) ) .multiply (
+                        (ModMath.modPow(valueOfCommitmentToCoin .multiply( ModMath.modInverse(sg, pAccPoKCommitmentGroup.getModulus())), s_gamma, pAccPoKCommitmentGroup.getModulus()))) .multiply(
+                                ModMath.modPow(sh, s_psi, pAccPoKCommitmentGroup.getModulus())), pAccPoKCommitmentGroup.getModulus());
+                return ZUtils.equals(st_2 , st_2_prime);
+            case ST_3:
+                BigInteger st_3_prime = ModMath.mod(( ModMath.modPow(sg, c, pAccPoKCommitmentGroup.getModulus()) ) .multiply ( ModMath.modPow(sg .multiply(valueOfCommitmentToCoin), s_sigma, pAccPoKCommitmentGroup.getModulus()) ) .multiply( ModMath.modPow(sh, s_xi, pAccPoKCommitmentGroup.getModulus())), pAccPoKCommitmentGroup.getModulus());
+                return ZUtils.equals(st_3 , st_3_prime);
+            case T_1:
+                BigInteger t_1_prime = ModMath.mod(( ModMath.modPow(C_r, c, accModulus) ) .multiply ( ModMath.modPow(h_n, s_zeta, accModulus) ) .multiply ( ModMath.modPow(g_n, s_epsilon, accModulus) ), accModulus);
+                return ZUtils.equals(t_1 , t_1_prime);
+            case T_2:
+                BigInteger t_2_prime = ModMath.mod(( ModMath.modPow(C_e, c, accModulus) ) .multiply ( ModMath.modPow(h_n, s_eta, accModulus) ) .multiply (ModMath.modPow(g_n, s_alpha, accModulus)), accModulus);
+                return ZUtils.equals(t_2 , t_2_prime);
+            case T_3:
+                BigInteger t_3_prime = ModMath.mod(( ModMath.modPow(a.getValue(), c, accModulus) ) .multiply ( ModMath.modPow(C_u, s_alpha, accModulus) ) .multiply ( (ModMath.modPow(ModMath.modInverse(h_n, accModulus), s_beta, accModulus)) ), accModulus);
+                return ZUtils.equals(t_3 , t_3_prime);
+            case T_4:
+                BigInteger t_4_prime = ModMath.mod(( ModMath.modPow(C_r, s_alpha, accModulus) ) .multiply (ModMath.modPow(ModMath.modInverse(h_n, accModulus), s_delta, accModulus)) .multiply ( (ModMath.modPow(ModMath.modInverse(g_n, accModulus), s_beta, accModulus)) ), accModulus);
+                return ZUtils.equals(t_4 , t_4_prime);
+            default:
+                throw new IllegalArgumentException("Not an exponentiation equation: " + equation);
+        }
+    }
 
     public static AccumulatorProofOfKnowledge parse(NetworkParameters params, ZerocoinContext zerocoinContext, byte[] payload, int cursor, boolean retainMode) {
         AccumulatorProofOfKnowledge accPoK = new AccumulatorProofOfKnowledge(params);
@@ -314,6 +526,38 @@ public class AccumulatorProofOfKnowledge extends Message {
         return accPoK;
     }
 
+    /**
+     * Parses the proof from the reader current position, see {@link ByteBufferReader}.
+     */
+    public static AccumulatorProofOfKnowledge parse(NetworkParameters params, ZerocoinContext zerocoinContext, ByteBufferReader reader) {
+        AccumulatorProofOfKnowledge accPoK = new AccumulatorProofOfKnowledge(params);
+        accPoK.zParams = zerocoinContext.accumulatorParams;
+        int start = reader.position();
+        accPoK.C_e = reader.readBignum();
+        accPoK.C_u = reader.readBignum();
+        accPoK.C_r = reader.readBignum();
+        accPoK.st_1 = reader.readBignum();
+        accPoK.st_2 = reader.readBignum();
+        accPoK.st_3 = reader.readBignum();
+        accPoK.t_1 = reader.readBignum();
+        accPoK.t_2 = reader.readBignum();
+        accPoK.t_3 = reader.readBignum();
+        accPoK.t_4 = reader.readBignum();
+        accPoK.s_alpha = reader.readBignum();
+        accPoK.s_beta = reader.readBignum();
+        accPoK.s_zeta = reader.readBignum();
+        accPoK.s_sigma = reader.readBignum();
+        accPoK.s_eta = reader.readBignum();
+        accPoK.s_epsilon = reader.readBignum();
+        accPoK.s_delta = reader.readBignum();
+        accPoK.s_xi = reader.readBignum();
+        accPoK.s_phi = reader.readBignum();
+        accPoK.s_gamma = reader.readBignum();
+        accPoK.s_psi = reader.readBignum();
+        accPoK.length = reader.position() - start;
+        return accPoK;
+    }
+
 
     @Override
     protected void parse() throws ProtocolException {
@@ -342,42 +586,63 @@ public class AccumulatorProofOfKnowledge extends Message {
 
     @Override
     public byte[] bitcoinSerialize() {
-        ByteArrayOutputStream buffer = null;
-        try {
-            buffer = new ByteArrayOutputStream();
-            ZUtils.serializeBigInteger(buffer,C_e);
-            ZUtils.serializeBigInteger(buffer,C_u);
-            ZUtils.serializeBigInteger(buffer,C_r);
-            ZUtils.serializeBigInteger(buffer,st_1);
-            ZUtils.serializeBigInteger(buffer,st_2);
-            ZUtils.serializeBigInteger(buffer,st_3);
-            ZUtils.serializeBigInteger(buffer,t_1);
-            ZUtils.serializeBigInteger(buffer,t_2);
-            ZUtils.serializeBigInteger(buffer,t_3);
-            ZUtils.serializeBigInteger(buffer,t_4);
-            ZUtils.serializeBigInteger(buffer,s_alpha);
-            ZUtils.serializeBigInteger(buffer,s_beta);
-            ZUtils.serializeBigInteger(buffer,s_zeta);
-            ZUtils.serializeBigInteger(buffer,s_sigma);
-            ZUtils.serializeBigInteger(buffer,s_eta);
-            ZUtils.serializeBigInteger(buffer,s_epsilon);
-            ZUtils.serializeBigInteger(buffer,s_delta);
-            ZUtils.serializeBigInteger(buffer,s_xi);
-            ZUtils.serializeBigInteger(buffer,s_phi);
-            ZUtils.serializeBigInteger(buffer,s_gamma);
-            ZUtils.serializeBigInteger(buffer,s_psi);
-            return buffer.toByteArray();
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot serialize accPoK ", e);
-        } finally {
-            if (buffer != null) {
-                try {
-                    buffer.close();
-                } catch (IOException e) {
-                    // nothing
-                }
-            }
-        }
+        byte[] bytes = new byte[getSerializedSize()];
+        serialize(new ByteBufferWriter(ByteBuffer.wrap(bytes)));
+        return bytes;
+    }
+
+    /**
+     * @return exact size of the serialized proof
+     */
+    public int getSerializedSize() {
+        return bignumSize(C_e) +
+                bignumSize(C_u) +
+                bignumSize(C_r) +
+                bignumSize(st_1) +
+                bignumSize(st_2) +
+                bignumSize(st_3) +
+                bignumSize(t_1) +
+                bignumSize(t_2) +
+                bignumSize(t_3) +
+                bignumSize(t_4) +
+                bignumSize(s_alpha) +
+                bignumSize(s_beta) +
+                bignumSize(s_zeta) +
+                bignumSize(s_sigma) +
+                bignumSize(s_eta) +
+                bignumSize(s_epsilon) +
+                bignumSize(s_delta) +
+                bignumSize(s_xi) +
+                bignumSize(s_phi) +
+                bignumSize(s_gamma) +
+                bignumSize(s_psi);
+    }
+
+    /**
+     * Writes the proof, {@link #getSerializedSize()} bytes, at the writer position.
+     */
+    public void serialize(ByteBufferWriter writer) {
+        writer.writeBignum(C_e);
+        writer.writeBignum(C_u);
+        writer.writeBignum(C_r);
+        writer.writeBignum(st_1);
+        writer.writeBignum(st_2);
+        writer.writeBignum(st_3);
+        writer.writeBignum(t_1);
+        writer.writeBignum(t_2);
+        writer.writeBignum(t_3);
+        writer.writeBignum(t_4);
+        writer.writeBignum(s_alpha);
+        writer.writeBignum(s_beta);
+        writer.writeBignum(s_zeta);
+        writer.writeBignum(s_sigma);
+        writer.writeBignum(s_eta);
+        writer.writeBignum(s_epsilon);
+        writer.writeBignum(s_delta);
+        writer.writeBignum(s_xi);
+        writer.writeBignum(s_phi);
+        writer.writeBignum(s_gamma);
+        writer.writeBignum(s_psi);
     }
 
     public int getCursor() {
@@ -5,6 +5,10 @@
 package com.zerocoinj.core.accumulators;
 
 import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
 import com.zerocoinj.utils.ZUtils;
 import org.pivxj.core.BlockChain;
 import org.pivxj.core.Sha256Hash;
@@ -102,7 +106,11 @@ public class AccumulatorWitness {
 
     public void addElement(ZeroCoin coin) {
         if(!ZUtils.equals(element.getCommitment().getCommitmentValue(), coin.getCommitment().getCommitmentValue())) {
-            witness.accumulate(coin);
+            Span span = ZerocoinEvents.accumulatorUpdate(witness.getDenomination(), true);
+            long start = System.nanoTime();
+            witness.add(coin);
+            Metrics.recordSince(Metric.WITNESS_UPDATE, start);
+            span.finish();
         }
     }
 
@@ -112,7 +120,11 @@ public class AccumulatorWitness {
      */
     public void addElementUnchecked(BigInteger commitmentValue) {
         if(!ZUtils.equals(element.getCommitment().getCommitmentValue(), commitmentValue)) {
+            Span span = ZerocoinEvents.accumulatorUpdate(witness.getDenomination(), true);
+            long start = System.nanoTime();
             witness.increment(commitmentValue);
+            Metrics.recordSince(Metric.WITNESS_UPDATE, start);
+            span.finish();
         }else {
             System.out.println("Trying to accumulate invalid coin");
         }
@@ -124,7 +136,7 @@ public class AccumulatorWitness {
 
     public boolean verifyWitness(Accumulator accumulator, ZeroCoin coin) {
         Accumulator temp = this.witness.copy();
-        temp.accumulate(this.element);
+        temp.add(this.element);
         if (!temp.equals(accumulator)){
             logger.info("VerifyWitness: failed verify temp does not equal a\n");
             return false;
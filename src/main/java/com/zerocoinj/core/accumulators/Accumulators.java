@@ -5,13 +5,10 @@
 package com.zerocoinj.core.accumulators;
 
 import com.zerocoinj.core.CoinDenomination;
-import com.zerocoinj.utils.ZUtils;
-import org.pivxj.core.Sha256Hash;
+import com.zerocoinj.core.HashWriter;
 import org.pivxj.core.Utils;
 import org.spongycastle.util.encoders.Hex;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.math.BigInteger;
 
 public class Accumulators {
@@ -24,17 +21,9 @@ public class Accumulators {
     }
 
     public static long getChecksum(BigInteger bnValue) {
-        try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ZUtils.serializeBigInteger(outputStream, bnValue);
-            byte[] serializedBn = outputStream.toByteArray();
-            outputStream.close();
-            return Utils.readUint32(
-                    Sha256Hash.twiceOf(serializedBn).getBytes(),
-                    0
-            );
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        try (HashWriter hasher = HashWriter.acquire()) {
+            // First 4 bytes of the double sha, little endian. The writer returns the hash reversed
+            return Utils.readUint32BE(hasher.write(bnValue).doubleShaReversed(), 28);
         }
     }
 
@@ -6,6 +6,7 @@
 package com.zerocoinj.core.context;
 
 import com.zerocoinj.utils.JniBridgeWrapper;
+import com.zerocoinj.utils.ModMath;
 import org.pivxj.core.Utils;
 import org.pivxj.crypto.LinuxSecureRandom;
 
@@ -144,7 +145,7 @@ public class ZerocoinContext {
         BigInteger constant = new BigInteger("31");
         accumulatorParams.accumulatorBase = BigInteger.ONE;
         for (int count = 0; count < 10000 && accumulatorParams.accumulatorBase.equals(BigInteger.ONE); count++) {
-            accumulatorParams.accumulatorBase = constant.modPow(BIGNUM_2, accumulatorParams.accumulatorModulus);
+            accumulatorParams.accumulatorBase = ModMath.modPow(constant, BIGNUM_2, accumulatorParams.accumulatorModulus);
         }
 
         // Compute the accumulator range. The upper range is the largest possible coin commitment value.
@@ -0,0 +1,21 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+/**
+ * Keeps the jdk.jfr types away from {@link ZerocoinEvents}, so it loads on runtimes without Flight Recorder.
+ */
+interface EventFactory {
+
+    Span spend(String operation, String denomination);
+
+    Span proof(String proof, String operation);
+
+    Span commitment();
+
+    Span accumulatorUpdate(String denomination, boolean witness);
+
+    Span jniCall(String method);
+}
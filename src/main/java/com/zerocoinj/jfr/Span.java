@@ -0,0 +1,33 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+/**
+ * An operation being traced, see {@link ZerocoinEvents}. The setters only apply to the events having the field.
+ */
+public interface Span {
+
+    Span NOOP = () -> { };
+
+    default Span setValid(boolean valid) {
+        return this;
+    }
+
+    /**
+     * @param failure what made the operation fail, e.g. the spend verification stage
+     */
+    default Span setFailure(String failure) {
+        return this;
+    }
+
+    default Span setAttempts(int attempts) {
+        return this;
+    }
+
+    /**
+     * Ends the operation, emitting the event if the recording wants it.
+     */
+    void finish();
+}
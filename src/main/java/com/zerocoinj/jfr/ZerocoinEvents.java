@@ -0,0 +1,88 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.jfr;
+
+import com.zerocoinj.core.CoinDenomination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JDK Flight Recorder events of the zerocoin hot paths, under the "Zerocoinj" category: spend creation and
+ * verification, each proof, the commitment search of a mint (with its attempts), accumulator and witness updates
+ * and the JNI bridge calls.
+ *
+ * Usage: {@code Span span = ZerocoinEvents.proof(...); ... span.finish();}. On runtimes without Flight Recorder
+ * (JDK 8 before 8u262, Android) and for event types not enabled in the running recordings the spans are
+ * {@link Span#NOOP}.
+ *
+ * The events live in the {@code jfr} source set, built only by a JDK with jdk.jfr, and are loaded by reflection:
+ * without them the spans are {@link Span#NOOP} as well.
+ */
+public final class ZerocoinEvents {
+
+    private static final Logger log = LoggerFactory.getLogger(ZerocoinEvents.class);
+
+    public static final String CREATE = "create";
+    public static final String VERIFY = "verify";
+    public static final String PROVE = "prove";
+
+    public static final String COMMITMENT_POK = "CommitmentPoK";
+    public static final String ACCUMULATOR_POK = "AccumulatorPoK";
+    public static final String SERIAL_NUMBER_SOK = "SerialNumberSoK";
+
+    private static final EventFactory factory = loadFactory();
+
+    private ZerocoinEvents() {
+    }
+
+    /**
+     * @return true if the runtime has Flight Recorder, the events are emitted only while recording
+     */
+    public static boolean isAvailable() {
+        return factory != null;
+    }
+
+    public static Span spend(String operation, CoinDenomination denomination) {
+        return factory == null ? Span.NOOP : factory.spend(operation, name(denomination));
+    }
+
+    public static Span proof(String proof, String operation) {
+        return factory == null ? Span.NOOP : factory.proof(proof, operation);
+    }
+
+    /**
+     * Search of a prime commitment while minting, set the attempts before ending it.
+     */
+    public static Span commitment() {
+        return factory == null ? Span.NOOP : factory.commitment();
+    }
+
+    /**
+     * @param witness true if the accumulator is a witness
+     */
+    public static Span accumulatorUpdate(CoinDenomination denomination, boolean witness) {
+        return factory == null ? Span.NOOP : factory.accumulatorUpdate(name(denomination), witness);
+    }
+
+    public static Span jniCall(String method) {
+        return factory == null ? Span.NOOP : factory.jniCall(method);
+    }
+
+    private static String name(CoinDenomination denomination) {
+        return denomination == null ? null : denomination.name();
+    }
+
+    private static EventFactory loadFactory() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (EventFactory) Class.forName("com.zerocoinj.jfr.JfrEventFactory").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Flight Recorder events disabled", e);
+            return null;
+        }
+    }
+}
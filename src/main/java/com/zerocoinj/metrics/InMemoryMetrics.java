@@ -0,0 +1,78 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the measurements in memory: a {@link Histogram} per metric and a count per counter.
+ * Meant to be polled, e.g. by a dashboard exporter, and {@link #reset()} between reporting intervals if needed.
+ */
+public class InMemoryMetrics implements ZerocoinMetrics {
+
+    private final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    public InMemoryMetrics() {
+        for (Metric metric : Metric.values()) {
+            histograms.put(metric, new Histogram());
+        }
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+    }
+
+    @Override
+    public void record(Metric metric, long value) {
+        histograms.get(metric).record(value);
+    }
+
+    @Override
+    public void increment(Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    public Histogram getHistogram(Metric metric) {
+        return histograms.get(metric);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    public void reset() {
+        histograms.values().forEach(Histogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * @return a table with the count, latency percentiles in milliseconds (or the values for non latency metrics)
+     * and total time of every metric recorded, followed by the counters
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format("%-26s %8s %10s %10s %10s %10s %12s%n",
+                "metric", "count", "p50", "p99", "p999", "max", "total ms"));
+        for (Metric metric : Metric.values()) {
+            Histogram histogram = histograms.get(metric);
+            if (histogram.getCount() == 0) continue;
+            builder.append(String.format("%-26s %8d %10s %10s %10s %10s %12s%n", metric, histogram.getCount(),
+                    format(metric, histogram.getValueAtPercentile(50)), format(metric, histogram.getValueAtPercentile(99)),
+                    format(metric, histogram.getValueAtPercentile(99.9)), format(metric, histogram.getMax()),
+                    metric.isLatency() ? format(metric, histogram.getSum()) : "-"));
+        }
+        for (Counter counter : Counter.values()) {
+            builder.append(String.format("%-26s %8d%n", counter, getCount(counter)));
+        }
+        return builder.toString();
+    }
+
+    private static String format(Metric metric, long value) {
+        return metric.isLatency() ? String.format("%.3f", value / (double) TimeUnit.MILLISECONDS.toNanos(1)) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,48 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.metrics;
+
+import com.zerocoinj.metrics.ZerocoinMetrics.Counter;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+
+/**
+ * Holds the {@link ZerocoinMetrics} the library reports to.
+ */
+public final class Metrics {
+
+    private static volatile ZerocoinMetrics metrics = ZerocoinMetrics.NOOP;
+
+    private Metrics() {
+    }
+
+    public static ZerocoinMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics where the measurements are reported from now on, null to drop them
+     */
+    public static void set(ZerocoinMetrics metrics) {
+        Metrics.metrics = metrics != null ? metrics : ZerocoinMetrics.NOOP;
+    }
+
+    /**
+     * Records the nanoseconds elapsed since {@code startNanos}, a {@link System#nanoTime()} value.
+     */
+    public static void recordSince(Metric metric, long startNanos) {
+        ZerocoinMetrics current = metrics;
+        if (current != ZerocoinMetrics.NOOP) {
+            current.record(metric, System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void record(Metric metric, long value) {
+        metrics.record(metric, value);
+    }
+
+    public static void increment(Counter counter) {
+        metrics.increment(counter);
+    }
+}
@@ -0,0 +1,214 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.metrics;
+
+import com.zerocoinj.utils.ModMath;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in profiler of the modular arithmetic done through {@link ModMath}: counts the calls and their cumulative time
+ * per operation, call site and modulus size, to see which exponentiations dominate before optimizing them.
+ *
+ * Enable it with {@link #enable()} or {@code -Dzerocoinj.modProfiler=true}. While enabled every call walks the stack
+ * to find its call site, outside of the measured time but still costly, so keep it off in production.
+ */
+public final class ModProfiler {
+
+    public enum Operation {
+        MOD_POW, MOD_INVERSE, MOD
+    }
+
+    /**
+     * Modulus size buckets, a modulus falls in the smallest one it fits.
+     */
+    public enum OperandSize {
+        BITS_256(256), BITS_512(512), BITS_1024(1024), BITS_1536(1536), BITS_2048(2048), BITS_3072(3072), LARGER(Integer.MAX_VALUE);
+
+        private final int bits;
+
+        OperandSize(int bits) {
+            this.bits = bits;
+        }
+
+        public int getBits() {
+            return bits;
+        }
+
+        public static OperandSize of(BigInteger modulus) {
+            int bitLength = modulus.bitLength();
+            for (OperandSize size : values()) {
+                if (bitLength <= size.bits) return size;
+            }
+            return LARGER;
+        }
+    }
+
+    private static final String MOD_MATH = ModMath.class.getName();
+    private static final String UTILS = "com.zerocoinj.utils.ZUtils";
+
+    private static volatile boolean enabled = Boolean.getBoolean("zerocoinj.modProfiler");
+    private static final ConcurrentHashMap<Key, CallSite> callSites = new ConcurrentHashMap<>();
+
+    private ModProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static void reset() {
+        callSites.clear();
+    }
+
+    /**
+     * @param exponentBits bit length of the exponent, 0 if the operation has none
+     */
+    public static void record(Operation operation, BigInteger modulus, int exponentBits, long nanos) {
+        Key key = new Key(operation, callSite(), OperandSize.of(modulus));
+        CallSite callSite = callSites.get(key);
+        if (callSite == null) {
+            callSite = callSites.computeIfAbsent(key, CallSite::new);
+        }
+        callSite.calls.increment();
+        callSite.nanos.add(nanos);
+        callSite.exponentBits.add(exponentBits);
+    }
+
+    /**
+     * @return the call sites recorded so far, the most expensive first
+     */
+    public static List<CallSite> snapshot() {
+        List<CallSite> snapshot = new ArrayList<>(callSites.values());
+        snapshot.sort(Comparator.comparingLong(CallSite::getNanos).reversed());
+        return snapshot;
+    }
+
+    /**
+     * @return a table with the calls, total and mean time of every call site, the most expensive first, with the
+     * share of the total modular arithmetic time
+     */
+    public static String dump() {
+        List<CallSite> snapshot = snapshot();
+        long total = 0;
+        for (CallSite callSite : snapshot) {
+            total += callSite.getNanos();
+        }
+        StringBuilder builder = new StringBuilder(String.format("%-12s %-10s %10s %12s %10s %8s %7s  %s%n",
+                "operation", "modulus", "calls", "total ms", "mean us", "exp bits", "share", "call site"));
+        for (CallSite callSite : snapshot) {
+            builder.append(String.format("%-12s %-10s %10d %12.3f %10.3f %8d %6.2f%%  %s%n", callSite.getOperation(),
+                    callSite.getOperandSize(), callSite.getCalls(), callSite.getNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                    callSite.getMeanNanos() / TimeUnit.MICROSECONDS.toNanos(1), callSite.getMeanExponentBits(),
+                    total == 0 ? 0 : callSite.getNanos() * 100.0 / total, callSite.getLocation()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the first frame out of the arithmetic helpers
+     */
+    private static String callSite() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (int i = 1; i < stack.length; i++) {
+            String className = stack[i].getClassName();
+            if (!className.equals(MOD_MATH) && !className.equals(UTILS) && !className.equals(ModProfiler.class.getName())) {
+                return className.substring(className.lastIndexOf('.') + 1) + "." + stack[i].getMethodName() + ":" + stack[i].getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    public static final class CallSite {
+
+        private final Key key;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder exponentBits = new LongAdder();
+
+        private CallSite(Key key) {
+            this.key = key;
+        }
+
+        public Operation getOperation() {
+            return key.operation;
+        }
+
+        /**
+         * @return class simple name, method and line
+         */
+        public String getLocation() {
+            return key.location;
+        }
+
+        public OperandSize getOperandSize() {
+            return key.size;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        public double getMeanNanos() {
+            long calls = getCalls();
+            return calls == 0 ? 0 : getNanos() / (double) calls;
+        }
+
+        public long getMeanExponentBits() {
+            long calls = getCalls();
+            return calls == 0 ? 0 : exponentBits.sum() / calls;
+        }
+
+        @Override
+        public String toString() {
+            return key.operation + " " + key.size + " at " + key.location + ", calls=" + getCalls() + ", nanos=" + getNanos();
+        }
+    }
+
+    private static final class Key {
+
+        private final Operation operation;
+        private final String location;
+        private final OperandSize size;
+
+        Key(Operation operation, String location, OperandSize size) {
+            this.operation = operation;
+            this.location = location;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return operation == key.operation && size == key.size && location.equals(key.location);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, location, size);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.metrics;
+
+/**
+ * Receives the library measurements: the latency of mints, accumulations, witness updates, proofs and native calls,
+ * the amount of attempts needed to mint a coin and the cache hits.
+ *
+ * Install an implementation with {@link Metrics#set(ZerocoinMetrics)}, by default measurements are dropped
+ * ({@link #NOOP}). Implementations are called from any thread, concurrently, and must be cheap: they run inside
+ * the proof generation and verification paths. Adapt it to the metrics library of choice or use {@link InMemoryMetrics}.
+ */
+public interface ZerocoinMetrics {
+
+    /**
+     * Distributions, every value recorded is also a count of the event.
+     */
+    enum Metric {
+        MINT(true),
+        // Commitments tried until a prime one is found, per minted coin
+        MINT_ATTEMPTS(false),
+        ACCUMULATE(true),
+        WITNESS_UPDATE(true),
+        COMMITMENT_POK_PROVE(true),
+        COMMITMENT_POK_VERIFY(true),
+        ACCUMULATOR_POK_PROVE(true),
+        ACCUMULATOR_POK_VERIFY(true),
+        SERIAL_NUMBER_SOK_PROVE(true),
+        SERIAL_NUMBER_SOK_VERIFY(true),
+        SPEND_CREATE(true),
+        SPEND_VERIFY(true),
+        JNI_CALL(true);
+
+        private final boolean latency;
+
+        Metric(boolean latency) {
+            this.latency = latency;
+        }
+
+        /**
+         * @return true if the values are nanoseconds
+         */
+        public boolean isLatency() {
+            return latency;
+        }
+    }
+
+    enum Counter {
+        // Spends found in the VerifiedSpendCache
+        CACHE_HIT,
+        CACHE_MISS
+    }
+
+    ZerocoinMetrics NOOP = new ZerocoinMetrics() {
+        @Override
+        public void record(Metric metric, long value) {
+        }
+
+        @Override
+        public void increment(Counter counter) {
+        }
+    };
+
+    /**
+     * @param value nanoseconds for latencies, see {@link Metric#isLatency()}
+     */
+    void record(Metric metric, long value);
+
+    void increment(Counter counter);
+}
@@ -0,0 +1,27 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.service;
+
+import com.zerocoinj.core.VerificationResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-process client talking to a local {@link SpendVerificationService}, mainly for tests and benchmarks.
+ * The payload is copied as it would be when received from the network.
+ */
+public class LoopbackSpendVerificationClient implements SpendVerificationClient {
+
+    private final SpendVerificationService service;
+
+    public LoopbackSpendVerificationClient(SpendVerificationService service) {
+        this.service = service;
+    }
+
+    @Override
+    public CompletableFuture<VerificationResult> verify(byte[] rawSpend) {
+        return service.submit(rawSpend.clone());
+    }
+}
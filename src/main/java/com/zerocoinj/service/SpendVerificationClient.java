@@ -0,0 +1,21 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.service;
+
+import com.zerocoinj.core.VerificationResult;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client side of a {@link SpendVerificationService}.
+ */
+public interface SpendVerificationClient {
+
+    /**
+     * Requests the verification of a serialized spend.
+     */
+    CompletableFuture<VerificationResult> verify(byte[] rawSpend);
+
+}
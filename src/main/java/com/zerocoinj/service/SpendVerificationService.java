@@ -0,0 +1,272 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.service;
+
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.VerificationResult;
+import com.zerocoinj.core.VerifiedSpendCache;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.context.ZerocoinContext;
+import org.pivxj.core.NetworkParameters;
+import org.pivxj.core.Sha256Hash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies serialized spends arriving in bursts (e.g. from an RPC endpoint).
+ *
+ * Incoming spends are queued and collected into micro-batches, closed when they reach the maximum size or
+ * when the maximum delay since the first spend of the batch elapses. Every batch is verified on a bounded
+ * worker pool: identical spends inside the batch are verified once and each accumulator is resolved once.
+ *
+ * Backpressure: at most {@code queueCapacity} spends wait to be batched, submissions beyond that fail
+ * right away with a {@link RejectedExecutionException}, and the batcher doesn't hand more than
+ * {@code 2 * workers} spends to the pool at the same time.
+ */
+public class SpendVerificationService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpendVerificationService.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 5;
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * Source of the accumulators the spends are verified against.
+     */
+    public interface AccumulatorProvider {
+
+        /**
+         * @return the accumulator with the given checksum, or null if it is not known
+         */
+        Accumulator getAccumulator(CoinDenomination denomination, long checksum);
+    }
+
+    private final NetworkParameters params;
+    private final ZerocoinContext zContext;
+    private final AccumulatorProvider accumulatorProvider;
+    // Optional, null if verifications are not cached
+    private final VerifiedSpendCache cache;
+
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<Request> queue;
+    private final Semaphore inFlight;
+    private final ExecutorService workers;
+    private final Thread batcher;
+    private volatile boolean running = true;
+
+    // Stats
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SpendVerificationService(NetworkParameters params, ZerocoinContext zContext, AccumulatorProvider accumulatorProvider,
+                                    VerifiedSpendCache cache, int workers) {
+        this(params, zContext, accumulatorProvider, cache, workers,
+                DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_BATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param params network params used to parse the spends
+     * @param zContext zerocoin params used to parse the spends
+     * @param accumulatorProvider source of the accumulators the spends are verified against
+     * @param cache verified spends cache, null to verify every spend
+     * @param workers amount of threads verifying spends
+     * @param maxBatchSize maximum amount of spends in a batch
+     * @param maxBatchDelay maximum time to wait for a batch to fill since its first spend arrived
+     * @param unit unit of maxBatchDelay
+     * @param queueCapacity maximum amount of spends waiting to be batched
+     */
+    public SpendVerificationService(NetworkParameters params, ZerocoinContext zContext, AccumulatorProvider accumulatorProvider,
+                                    VerifiedSpendCache cache, int workers, int maxBatchSize, long maxBatchDelay, TimeUnit unit,
+                                    int queueCapacity) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive");
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.params = params;
+        this.zContext = zContext;
+        this.accumulatorProvider = accumulatorProvider;
+        this.cache = cache;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = unit.toNanos(maxBatchDelay);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.inFlight = new Semaphore(2 * workers);
+        this.workers = Executors.newFixedThreadPool(
+                workers,
+                new ThreadFactoryBuilder().setNameFormat("spend-verifier-%d").setDaemon(true).build()
+        );
+        this.batcher = new ThreadFactoryBuilder().setNameFormat("spend-batcher").setDaemon(true).build()
+                .newThread(this::batchLoop);
+        this.batcher.start();
+    }
+
+    /**
+     * Queues a serialized spend to be verified.
+     *
+     * @param rawSpend serialized {@link CoinSpend}
+     * @return a future completed with the verification result, or exceptionally if the spend cannot be parsed,
+     * its accumulator is unknown or the service is overloaded ({@link RejectedExecutionException})
+     */
+    public CompletableFuture<VerificationResult> submit(byte[] rawSpend) {
+        Request request = new Request(rawSpend);
+        if (!running) {
+            reject(request, "Spend verification service closed");
+        } else if (!queue.offer(request)) {
+            reject(request, "Spend verification queue is full");
+        } else if (!running && queue.remove(request)) {
+            // Closed while offering, the batcher may have already drained the queue for the last time
+            reject(request, "Spend verification service closed");
+        }
+        return request.future;
+    }
+
+    private void reject(Request request, String reason) {
+        rejected.incrementAndGet();
+        request.future.completeExceptionally(new RejectedExecutionException(reason));
+    }
+
+    private void batchLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                List<Request> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                if (maxBatchSize > 1) {
+                    Queues.drain(queue, batch, maxBatchSize - 1, maxBatchDelayNanos, TimeUnit.NANOSECONDS);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Spend batcher failure", e);
+            }
+        }
+        // Anything left behind is not going to be verified
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new RejectedExecutionException("Spend verification service closed"));
+        }
+    }
+
+    private void dispatch(List<Request> batch) throws InterruptedException {
+        batches.incrementAndGet();
+
+        // Identical spends are verified once
+        Map<Sha256Hash, List<Request>> distinct = new LinkedHashMap<>();
+        for (Request request : batch) {
+            distinct.computeIfAbsent(request.id, id -> new ArrayList<>(1)).add(request);
+        }
+        deduplicated.addAndGet(batch.size() - distinct.size());
+
+        // Accumulators resolved once per batch
+        Map<String, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+        for (List<Request> requests : distinct.values()) {
+            inFlight.acquire();
+            try {
+                workers.execute(() -> {
+                    try {
+                        verify(requests, accumulators);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                requests.forEach(request -> request.future.completeExceptionally(e));
+            }
+        }
+    }
+
+    private void verify(List<Request> requests, Map<String, Accumulator> accumulators) {
+        try {
+            CoinSpend spend = CoinSpend.parse(params, zContext, requests.get(0).rawSpend);
+            CoinDenomination denomination = spend.getDenomination();
+            long checksum = spend.getAccChecksum().longValue();
+            Accumulator accumulator = accumulators.computeIfAbsent(
+                    denomination + ":" + checksum,
+                    key -> accumulatorProvider.getAccumulator(denomination, checksum)
+            );
+            if (accumulator == null) {
+                throw new IllegalStateException("Unknown accumulator, denomination: " + denomination + ", checksum: " + checksum);
+            }
+            VerificationResult result = (cache != null) ? cache.verify(spend, accumulator) : spend.verifyDetailed(accumulator);
+            verifications.incrementAndGet();
+            requests.forEach(request -> request.future.complete(result));
+        } catch (Exception e) {
+            requests.forEach(request -> request.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stops accepting spends, verifies the ones already queued and waits for the workers to finish.
+     * If the calling thread is interrupted it stops waiting, keeping the interrupt status.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            batcher.join();
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            workers.shutdown();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getVerificationCount() {
+        return verifications.get();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private static final class Request {
+
+        private final byte[] rawSpend;
+        private final Sha256Hash id;
+        private final CompletableFuture<VerificationResult> future = new CompletableFuture<>();
+
+        Request(byte[] rawSpend) {
+            this.rawSpend = rawSpend;
+            this.id = Sha256Hash.of(rawSpend);
+        }
+    }
+}
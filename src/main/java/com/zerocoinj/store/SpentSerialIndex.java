@@ -0,0 +1,370 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.store;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Set of spent coin serial numbers, to detect double spends.
+ *
+ * Serials are stored as fixed 33 bytes keys, a sign byte followed by the 256 bits magnitude in big endian, in an
+ * off-heap open addressing table with linear probing. The sign is kept apart so the negative serials accepted by
+ * old v1 spends don't share their key with a positive serial. Lookups don't lock and {@link #markSpent(BigInteger)} is an atomic check-and-insert,
+ * so concurrent verifiers racing on the same serial see exactly one winner.
+ *
+ * The table doesn't grow, it's sized on construction for the expected amount of serials and
+ * {@link #markSpent(BigInteger)} throws an {@link IllegalStateException} once it's full.
+ *
+ * The content can be saved with {@link #snapshot(Path)} and loaded with {@link #restore(Path)}, which maps the file
+ * instead of reading it so startup doesn't depend on the index size.
+ */
+public class SpentSerialIndex {
+
+    public static final int KEY_SIZE = 33;
+
+    private static final int MAGIC = 0x5a535349; // "ZSSI"
+    private static final int VERSION = 2;
+    // magic, version, capacity, size, seed
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+
+    private static final int MAX_CAPACITY = 1 << 25;
+    private static final double MAX_LOAD = 0.75;
+
+    // Exclusive bound of the serial magnitude
+    private static final BigInteger MAX_SERIAL = BigInteger.ONE.shiftLeft(256);
+    private static final byte POSITIVE = 0;
+    private static final byte NEGATIVE = 1;
+
+    // Slot states, a full slot stores the key fingerprint which is always negative
+    private static final int EMPTY = 0;
+    private static final int WRITING = 1;
+    private static final int REMOVED = 2;
+
+    private final int capacity;
+    private final int mask;
+    private final int maxUsed;
+    private final long seed;
+    // capacity * KEY_SIZE bytes, direct or mapped
+    private final ByteBuffer keys;
+    private final AtomicIntegerArray slots;
+    // Full plus removed slots, removed slots are not reused
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param expectedSerials amount of serials the index has to hold
+     */
+    public SpentSerialIndex(int expectedSerials) {
+        this(capacityFor(expectedSerials), new SecureRandom().nextLong(), null);
+    }
+
+    private SpentSerialIndex(int capacity, long seed, ByteBuffer keys) {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxUsed = (int) (capacity * MAX_LOAD);
+        this.seed = seed;
+        this.keys = keys != null ? keys : ByteBuffer.allocateDirect(capacity * KEY_SIZE);
+        this.slots = new AtomicIntegerArray(capacity);
+    }
+
+    private static int capacityFor(int expectedSerials) {
+        if (expectedSerials < 1) throw new IllegalArgumentException("expectedSerials must be positive");
+        long needed = (long) Math.ceil(expectedSerials / MAX_LOAD) + 1;
+        if (needed > MAX_CAPACITY) throw new IllegalArgumentException("Too many serials, max: " + (int) (MAX_CAPACITY * MAX_LOAD));
+        int capacity = 16;
+        while (capacity < needed) capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * @return the 33 bytes key of the serial, the sign byte (1 if negative) and the magnitude
+     * @throws IllegalArgumentException if the serial is zero or its magnitude doesn't fit in 256 bits
+     */
+    public static byte[] toKey(BigInteger serial) {
+        BigInteger magnitude = serial.abs();
+        if (magnitude.signum() == 0 || magnitude.compareTo(MAX_SERIAL) >= 0) {
+            throw new IllegalArgumentException("Invalid serial " + serial);
+        }
+        byte[] bytes = magnitude.toByteArray();
+        byte[] key = new byte[KEY_SIZE];
+        key[0] = serial.signum() < 0 ? NEGATIVE : POSITIVE;
+        if (bytes.length == KEY_SIZE) {
+            // Most significant bit set, drop the two's complement sign byte
+            System.arraycopy(bytes, 1, key, 1, KEY_SIZE - 1);
+        } else {
+            System.arraycopy(bytes, 0, key, KEY_SIZE - bytes.length, bytes.length);
+        }
+        return key;
+    }
+
+    /**
+     * @return true if the serial was already spent
+     */
+    public boolean isSpent(BigInteger serial) {
+        return isSpent(toKey(serial));
+    }
+
+    public boolean isSpent(byte[] key) {
+        checkKey(key);
+        byte sign = key[0];
+        long k0 = getLong(key, 1), k1 = getLong(key, 9), k2 = getLong(key, 17), k3 = getLong(key, 25);
+        long hash = hash(sign, k0, k1, k2, k3);
+        int fingerprint = fingerprint(hash);
+        for (int i = (int) hash & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            int state = awaitWritten(i);
+            if (state == EMPTY) return false;
+            if (state == fingerprint && keyEquals(i, sign, k0, k1, k2, k3)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the serial as spent.
+     *
+     * @return true if the serial was not spent before, false if this is a double spend
+     * @throws IllegalStateException if the index is full
+     */
+    public boolean markSpent(BigInteger serial) {
+        return markSpent(toKey(serial));
+    }
+
+    public boolean markSpent(byte[] key) {
+        checkKey(key);
+        byte sign = key[0];
+        long k0 = getLong(key, 1), k1 = getLong(key, 9), k2 = getLong(key, 17), k3 = getLong(key, 25);
+        long hash = hash(sign, k0, k1, k2, k3);
+        int fingerprint = fingerprint(hash);
+        for (int i = (int) hash & mask, probes = 0; probes < capacity; probes++) {
+            int state = awaitWritten(i);
+            if (state == EMPTY) {
+                if (used.incrementAndGet() > maxUsed) {
+                    used.decrementAndGet();
+                    throw new IllegalStateException("SpentSerialIndex full, capacity: " + capacity);
+                }
+                if (slots.compareAndSet(i, EMPTY, WRITING)) {
+                    putKey(i, sign, k0, k1, k2, k3);
+                    // Publishes the key to readers
+                    slots.set(i, fingerprint);
+                    size.incrementAndGet();
+                    return true;
+                }
+                // Lost the slot, check who took it
+                used.decrementAndGet();
+                continue;
+            }
+            if (state == fingerprint && keyEquals(i, sign, k0, k1, k2, k3)) return false;
+            i = (i + 1) & mask;
+        }
+        throw new IllegalStateException("SpentSerialIndex full, capacity: " + capacity);
+    }
+
+    /**
+     * Marks the serial as not spent, e.g. when the block that spent it is disconnected.
+     * The slot is not reused until the index is restored from a snapshot.
+     *
+     * @return true if the serial was spent
+     */
+    public boolean unmarkSpent(BigInteger serial) {
+        byte[] key = toKey(serial);
+        byte sign = key[0];
+        long k0 = getLong(key, 1), k1 = getLong(key, 9), k2 = getLong(key, 17), k3 = getLong(key, 25);
+        long hash = hash(sign, k0, k1, k2, k3);
+        int fingerprint = fingerprint(hash);
+        for (int i = (int) hash & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            int state = awaitWritten(i);
+            if (state == EMPTY) return false;
+            if (state == fingerprint && keyEquals(i, sign, k0, k1, k2, k3)) {
+                if (slots.compareAndSet(i, fingerprint, REMOVED)) {
+                    size.decrementAndGet();
+                    return true;
+                }
+                // Removed concurrently
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Saves the index to the file, replacing it atomically. Serials marked while the snapshot is taken may not be included.
+     * Removed slots are not saved.
+     */
+    public void snapshot(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int saved = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * KEY_SIZE);
+            ByteBuffer imageKeys = slice(image, HEADER_SIZE, capacity * KEY_SIZE);
+            for (int i = 0; i < capacity; i++) {
+                int state = slots.get(i);
+                if (state >= 0) continue;
+                byte sign = keys.get(i * KEY_SIZE);
+                long k0 = keys.getLong(i * KEY_SIZE + 1), k1 = keys.getLong(i * KEY_SIZE + 9),
+                        k2 = keys.getLong(i * KEY_SIZE + 17), k3 = keys.getLong(i * KEY_SIZE + 25);
+                // Re inserted from scratch, the image is zeroed and a zero magnitude marks an empty slot
+                int slot = (int) hash(sign, k0, k1, k2, k3) & mask;
+                while (imageKeys.getLong(slot * KEY_SIZE + 1) != 0 || imageKeys.getLong(slot * KEY_SIZE + 9) != 0 ||
+                        imageKeys.getLong(slot * KEY_SIZE + 17) != 0 || imageKeys.getLong(slot * KEY_SIZE + 25) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                imageKeys.put(slot * KEY_SIZE, sign);
+                imageKeys.putLong(slot * KEY_SIZE + 1, k0);
+                imageKeys.putLong(slot * KEY_SIZE + 9, k1);
+                imageKeys.putLong(slot * KEY_SIZE + 17, k2);
+                imageKeys.putLong(slot * KEY_SIZE + 25, k3);
+                saved++;
+            }
+            image.putInt(0, MAGIC);
+            image.putInt(4, VERSION);
+            image.putInt(8, capacity);
+            image.putInt(12, saved);
+            image.putLong(16, seed);
+            image.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads an index saved with {@link #snapshot(Path)}. The file is mapped privately, changes made to the
+     * restored index are not written back to it.
+     */
+    public static SpentSerialIndex restore(Path file) throws IOException {
+        // A private mapping requires a writable channel, the file is not modified anyway
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) throw new IOException("Truncated SpentSerialIndex header");
+            }
+            ((Buffer) header).flip();
+            if (header.getInt() != MAGIC) throw new IOException("Not a SpentSerialIndex file: " + file);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported SpentSerialIndex version: " + version);
+            int capacity = header.getInt();
+            int size = header.getInt();
+            long seed = header.getLong();
+            if (capacity < 16 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+                throw new IOException("Invalid SpentSerialIndex capacity: " + capacity);
+            }
+            if (channel.size() != HEADER_SIZE + (long) capacity * KEY_SIZE) {
+                throw new IOException("Invalid SpentSerialIndex file size: " + channel.size());
+            }
+
+            MappedByteBuffer keys = channel.map(FileChannel.MapMode.PRIVATE, HEADER_SIZE, (long) capacity * KEY_SIZE);
+            SpentSerialIndex index = new SpentSerialIndex(capacity, seed, keys);
+            int found = 0;
+            for (int i = 0; i < capacity; i++) {
+                byte sign = keys.get(i * KEY_SIZE);
+                long k0 = keys.getLong(i * KEY_SIZE + 1), k1 = keys.getLong(i * KEY_SIZE + 9),
+                        k2 = keys.getLong(i * KEY_SIZE + 17), k3 = keys.getLong(i * KEY_SIZE + 25);
+                if (k0 == 0 && k1 == 0 && k2 == 0 && k3 == 0) continue;
+                if (sign != POSITIVE && sign != NEGATIVE) throw new IOException("Corrupted SpentSerialIndex, invalid key sign: " + sign);
+                index.slots.set(i, fingerprint(index.hash(sign, k0, k1, k2, k3)));
+                found++;
+            }
+            if (found != size) throw new IOException("Corrupted SpentSerialIndex, expected " + size + " serials, found " + found);
+            index.used.set(found);
+            index.size.set(found);
+            return index;
+        }
+    }
+
+    private int awaitWritten(int slot) {
+        int state;
+        while ((state = slots.get(slot)) == WRITING) {
+            // Another thread is copying the key, it's only a few stores away
+            Thread.yield();
+        }
+        return state;
+    }
+
+    private boolean keyEquals(int slot, byte sign, long k0, long k1, long k2, long k3) {
+        int offset = slot * KEY_SIZE;
+        return keys.get(offset) == sign &&
+                keys.getLong(offset + 1) == k0 &&
+                keys.getLong(offset + 9) == k1 &&
+                keys.getLong(offset + 17) == k2 &&
+                keys.getLong(offset + 25) == k3;
+    }
+
+    private void putKey(int slot, byte sign, long k0, long k1, long k2, long k3) {
+        int offset = slot * KEY_SIZE;
+        keys.put(offset, sign);
+        keys.putLong(offset + 1, k0);
+        keys.putLong(offset + 9, k1);
+        keys.putLong(offset + 17, k2);
+        keys.putLong(offset + 25, k3);
+    }
+
+    /**
+     * Seeded, so serials can't be ground to collide on a particular index.
+     */
+    private long hash(byte sign, long k0, long k1, long k2, long k3) {
+        long h = mix(seed ^ sign);
+        h = mix(h ^ k0);
+        h = mix(h ^ k1);
+        h = mix(h ^ k2);
+        return mix(h ^ k3);
+    }
+
+    private static int fingerprint(long hash) {
+        return (int) (hash >>> 32) | 0x80000000;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void checkKey(byte[] key) {
+        if (key.length != KEY_SIZE) throw new IllegalArgumentException("Key must have " + KEY_SIZE + " bytes");
+        if (key[0] != POSITIVE && key[0] != NEGATIVE) throw new IllegalArgumentException("Invalid key sign " + key[0]);
+        // A zero magnitude marks empty slots on snapshots, it's the zero serial anyway
+        for (int i = 1; i < KEY_SIZE; i++) {
+            if (key[i] != 0) return;
+        }
+        throw new IllegalArgumentException("Invalid zero key");
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        ((Buffer) duplicate).position(offset);
+        ((Buffer) duplicate).limit(offset + length);
+        return duplicate.slice();
+    }
+}
@@ -0,0 +1,220 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.store;
+
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.ZeroCoin;
+import org.pivxj.core.Sha256Hash;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index of the wallet coins of a {@link ZeroCoinFile} to select coins without loading them.
+ *
+ * Keeps one off-heap column per field: denomination, mint height, spent flag and the commitment value hash.
+ * Row {@code i} is the coin {@code i} of the file (so its file position is {@link ZeroCoinFile#offset(int)}),
+ * queries scan the columns and only the chosen coins are decoded.
+ *
+ * Height 0 means the mint is not confirmed yet. Coins are mature when their height is at or below the height
+ * given to the queries, usually the chain tip minus the required confirmations.
+ *
+ * Changes go through the index, which writes them to the file. Not thread safe.
+ */
+public class WalletCoinIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int HASH_SIZE = 32;
+    private static final CoinDenomination[] DENOMINATIONS = CoinDenomination.values();
+
+    private final ZeroCoinFile file;
+    private final byte[] commitment;
+
+    // CoinDenomination ordinal
+    private ByteBuffer denominations;
+    private ByteBuffer heights;
+    // 1 if spent
+    private ByteBuffer spent;
+    private ByteBuffer commitmentHashes;
+    private int capacity;
+    private int size;
+
+    /**
+     * Builds the index from the file records, without decoding the coins.
+     */
+    public WalletCoinIndex(ZeroCoinFile file) {
+        this.file = file;
+        this.commitment = new byte[file.getCodec().getCommitmentSize()];
+        allocate(Math.max(INITIAL_CAPACITY, file.size()));
+        for (int i = 0; i < file.size(); i++) {
+            add(i);
+        }
+    }
+
+    public ZeroCoinFile getFile() {
+        return file;
+    }
+
+    /**
+     * @return amount of coins, spent included
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the coin to the file and the index.
+     *
+     * @return the coin index
+     */
+    public int append(ZeroCoin coin) throws IOException {
+        int index = file.append(coin);
+        add(index);
+        return index;
+    }
+
+    /**
+     * Replaces the coin at the given index, e.g. once the mint is confirmed. The spent flag is kept.
+     */
+    public void update(int index, ZeroCoin coin) {
+        file.set(index, coin);
+        load(index, file.record(index));
+    }
+
+    public void setSpent(int index, boolean spent) {
+        file.setSpent(index, spent);
+        this.spent.put(checkIndex(index), (byte) (spent ? 1 : 0));
+    }
+
+    public ZeroCoin get(int index) {
+        return file.get(checkIndex(index));
+    }
+
+    public CoinDenomination getDenomination(int index) {
+        return DENOMINATIONS[denominations.get(checkIndex(index))];
+    }
+
+    public int getHeight(int index) {
+        return heights.getInt(checkIndex(index) * 4);
+    }
+
+    public boolean isSpent(int index) {
+        return spent.get(checkIndex(index)) != 0;
+    }
+
+    /**
+     * @return the index of the coin with the given commitment value, -1 if it's not in the wallet
+     */
+    public int indexOf(BigInteger commitmentValue) {
+        byte[] hash = Sha256Hash.hash(file.getCodec().commitment(commitmentValue));
+        long prefix = ByteBuffer.wrap(hash).getLong();
+        for (int i = 0; i < size; i++) {
+            int offset = i * HASH_SIZE;
+            if (commitmentHashes.getLong(offset) == prefix && hashEquals(offset, hash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return amount of unspent mature coins of the denomination
+     */
+    public int count(CoinDenomination denomination, int maxHeight) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (isSpendable(i, denomination.ordinal(), maxHeight)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Selects unspent mature coins of the denomination, in file order.
+     *
+     * @param amount coins wanted
+     * @param maxHeight mint height limit, coins above it are not mature
+     * @return indexes of the selected coins, less than the amount if there are not enough
+     */
+    public int[] select(CoinDenomination denomination, int amount, int maxHeight) {
+        int[] selected = new int[amount];
+        int found = 0;
+        for (int i = 0; i < size && found < amount; i++) {
+            if (isSpendable(i, denomination.ordinal(), maxHeight)) {
+                selected[found++] = i;
+            }
+        }
+        return found == amount ? selected : Arrays.copyOf(selected, found);
+    }
+
+    /**
+     * {@link #select(CoinDenomination, int, int)} loading the selected coins.
+     */
+    public List<ZeroCoin> selectCoins(CoinDenomination denomination, int amount, int maxHeight) {
+        int[] selected = select(denomination, amount, maxHeight);
+        List<ZeroCoin> coins = new ArrayList<>(selected.length);
+        for (int index : selected) {
+            coins.add(file.get(index));
+        }
+        return coins;
+    }
+
+    private boolean isSpendable(int index, int denomination, int maxHeight) {
+        if (denominations.get(index) != denomination || spent.get(index) != 0) return false;
+        int height = heights.getInt(index * 4);
+        return height > 0 && height <= maxHeight;
+    }
+
+    private void add(int index) {
+        if (index == capacity) {
+            allocate(capacity * 2);
+        }
+        size = index + 1;
+        load(index, file.record(index));
+    }
+
+    private void load(int index, ByteBuffer record) {
+        denominations.put(index, (byte) ZeroCoinCodec.denomination(record).ordinal());
+        heights.putInt(index * 4, ZeroCoinCodec.height(record));
+        spent.put(index, (byte) ((ZeroCoinCodec.flags(record) & ZeroCoinCodec.FLAG_SPENT) != 0 ? 1 : 0));
+        file.getCodec().commitment(record, commitment);
+        ((Buffer) commitmentHashes).position(index * HASH_SIZE);
+        commitmentHashes.put(Sha256Hash.hash(commitment));
+    }
+
+    private void allocate(int capacity) {
+        denominations = grow(denominations, capacity);
+        heights = grow(heights, capacity * 4);
+        spent = grow(spent, capacity);
+        commitmentHashes = grow(commitmentHashes, capacity * HASH_SIZE);
+        this.capacity = capacity;
+    }
+
+    private static ByteBuffer grow(ByteBuffer column, int bytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(bytes);
+        if (column != null) {
+            ((Buffer) column).clear();
+            grown.put(column);
+            ((Buffer) grown).clear();
+        }
+        return grown;
+    }
+
+    private boolean hashEquals(int offset, byte[] hash) {
+        for (int i = 0; i < HASH_SIZE; i++) {
+            if (commitmentHashes.get(offset + i) != hash[i]) return false;
+        }
+        return true;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        return index;
+    }
+}
@@ -0,0 +1,243 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.store;
+
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.Commitment;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.context.ZerocoinContext;
+import org.pivxj.core.ECKey;
+import org.pivxj.core.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed size binary record of a wallet {@link ZeroCoin}, the storage counterpart of
+ * {@link ZeroCoin#toJsonString()} without the hex, base58 and json parsing.
+ *
+ * Record layout, big endian:
+ * <pre>
+ *   version        1
+ *   flags          1   HAS_TX, HAS_KEY, HAS_PRIV_KEY, SPENT
+ *   denomination   4
+ *   height         4
+ *   serial         32
+ *   randomness     coin commitment group order size
+ *   commitment     coin commitment group modulus size
+ *   parent tx id   32
+ *   private key    32
+ *   public key     1 + 65, length and the encoded point
+ *   key creation   8, seconds
+ * </pre>
+ * Numbers are unsigned and left padded with zeros. The public key is stored along the private key so loading a
+ * coin doesn't have to derive it.
+ */
+public class ZeroCoinCodec {
+
+    public static final int FLAG_HAS_TX = 1;
+    public static final int FLAG_HAS_KEY = 1 << 1;
+    public static final int FLAG_HAS_PRIV_KEY = 1 << 2;
+    // Wallet state, kept by ZeroCoinFile, not part of the coin
+    public static final int FLAG_SPENT = 1 << 3;
+
+    public static final int SERIAL_SIZE = 32;
+    private static final int HASH_SIZE = 32;
+    private static final int PRIV_KEY_SIZE = 32;
+    private static final int MAX_PUB_KEY_SIZE = 65;
+
+    // Offsets of the fields read in place
+    static final int FLAGS_OFFSET = 1;
+    static final int DENOMINATION_OFFSET = 2;
+    static final int HEIGHT_OFFSET = 6;
+    private static final int SERIAL_OFFSET = 10;
+
+    private final ZerocoinContext context;
+    private final int randomnessSize;
+    private final int commitmentSize;
+    private final int recordSize;
+
+    public ZeroCoinCodec(ZerocoinContext context) {
+        this.context = context;
+        this.randomnessSize = sizeOf(context.getCoinCommitmentGroup().getGroupOrder());
+        this.commitmentSize = sizeOf(context.getCoinCommitmentGroup().getModulus());
+        this.recordSize = SERIAL_OFFSET + SERIAL_SIZE + randomnessSize + commitmentSize + HASH_SIZE + PRIV_KEY_SIZE + 1 + MAX_PUB_KEY_SIZE + 8;
+    }
+
+    public ZerocoinContext getContext() {
+        return context;
+    }
+
+    public int getRandomnessSize() {
+        return randomnessSize;
+    }
+
+    public int getCommitmentSize() {
+        return commitmentSize;
+    }
+
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Writes the coin record at the buffer position, advancing it.
+     *
+     * @throws IllegalArgumentException if a coin number doesn't fit in the record
+     */
+    public void write(ZeroCoin coin, ByteBuffer buffer) {
+        if (buffer.remaining() < recordSize) throw new IllegalArgumentException("Not enough space for the record, remaining: " + buffer.remaining());
+        ECKey key = coin.getKeyPair();
+        Sha256Hash parentTxId = coin.getParentTxId();
+        int flags = 0;
+        if (parentTxId != null) flags |= FLAG_HAS_TX;
+        if (key != null) flags |= FLAG_HAS_KEY;
+        if (key != null && key.hasPrivKey()) flags |= FLAG_HAS_PRIV_KEY;
+
+        buffer.put((byte) coin.getVersion());
+        buffer.put((byte) flags);
+        buffer.putInt(coin.getCoinDenomination().getDenomination());
+        buffer.putInt(coin.getHeight());
+        putNumber(buffer, coin.getSerial(), SERIAL_SIZE);
+        putNumber(buffer, coin.getCommitment().getRandomness(), randomnessSize);
+        putNumber(buffer, coin.getCommitment().getCommitmentValue(), commitmentSize);
+        if (parentTxId != null) {
+            buffer.put(parentTxId.getBytes());
+        } else {
+            putZeros(buffer, HASH_SIZE);
+        }
+        if ((flags & FLAG_HAS_PRIV_KEY) != 0) {
+            putNumber(buffer, key.getPrivKey(), PRIV_KEY_SIZE);
+        } else {
+            putZeros(buffer, PRIV_KEY_SIZE);
+        }
+        if (key != null) {
+            byte[] pubKey = key.getPubKey();
+            buffer.put((byte) pubKey.length);
+            buffer.put(pubKey);
+            putZeros(buffer, MAX_PUB_KEY_SIZE - pubKey.length);
+            buffer.putLong(key.getCreationTimeSeconds());
+        } else {
+            putZeros(buffer, 1 + MAX_PUB_KEY_SIZE + 8);
+        }
+    }
+
+    /**
+     * Reads the coin record at the buffer position, advancing it.
+     *
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public ZeroCoin read(ByteBuffer buffer) {
+        if (buffer.remaining() < recordSize) throw new IllegalArgumentException("Truncated record, remaining: " + buffer.remaining());
+        int version = buffer.get() & 0xff;
+        int flags = buffer.get() & 0xff;
+        CoinDenomination denomination = CoinDenomination.fromValue(buffer.getInt());
+        int height = buffer.getInt();
+        BigInteger serial = getNumber(buffer, SERIAL_SIZE);
+        BigInteger randomness = getNumber(buffer, randomnessSize);
+        BigInteger commitmentValue = getNumber(buffer, commitmentSize);
+        Sha256Hash parentTxId = null;
+        if ((flags & FLAG_HAS_TX) != 0) {
+            byte[] hash = new byte[HASH_SIZE];
+            buffer.get(hash);
+            parentTxId = Sha256Hash.wrap(hash);
+        } else {
+            skip(buffer, HASH_SIZE);
+        }
+        byte[] privKey = null;
+        if ((flags & FLAG_HAS_PRIV_KEY) != 0) {
+            privKey = new byte[PRIV_KEY_SIZE];
+            buffer.get(privKey);
+        } else {
+            skip(buffer, PRIV_KEY_SIZE);
+        }
+        ECKey key = null;
+        int pubKeyLength = buffer.get() & 0xff;
+        if ((flags & FLAG_HAS_KEY) != 0) {
+            if (pubKeyLength == 0 || pubKeyLength > MAX_PUB_KEY_SIZE) throw new IllegalArgumentException("Invalid public key length " + pubKeyLength);
+            byte[] pubKey = new byte[pubKeyLength];
+            buffer.get(pubKey);
+            skip(buffer, MAX_PUB_KEY_SIZE - pubKeyLength);
+            key = privKey != null ? ECKey.fromPrivateAndPrecalculatedPublic(privKey, pubKey) : ECKey.fromPublicOnly(pubKey);
+            key.setCreationTimeSeconds(buffer.getLong());
+        } else {
+            skip(buffer, MAX_PUB_KEY_SIZE + 8);
+        }
+
+        ZeroCoin coin = new ZeroCoin(context, serial, new Commitment(serial, commitmentValue, randomness), denomination, key);
+        coin.setVersion(version);
+        coin.setHeight(height);
+        coin.setParentTxId(parentTxId);
+        return coin;
+    }
+
+    // In place accessors, the record is the one at the buffer position
+
+    static int flags(ByteBuffer record) {
+        return record.get(record.position() + FLAGS_OFFSET) & 0xff;
+    }
+
+    static void setFlags(ByteBuffer record, int flags) {
+        record.put(record.position() + FLAGS_OFFSET, (byte) flags);
+    }
+
+    static CoinDenomination denomination(ByteBuffer record) {
+        return CoinDenomination.fromValue(record.getInt(record.position() + DENOMINATION_OFFSET));
+    }
+
+    static int height(ByteBuffer record) {
+        return record.getInt(record.position() + HEIGHT_OFFSET);
+    }
+
+    /**
+     * Copies the record commitment value, left padded to {@link #getCommitmentSize()} bytes.
+     */
+    void commitment(ByteBuffer record, byte[] commitment) {
+        ByteBuffer source = record.duplicate();
+        ((Buffer) source).position(record.position() + SERIAL_OFFSET + SERIAL_SIZE + randomnessSize);
+        source.get(commitment, 0, commitmentSize);
+    }
+
+    /**
+     * @return the commitment value as stored in the records
+     */
+    byte[] commitment(BigInteger commitmentValue) {
+        ByteBuffer buffer = ByteBuffer.allocate(commitmentSize);
+        putNumber(buffer, commitmentValue, commitmentSize);
+        return buffer.array();
+    }
+
+    private static int sizeOf(BigInteger max) {
+        return (max.bitLength() + 7) / 8;
+    }
+
+    private static void putNumber(ByteBuffer buffer, BigInteger value, int size) {
+        if (value.signum() < 0 || value.bitLength() > size * 8) {
+            throw new IllegalArgumentException("Number doesn't fit in " + size + " bytes: " + value.toString(16));
+        }
+        byte[] bytes = value.toByteArray();
+        // toByteArray adds a sign byte when the most significant bit is set
+        int start = bytes.length > size ? 1 : 0;
+        putZeros(buffer, size - (bytes.length - start));
+        buffer.put(bytes, start, bytes.length - start);
+    }
+
+    private static BigInteger getNumber(ByteBuffer buffer, int size) {
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return new BigInteger(1, bytes);
+    }
+
+    private static void putZeros(ByteBuffer buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        ((Buffer) buffer).position(buffer.position() + length);
+    }
+}
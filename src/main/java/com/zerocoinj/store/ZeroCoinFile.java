@@ -0,0 +1,247 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.store;
+
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.context.ZerocoinContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Wallet coins file, a header followed by fixed size {@link ZeroCoinCodec} records.
+ *
+ * {@link #writeAll(Path, ZerocoinContext, Collection)} and {@link #readAll(Path, ZerocoinContext)} save and load the
+ * whole wallet in one go. {@link #open(Path, ZerocoinContext)} maps the file instead, coins are decoded by index on
+ * demand and appended or updated in place, growing the file when needed.
+ *
+ * Json ({@link ZeroCoin#toJsonString()}) is still the import/export format.
+ *
+ * Not thread safe.
+ */
+public class ZeroCoinFile implements Closeable {
+
+    private static final int MAGIC = 0x5a434f4e; // "ZCON"
+    private static final int VERSION = 1;
+    // magic, version, randomness size, commitment size, record size, count
+    static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 4 + 4;
+    private static final int COUNT_OFFSET = 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Records written per buffer on bulk writes
+    private static final int WRITE_BATCH = 256;
+
+    private final ZeroCoinCodec codec;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int count;
+
+    private ZeroCoinFile(ZeroCoinCodec codec, FileChannel channel, int capacity, int count) throws IOException {
+        this.codec = codec;
+        this.channel = channel;
+        this.count = count;
+        map(capacity);
+    }
+
+    /**
+     * Opens the coins file, creating it if it doesn't exist.
+     */
+    public static ZeroCoinFile open(Path file, ZerocoinContext context) throws IOException {
+        ZeroCoinCodec codec = new ZeroCoinCodec(context);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ZeroCoinFile coinFile = new ZeroCoinFile(codec, channel, INITIAL_CAPACITY, 0);
+                writeHeader(coinFile.map, codec, 0);
+                return coinFile;
+            }
+            int count = readHeader(channel, codec, file);
+            int capacity = (int) ((channel.size() - HEADER_SIZE) / codec.getRecordSize());
+            return new ZeroCoinFile(codec, channel, Math.max(capacity, count), count);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the coins to the file, replacing it atomically.
+     */
+    public static void writeAll(Path file, ZerocoinContext context, Collection<ZeroCoin> coins) throws IOException {
+        ZeroCoinCodec codec = new ZeroCoinCodec(context);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(HEADER_SIZE, WRITE_BATCH * codec.getRecordSize()));
+            writeHeader(buffer, codec, coins.size());
+            ((Buffer) buffer).position(HEADER_SIZE);
+            for (ZeroCoin coin : coins) {
+                if (buffer.remaining() < codec.getRecordSize()) {
+                    flush(channel, buffer);
+                }
+                codec.write(coin, buffer);
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return every coin of the file
+     */
+    public static List<ZeroCoin> readAll(Path file, ZerocoinContext context) throws IOException {
+        ZeroCoinCodec codec = new ZeroCoinCodec(context);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int count = readHeader(channel, codec, file);
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) count * codec.getRecordSize());
+            List<ZeroCoin> coins = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                coins.add(codec.read(records));
+            }
+            return coins;
+        }
+    }
+
+    public ZeroCoinCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return amount of coins
+     */
+    public int size() {
+        return count;
+    }
+
+    public ZeroCoin get(int index) {
+        return codec.read(record(index));
+    }
+
+    /**
+     * Replaces the coin at the given index, keeping its spent flag.
+     */
+    public void set(int index, ZeroCoin coin) {
+        ByteBuffer record = record(index);
+        int spent = ZeroCoinCodec.flags(record) & ZeroCoinCodec.FLAG_SPENT;
+        codec.write(coin, record.duplicate());
+        ZeroCoinCodec.setFlags(record, ZeroCoinCodec.flags(record) | spent);
+    }
+
+    public boolean isSpent(int index) {
+        return (ZeroCoinCodec.flags(record(index)) & ZeroCoinCodec.FLAG_SPENT) != 0;
+    }
+
+    public void setSpent(int index, boolean spent) {
+        ByteBuffer record = record(index);
+        int flags = ZeroCoinCodec.flags(record);
+        ZeroCoinCodec.setFlags(record, spent ? flags | ZeroCoinCodec.FLAG_SPENT : flags & ~ZeroCoinCodec.FLAG_SPENT);
+    }
+
+    /**
+     * @return the index of the appended coin
+     */
+    public int append(ZeroCoin coin) throws IOException {
+        if (count == capacity) {
+            // Files written by writeAll have no spare capacity, an empty one none at all
+            long grown = Math.min(Math.max((long) capacity * 2, INITIAL_CAPACITY), (Integer.MAX_VALUE - HEADER_SIZE) / codec.getRecordSize());
+            if (grown <= capacity) throw new IllegalStateException("ZeroCoinFile is full, " + capacity + " coins");
+            map((int) grown);
+        }
+        ByteBuffer record = map.duplicate();
+        ((Buffer) record).position((int) offset(count));
+        codec.write(coin, record);
+        map.putInt(COUNT_OFFSET, ++count);
+        return count - 1;
+    }
+
+    /**
+     * @return the file position of the coin record
+     */
+    public long offset(int index) {
+        return HEADER_SIZE + (long) index * codec.getRecordSize();
+    }
+
+    /**
+     * Record of the coin at the given index, positioned at its start. Shares the content with the file.
+     */
+    ByteBuffer record(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+        ByteBuffer record = map.duplicate();
+        ((Buffer) record).position((int) offset(index));
+        ((Buffer) record).limit(record.position() + codec.getRecordSize());
+        return record;
+    }
+
+    /**
+     * Writes the changes to the storage device.
+     */
+    public void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void map(int capacity) throws IOException {
+        // Mapping beyond the end extends the file
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(capacity));
+        this.capacity = capacity;
+    }
+
+    private static void writeHeader(ByteBuffer buffer, ZeroCoinCodec codec, int count) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, codec.getRandomnessSize());
+        buffer.putInt(12, codec.getCommitmentSize());
+        buffer.putInt(16, codec.getRecordSize());
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    /**
+     * @return amount of coins
+     */
+    private static int readHeader(FileChannel channel, ZeroCoinCodec codec, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) throw new IOException("Truncated ZeroCoinFile header");
+        }
+        ((Buffer) header).flip();
+        if (header.getInt() != MAGIC) throw new IOException("Not a ZeroCoinFile: " + file);
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported ZeroCoinFile version: " + version);
+        if (header.getInt() != codec.getRandomnessSize() || header.getInt() != codec.getCommitmentSize() || header.getInt() != codec.getRecordSize()) {
+            throw new IOException("ZeroCoinFile created with other zerocoin parameters: " + file);
+        }
+        int count = header.getInt();
+        if (count < 0 || channel.size() < HEADER_SIZE + (long) count * codec.getRecordSize()) {
+            throw new IOException("Invalid ZeroCoinFile size: " + channel.size() + ", coins: " + count);
+        }
+        return count;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+}
@@ -0,0 +1,177 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.utils;
+
+import org.pivxj.core.ProtocolException;
+import org.pivxj.core.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the zerocoin wire format straight from a {@link ByteBuffer} (heap, direct or a mapped file slice).
+ *
+ * Unlike the pivxj {@code Message} cursor, which copies every number out of the payload, reverses it and
+ * decodes it from a third array, bignums are copied once into a scratch array kept per length and the
+ * {@link BigInteger} is built from it. Reuse the reader through {@link #reset(ByteBuffer)} on bulk scans.
+ *
+ * Not thread safe.
+ */
+public class ByteBufferReader {
+
+    // Longer numbers are not cached (zerocoin numbers are at most a few hundred bytes)
+    private static final int MAX_SCRATCH_LENGTH = 1024;
+
+    private ByteBuffer buffer;
+    // Big endian magnitude scratch, indexed by length. Created on the first bignum read
+    private byte[][] scratch;
+
+    /**
+     * Reads the buffer remaining bytes, the buffer position is not modified.
+     */
+    public ByteBufferReader(ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Starts reading another buffer, keeping the scratch arrays.
+     */
+    public ByteBufferReader reset(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        return this;
+    }
+
+    /**
+     * @return amount of bytes read
+     */
+    public int position() {
+        return buffer.position();
+    }
+
+    public void position(int position) {
+        ((Buffer) buffer).position(position);
+    }
+
+    /**
+     * @return the bytes between the given positions, sharing the content with the read buffer
+     */
+    public ByteBuffer slice(int from, int to) {
+        ByteBuffer duplicate = buffer.duplicate();
+        ((Buffer) duplicate).limit(to).position(from);
+        return duplicate.slice();
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    public long readUint32() {
+        require(4);
+        return buffer.getInt() & 0xffffffffL;
+    }
+
+    public long readVarInt() {
+        require(1);
+        int first = buffer.get() & 0xff;
+        switch (first) {
+            case 0xfd:
+                require(2);
+                return buffer.getShort() & 0xffff;
+            case 0xfe:
+                require(4);
+                return buffer.getInt() & 0xffffffffL;
+            case 0xff:
+                require(8);
+                return buffer.getLong();
+            default:
+                return first;
+        }
+    }
+
+    public byte[] readBytes(int length) {
+        require(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public byte[] readByteArray() {
+        return readBytes(readLength());
+    }
+
+    public Sha256Hash readHash() {
+        return Sha256Hash.wrapReversed(readBytes(32));
+    }
+
+    /**
+     * Reads a bignum serialized as {@link ZUtils#serializeBigInteger(BigInteger)} does,
+     * a var int length followed by the little endian MPI.
+     */
+    public BigInteger readBignum() {
+        int length = readLength();
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+        require(length);
+        byte[] magnitude = scratch(length);
+        buffer.get(magnitude);
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            byte tmp = magnitude[i];
+            magnitude[i] = magnitude[j];
+            magnitude[j] = tmp;
+        }
+        // The MPI sign is the most significant bit
+        boolean negative = (magnitude[0] & 0x80) != 0;
+        magnitude[0] &= 0x7f;
+        return new BigInteger(negative ? -1 : 1, magnitude);
+    }
+
+    public void skipBignum() {
+        skip(readLength());
+    }
+
+    public void skipByteArray() {
+        skip(readLength());
+    }
+
+    public void skip(int length) {
+        require(length);
+        ((Buffer) buffer).position(buffer.position() + length);
+    }
+
+    private int readLength() {
+        long length = readVarInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new ProtocolException("Invalid length " + length + ", remaining bytes: " + buffer.remaining());
+        }
+        return (int) length;
+    }
+
+    private byte[] scratch(int length) {
+        if (length > MAX_SCRATCH_LENGTH) {
+            return new byte[length];
+        }
+        if (scratch == null) {
+            scratch = new byte[MAX_SCRATCH_LENGTH + 1][];
+        }
+        byte[] bytes = scratch[length];
+        if (bytes == null) {
+            bytes = scratch[length] = new byte[length];
+        }
+        return bytes;
+    }
+
+    private void require(int length) {
+        if (buffer.remaining() < length) {
+            throw new ProtocolException("Attempted to read past the end of the buffer, needed: " + length + ", remaining: " + buffer.remaining());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.utils;
+
+import org.pivxj.core.Sha256Hash;
+import org.pivxj.core.VarInt;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the zerocoin wire format straight into a {@link ByteBuffer}, the counterpart of {@link ByteBufferReader}.
+ *
+ * Meant to be used with the serialized size computed up front (see the {@code getSerializedSize} methods), so the
+ * whole message is written in a single pass into one buffer. Numbers are written reversed directly from
+ * {@link BigInteger#toByteArray()}, without the intermediate MPI, reversed copy and {@link VarInt} instances of
+ * {@link ZUtils#serializeBigInteger(java.io.OutputStream, BigInteger)}, the output is the same.
+ *
+ * Writes start at the buffer position and advance it.
+ */
+public class ByteBufferWriter {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferWriter(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public ByteBufferWriter writeUint32(long value) {
+        buffer.put((byte) value);
+        buffer.put((byte) (value >>> 8));
+        buffer.put((byte) (value >>> 16));
+        buffer.put((byte) (value >>> 24));
+        return this;
+    }
+
+    public ByteBufferWriter writeVarInt(long value) {
+        if (value >= 0 && value < 0xfd) {
+            buffer.put((byte) value);
+        } else if (value >= 0 && value <= 0xffff) {
+            buffer.put((byte) 0xfd);
+            buffer.put((byte) value);
+            buffer.put((byte) (value >>> 8));
+        } else if (value >= 0 && value <= 0xffffffffL) {
+            buffer.put((byte) 0xfe);
+            writeUint32(value);
+        } else {
+            buffer.put((byte) 0xff);
+            for (int i = 0; i < 8; i++) {
+                buffer.put((byte) (value >>> (8 * i)));
+            }
+        }
+        return this;
+    }
+
+    public ByteBufferWriter writeBytes(byte[] bytes) {
+        buffer.put(bytes);
+        return this;
+    }
+
+    /**
+     * Var int length followed by the bytes.
+     */
+    public ByteBufferWriter writeByteArray(byte[] bytes) {
+        writeVarInt(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    /**
+     * Hash bytes reversed, as {@link Sha256Hash#getReversedBytes()}.
+     */
+    public ByteBufferWriter writeHash(Sha256Hash hash) {
+        byte[] bytes = hash.getBytes();
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            buffer.put(bytes[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Var int length followed by the little endian MPI, as {@link ZUtils#serializeBigInteger(java.io.OutputStream, BigInteger)}.
+     */
+    public ByteBufferWriter writeBignum(BigInteger value) {
+        if (value.signum() == 0) {
+            buffer.put((byte) 0);
+            return this;
+        }
+        boolean negative = value.signum() < 0;
+        // Positive two's complement, so the most significant bit is free for the MPI sign
+        byte[] magnitude = (negative ? value.negate() : value).toByteArray();
+        writeVarInt(magnitude.length);
+        for (int i = magnitude.length - 1; i > 0; i--) {
+            buffer.put(magnitude[i]);
+        }
+        buffer.put(negative ? (byte) (magnitude[0] | 0x80) : magnitude[0]);
+        return this;
+    }
+
+    public static int varIntSize(long value) {
+        return VarInt.sizeOf(value);
+    }
+
+    public static int byteArraySize(byte[] bytes) {
+        return VarInt.sizeOf(bytes.length) + bytes.length;
+    }
+
+    /**
+     * @return bytes written by {@link #writeBignum(BigInteger)}
+     */
+    public static int bignumSize(BigInteger value) {
+        if (value.signum() == 0) {
+            return 1;
+        }
+        int length = (value.signum() < 0 ? value.negate() : value).bitLength() / 8 + 1;
+        return VarInt.sizeOf(length) + length;
+    }
+}
@@ -4,12 +4,68 @@
 
 package com.zerocoinj.utils;
 
+import org.pivxj.core.Utils;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
 public interface JniBridgeWrapper {
 
+    /**
+     * Max bytes written by {@link #compute1024seed(ByteBuffer, ByteBuffer)}: 4 hashes of up to 33 bytes
+     * and the var int length.
+     */
+    int EXPANDED_SEED_SIZE = 4 * 33 + 1;
+
     // Compute seed
     byte[] compute1024seed(byte[] seed);
 
+    /**
+     * {@link #compute1024seed(byte[])} over caller owned buffers, without per call arrays when they are direct.
+     * Numbers are serialized as {@link ByteBufferWriter#writeBignum(BigInteger)} does.
+     *
+     * @param seed the seed is read from its remaining bytes, its position is not modified
+     * @param out the result is written at its position, which is advanced
+     */
+    default void compute1024seed(ByteBuffer seed, ByteBuffer out) {
+        BigInteger value = new ByteBufferReader(seed).readBignum();
+        byte[] result = compute1024seed(Utils.reverseBytes(Utils.encodeMPI(value, false)));
+        new ByteBufferWriter(out).writeBignum(Utils.decodeMPI(Utils.reverseBytes(result), false));
+    }
+
     //
     String computeVSeedAndVExpanded();
 
+    /**
+     * @return true if {@link #verifySerialNumberSoK} and {@link #verifyAccumulatorPoK} are implemented
+     */
+    default boolean canVerifyProofs() {
+        return false;
+    }
+
+    /**
+     * Verifies a serial number signature of knowledge in one call. Numbers are serialized as
+     * {@link ByteBufferWriter#writeBignum(BigInteger)} does.
+     *
+     * @param params the serialized ZerocoinContext
+     * @param proof the serialized signature
+     * @param msghash the 32 bytes of the signed hash, in serialized order
+     * @return false if the signature is not valid or any of the arguments is malformed
+     */
+    default boolean verifySerialNumberSoK(byte[] params, byte[] proof, byte[] coinSerialNumber, byte[] valueOfCommitmentToCoin, byte[] msghash) {
+        throw new UnsupportedOperationException("Proof verification not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Verifies an accumulator proof of knowledge in one call. Numbers are serialized as
+     * {@link ByteBufferWriter#writeBignum(BigInteger)} does.
+     *
+     * @param params the serialized AccumulatorAndProofParams
+     * @param proof the serialized proof
+     * @return false if the proof is not valid or any of the arguments is malformed
+     */
+    default boolean verifyAccumulatorPoK(byte[] params, byte[] proof, byte[] accumulatorValue, byte[] valueOfCommitmentToCoin) {
+        throw new UnsupportedOperationException("Proof verification not supported by " + getClass().getSimpleName());
+    }
+
 }
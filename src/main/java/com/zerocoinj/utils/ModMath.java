@@ -0,0 +1,52 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.utils;
+
+import com.zerocoinj.metrics.ModProfiler;
+import com.zerocoinj.metrics.ModProfiler.Operation;
+
+import java.math.BigInteger;
+
+/**
+ * Modular arithmetic of the proofs. Plain {@link BigInteger} calls, measured by the {@link ModProfiler} when enabled.
+ */
+public final class ModMath {
+
+    private ModMath() {
+    }
+
+    /**
+     * @return base^exponent mod modulus
+     */
+    public static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        if (!ModProfiler.isEnabled()) return base.modPow(exponent, modulus);
+        long start = System.nanoTime();
+        BigInteger result = base.modPow(exponent, modulus);
+        ModProfiler.record(Operation.MOD_POW, modulus, exponent.bitLength(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @return value^-1 mod modulus
+     */
+    public static BigInteger modInverse(BigInteger value, BigInteger modulus) {
+        if (!ModProfiler.isEnabled()) return value.modInverse(modulus);
+        long start = System.nanoTime();
+        BigInteger result = value.modInverse(modulus);
+        ModProfiler.record(Operation.MOD_INVERSE, modulus, 0, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @return value mod modulus
+     */
+    public static BigInteger mod(BigInteger value, BigInteger modulus) {
+        if (!ModProfiler.isEnabled()) return value.mod(modulus);
+        long start = System.nanoTime();
+        BigInteger result = value.mod(modulus);
+        ModProfiler.record(Operation.MOD, modulus, 0, System.nanoTime() - start);
+        return result;
+    }
+}
@@ -13,6 +13,7 @@ import org.spongycastle.util.encoders.Hex;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.security.SecureRandom;
 
 public class ZUtils {
 
@@ -45,11 +46,15 @@ public class ZUtils {
     }
 
     public static BigInteger random(BigInteger max){
-        return BigIntegers.createRandomInRange(BigInteger.ZERO, max, ZerocoinContext.getSecureRandom());
+        return random(max, ZerocoinContext.getSecureRandom());
+    }
+
+    public static BigInteger random(BigInteger max, SecureRandom random){
+        return BigIntegers.createRandomInRange(BigInteger.ZERO, max, random);
     }
 
     public static BigInteger mul_mod(BigInteger one, BigInteger two, BigInteger mod){
-        return one.multiply(two).mod(mod);
+        return ModMath.mod(one.multiply(two), mod);
     }
 
     public static boolean isLessThan(BigInteger one, BigInteger two){
@@ -6,14 +6,13 @@
 #ifndef BITCOIN_ALLOCATORS_H
 #define BITCOIN_ALLOCATORS_H
 
+#include <cassert>
 #include <map>
+#include <mutex>
 #include <string.h>
 #include <string>
 #include <vector>
 
-#include <boost/thread/mutex.hpp>
-#include <boost/thread/once.hpp>
-
 #include <openssl/crypto.h> // for OPENSSL_cleanse()
 
 /**
@@ -46,7 +45,7 @@ public:
     // For all pages in affected range, increase lock count
     void LockRange(void* p, size_t size)
     {
-        boost::mutex::scoped_lock lock(mutex);
+        std::lock_guard<std::mutex> lock(mutex);
         if (!size)
             return;
         const size_t base_addr = reinterpret_cast<size_t>(p);
@@ -68,7 +67,7 @@ public:
     // For all pages in affected range, decrease lock count
     void UnlockRange(void* p, size_t size)
     {
-        boost::mutex::scoped_lock lock(mutex);
+        std::lock_guard<std::mutex> lock(mutex);
         if (!size)
             return;
         const size_t base_addr = reinterpret_cast<size_t>(p);
@@ -91,13 +90,13 @@ public:
     // Get number of locked pages for diagnostics
     int GetLockedPageCount()
     {
-        boost::mutex::scoped_lock lock(mutex);
+        std::lock_guard<std::mutex> lock(mutex);
         return histogram.size();
     }
 
 private:
     Locker locker;
-    boost::mutex mutex;
+    std::mutex mutex;
     size_t page_size, page_mask;
     // map of page base address to lock count
     typedef std::map<size_t, int> Histogram;
@@ -138,7 +137,7 @@ class LockedPageManager : public LockedPageManagerBase<MemoryPageLocker>
 public:
     static LockedPageManager& Instance()
     {
-        boost::call_once(LockedPageManager::CreateInstance, LockedPageManager::init_flag);
+        std::call_once(LockedPageManager::init_flag, LockedPageManager::CreateInstance);
         return *LockedPageManager::_instance;
     }
 
@@ -157,7 +156,7 @@ private:
     }
 
     static LockedPageManager* _instance;
-    static boost::once_flag init_flag;
+    static std::once_flag init_flag;
 };
 
 //
@@ -6,41 +6,62 @@
 #include "version.h"
 #include "uint256.h"
 #include "hash.h"
+#include "streams.h"
 #include "libzerocoin/bignum.h"
+#include "libzerocoin/Params.h"
+#include "libzerocoin/SerialNumberSignatureOfKnowledge.h"
+#include "libzerocoin/AccumulatorProofOfKnowledge.h"
 #include <iostream>
 #include <string>
 #include <sstream>
 #include <exception>
 #include <stdexcept>
 
-JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_compute1024seed
+// Copies the java array bytes
+static std::vector<unsigned char> ToVector(JNIEnv * env, jbyteArray array){
+    int len = env->GetArrayLength (array);
+    std::vector<unsigned char> vch(len);
+    env->GetByteArrayRegion (array, 0, len, reinterpret_cast<jbyte*>(vch.data()));
+    return vch;
+}
+
+// Unserializes the whole array, throws if it has fewer or more bytes than the object
+template <typename T>
+static void Read(JNIEnv * env, jbyteArray array, T& obj){
+    std::vector<unsigned char> vch = ToVector(env, array);
+    CByteReader reader(vch);
+    reader >> obj;
+    if (!reader.empty())
+        throw std::ios_base::failure("Unexpected trailing bytes");
+}
+
+// Reads a var int length followed by the little endian MPI, returns false if it doesn't fit in [pos, end)
+static bool ReadBignum(const unsigned char* pos, const unsigned char* end, std::vector<unsigned char>& vch){
+    if (pos >= end) return false;
+    uint64_t len = *pos++;
+    int lenSize = len == 0xfd ? 2 : len == 0xfe ? 4 : len == 0xff ? 8 : 0;
+    if (lenSize > 0) {
+        if (end - pos < lenSize) return false;
+        len = 0;
+        for (int i = 0; i < lenSize; i++) len |= ((uint64_t) pos[i]) << (8 * i);
+        pos += lenSize;
+    }
+    if ((uint64_t) (end - pos) < len) return false;
+    vch.assign(pos, pos + len);
+    return true;
+}
+
+JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_nativeCompute1024seed
   (JNIEnv * env, jobject obj, jbyteArray seed){
 
     try{
 
         int len = env->GetArrayLength (seed);
-        unsigned char* buf = new unsigned char[len];
-        env->GetByteArrayRegion (seed, 0, len, reinterpret_cast<jbyte*>(buf));
-        std::vector<unsigned char> __c_vec(buf,buf + len);
+        std::vector<unsigned char> __c_vec(len);
+        env->GetByteArrayRegion (seed, 0, len, reinterpret_cast<jbyte*>(__c_vec.data()));
 
         CBigNum num(__c_vec);
-        uint256 hashSeed = num.getuint256();
-
-        CHashWriter hasher(0,0);
-        hasher << hashSeed;
-
-        vector<unsigned char> vResult;
-        for (int i = 0; i < 4; i ++) {
-            uint256 hash = hasher.GetHash();
-            vector<unsigned char> vHash = CBigNum(hash).getvch();
-            vResult.insert(vResult.end(), vHash.begin(), vHash.end());
-            hasher << vResult;
-        }
-
-        CBigNum bnResult;
-        bnResult.setvch(vResult);
-
-        std::vector<unsigned char> vch = bnResult.getvch();
+        std::vector<unsigned char> vch = SeedTo1024(num.getuint256()).getvch();
         jbyteArray ret = env->NewByteArray (vch.size());
         env->SetByteArrayRegion (ret, 0, vch.size(), reinterpret_cast<jbyte*>(vch.data()));
         return ret;
@@ -52,35 +73,43 @@ JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_compute1024seed
     }
   }
 
+  JNIEXPORT jint JNICALL Java_com_zerocoinj_JniBridge_nativeCompute1024seedDirect
+    (JNIEnv * env, jobject obj, jobject seed, jint seedOffset, jint seedLength, jobject out, jint outOffset, jint outLength){
 
+        try{
 
-  JNIEXPORT jstring JNICALL Java_com_zerocoinj_JniBridge_computeVSeedAndVExpanded
-    (JNIEnv * env, jobject obj){
+            unsigned char* seedAddress = static_cast<unsigned char*>(env->GetDirectBufferAddress(seed));
+            unsigned char* outAddress = static_cast<unsigned char*>(env->GetDirectBufferAddress(out));
+            if (seedAddress == NULL || outAddress == NULL) return -1;
 
-        uint256 notNum = ~uint256(0);
-        CBigNum notZeroBigNum(notNum);
-        CBigNum randBignum = CBigNum::randBignum(notZeroBigNum);
-        uint256 hashRand = randBignum.getuint256();
+            std::vector<unsigned char> vSeed;
+            if (!ReadBignum(seedAddress + seedOffset, seedAddress + seedOffset + seedLength, vSeed)) return -1;
 
-        uint256 hashSeed = hashRand;
+            std::vector<unsigned char> vch = SeedTo1024(CBigNum(vSeed).getuint256()).getvch();
+            // At most 4 hashes of 33 bytes, always a one byte var int
+            if (vch.size() >= 0xfd || (jint) vch.size() + 1 > outLength) return -1;
 
-        CHashWriter hasher(0,0);
-        hasher << hashSeed;
+            unsigned char* pos = outAddress + outOffset;
+            *pos++ = (unsigned char) vch.size();
+            std::copy(vch.begin(), vch.end(), pos);
+            return vch.size() + 1;
 
-        vector<unsigned char> vResult;
-        for (int i = 0; i < 4; i ++) {
-            uint256 hash = hasher.GetHash();
-            vector<unsigned char> vHash = CBigNum(hash).getvch();
-            vResult.insert(vResult.end(), vHash.begin(), vHash.end());
-            hasher << vResult;
+        }catch (const std::exception &exc){
+            // A C++ exception must not cross the JNI boundary, reported as an invalid seed
+            return -1;
         }
+    }
 
+  JNIEXPORT jstring JNICALL Java_com_zerocoinj_JniBridge_nativeComputeVSeedAndVExpanded
+    (JNIEnv * env, jobject obj){
 
-        CBigNum bnExpanded;
-        bnExpanded.setvch(vResult);
+        uint256 notNum = ~uint256(0);
+        CBigNum notZeroBigNum(notNum);
+        CBigNum randBignum = CBigNum::randBignum(notZeroBigNum);
+        uint256 hashRand = randBignum.getuint256();
 
         CBigNum vSeed = CBigNum(hashRand);
-        CBigNum vExpanded = bnExpanded;
+        CBigNum vExpanded = SeedTo1024(hashRand);
 
         std::stringstream ret;
         ret << vSeed.GetDec();
@@ -89,4 +118,50 @@ JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_compute1024seed
 
         // Success! We're done.
         return (*env).NewStringUTF(ret.str().data());
-    }
\ No newline at end of file
+    }
+
+  JNIEXPORT jboolean JNICALL Java_com_zerocoinj_JniBridge_nativeVerifySerialNumberSoK
+    (JNIEnv * env, jobject obj, jbyteArray params, jbyteArray proof, jbyteArray serial, jbyteArray commitment, jbyteArray msghash){
+
+        try{
+
+            ZerocoinParams zParams;
+            Read(env, params, zParams);
+            SerialNumberSignatureOfKnowledge sok(&zParams);
+            Read(env, proof, sok);
+            CBigNum coinSerialNumber;
+            Read(env, serial, coinSerialNumber);
+            CBigNum valueOfCommitmentToCoin;
+            Read(env, commitment, valueOfCommitmentToCoin);
+            std::vector<unsigned char> vHash = ToVector(env, msghash);
+            if (vHash.size() != 32) return JNI_FALSE;
+
+            return sok.Verify(coinSerialNumber, valueOfCommitmentToCoin, uint256(vHash)) ? JNI_TRUE : JNI_FALSE;
+
+        }catch (const std::exception &exc){
+            // Malformed input, not a valid proof
+            return JNI_FALSE;
+        }
+    }
+
+  JNIEXPORT jboolean JNICALL Java_com_zerocoinj_JniBridge_nativeVerifyAccumulatorPoK
+    (JNIEnv * env, jobject obj, jbyteArray params, jbyteArray proof, jbyteArray accumulator, jbyteArray commitment){
+
+        try{
+
+            AccumulatorAndProofParams accParams;
+            Read(env, params, accParams);
+            AccumulatorProofOfKnowledge accPoK(&accParams);
+            Read(env, proof, accPoK);
+            CBigNum accumulatorValue;
+            Read(env, accumulator, accumulatorValue);
+            CBigNum valueOfCommitmentToCoin;
+            Read(env, commitment, valueOfCommitmentToCoin);
+
+            return accPoK.Verify(accumulatorValue, valueOfCommitmentToCoin) ? JNI_TRUE : JNI_FALSE;
+
+        }catch (const std::exception &exc){
+            // Malformed input, not a valid proof
+            return JNI_FALSE;
+        }
+    }
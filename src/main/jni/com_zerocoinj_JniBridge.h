@@ -13,20 +13,44 @@ extern "C" {
 #endif
 /*
  * Class:     com_zerocoinj_JniBridge
- * Method:    compute1024seed
+ * Method:    nativeCompute1024seed
  * Signature: ([B)[B
  */
-JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_compute1024seed
+JNIEXPORT jbyteArray JNICALL Java_com_zerocoinj_JniBridge_nativeCompute1024seed
   (JNIEnv *, jobject, jbyteArray);
 
 /*
  * Class:     com_zerocoinj_JniBridge
- * Method:    computeVSeedAndVExpanded
+ * Method:    nativeCompute1024seedDirect
+ * Signature: (Ljava/nio/ByteBuffer;IILjava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_com_zerocoinj_JniBridge_nativeCompute1024seedDirect
+  (JNIEnv *, jobject, jobject, jint, jint, jobject, jint, jint);
+
+/*
+ * Class:     com_zerocoinj_JniBridge
+ * Method:    nativeComputeVSeedAndVExpanded
  * Signature: ()Ljava/lang/String;
  */
-JNIEXPORT jstring JNICALL Java_com_zerocoinj_JniBridge_computeVSeedAndVExpanded
+JNIEXPORT jstring JNICALL Java_com_zerocoinj_JniBridge_nativeComputeVSeedAndVExpanded
   (JNIEnv *, jobject);
 
+/*
+ * Class:     com_zerocoinj_JniBridge
+ * Method:    nativeVerifySerialNumberSoK
+ * Signature: ([B[B[B[B[B)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_zerocoinj_JniBridge_nativeVerifySerialNumberSoK
+  (JNIEnv *, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray, jbyteArray);
+
+/*
+ * Class:     com_zerocoinj_JniBridge
+ * Method:    nativeVerifyAccumulatorPoK
+ * Signature: ([B[B[B[B)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_zerocoinj_JniBridge_nativeVerifyAccumulatorPoK
+  (JNIEnv *, jobject, jbyteArray, jbyteArray, jbyteArray, jbyteArray);
+
 #ifdef __cplusplus
 }
 #endif
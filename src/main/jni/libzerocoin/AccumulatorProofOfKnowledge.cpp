@@ -0,0 +1,51 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#include "AccumulatorProofOfKnowledge.h"
+#include "../hash.h"
+
+bool AccumulatorProofOfKnowledge::Verify(const CBigNum& accumulatorValue, const CBigNum& valueOfCommitmentToCoin) const
+{
+    const IntegerGroupParams& pokGroup = params->accumulatorPoKCommitmentGroup;
+    const CBigNum& p = pokGroup.modulus;
+    const CBigNum& N = params->accumulatorModulus;
+
+    CBigNum sg = pokGroup.g;
+    CBigNum sh = pokGroup.h;
+
+    CBigNum g_n = params->accumulatorQRNCommitmentGroup.g;
+    CBigNum h_n = params->accumulatorQRNCommitmentGroup.h;
+
+    // The range check is cheap, do it before any exponentiation
+    CBigNum range = params->maxCoinValue * CBigNum(2).pow((int) (params->k_prime + params->k_dprime + 1));
+    if (s_alpha < -range || s_alpha > range)
+        return false;
+
+    //According to the proof, this hash should be of length k_prime bits.  It is currently greater than that, which should not be a problem, but we should check this.
+    CHashWriter hasher(0,0);
+    hasher << *params << sg << sh << g_n << h_n << valueOfCommitmentToCoin << C_e << C_u << C_r << st_1 << st_2 << st_3 << t_1 << t_2 << t_3 << t_4;
+
+    CBigNum c = CBigNum(hasher.GetHash());
+
+    CBigNum st_1_prime = (valueOfCommitmentToCoin.pow_mod(c, p) * sg.pow_mod(s_alpha, p) * sh.pow_mod(s_phi, p)) % p;
+    if (st_1 != st_1_prime) return false;
+
+    CBigNum st_2_prime = (sg.pow_mod(c, p) * ((valueOfCommitmentToCoin * sg.inverse(p)).pow_mod(s_gamma, p)) * sh.pow_mod(s_psi, p)) % p;
+    if (st_2 != st_2_prime) return false;
+
+    CBigNum st_3_prime = (sg.pow_mod(c, p) * (sg * valueOfCommitmentToCoin).pow_mod(s_sigma, p) * sh.pow_mod(s_xi, p)) % p;
+    if (st_3 != st_3_prime) return false;
+
+    CBigNum t_1_prime = (C_r.pow_mod(c, N) * h_n.pow_mod(s_zeta, N) * g_n.pow_mod(s_epsilon, N)) % N;
+    if (t_1 != t_1_prime) return false;
+
+    CBigNum t_2_prime = (C_e.pow_mod(c, N) * h_n.pow_mod(s_eta, N) * g_n.pow_mod(s_alpha, N)) % N;
+    if (t_2 != t_2_prime) return false;
+
+    CBigNum t_3_prime = (accumulatorValue.pow_mod(c, N) * C_u.pow_mod(s_alpha, N) * h_n.inverse(N).pow_mod(s_beta, N)) % N;
+    if (t_3 != t_3_prime) return false;
+
+    CBigNum t_4_prime = (C_r.pow_mod(s_alpha, N) * h_n.inverse(N).pow_mod(s_delta, N) * g_n.inverse(N).pow_mod(s_beta, N)) % N;
+    return t_4 == t_4_prime;
+}
@@ -0,0 +1,79 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#ifndef ZEROCOINJ_ACCUMULATORPROOFOFKNOWLEDGE_H
+#define ZEROCOINJ_ACCUMULATORPROOFOFKNOWLEDGE_H
+
+#include "bignum.h"
+#include "Params.h"
+#include "../serialize.h"
+
+/**
+ * Verifying side of libzerocoin's proof that a committed value is in an accumulator,
+ * same checks as com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge#verify.
+ */
+class AccumulatorProofOfKnowledge
+{
+public:
+    explicit AccumulatorProofOfKnowledge(const AccumulatorAndProofParams* p) : params(p) {}
+
+    bool Verify(const CBigNum& accumulatorValue, const CBigNum& valueOfCommitmentToCoin) const;
+
+    ADD_SERIALIZE_METHODS;
+    template <typename Stream, typename Operation>
+    inline void SerializationOp(Stream& s, Operation ser_action, int nType, int nVersion) {
+        READWRITE(C_e);
+        READWRITE(C_u);
+        READWRITE(C_r);
+        READWRITE(st_1);
+        READWRITE(st_2);
+        READWRITE(st_3);
+        READWRITE(t_1);
+        READWRITE(t_2);
+        READWRITE(t_3);
+        READWRITE(t_4);
+        READWRITE(s_alpha);
+        READWRITE(s_beta);
+        READWRITE(s_zeta);
+        READWRITE(s_sigma);
+        READWRITE(s_eta);
+        READWRITE(s_epsilon);
+        READWRITE(s_delta);
+        READWRITE(s_xi);
+        READWRITE(s_phi);
+        READWRITE(s_gamma);
+        READWRITE(s_psi);
+    }
+
+private:
+    const AccumulatorAndProofParams* params;
+
+    /* Return values for proof */
+    CBigNum C_e;
+    CBigNum C_u;
+    CBigNum C_r;
+
+    CBigNum st_1;
+    CBigNum st_2;
+    CBigNum st_3;
+
+    CBigNum t_1;
+    CBigNum t_2;
+    CBigNum t_3;
+    CBigNum t_4;
+
+    CBigNum s_alpha;
+    CBigNum s_beta;
+    CBigNum s_zeta;
+    CBigNum s_sigma;
+    CBigNum s_eta;
+    CBigNum s_epsilon;
+    CBigNum s_delta;
+    CBigNum s_xi;
+    CBigNum s_phi;
+    CBigNum s_gamma;
+    CBigNum s_psi;
+};
+
+#endif // ZEROCOINJ_ACCUMULATORPROOFOFKNOWLEDGE_H
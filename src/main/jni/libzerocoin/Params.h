@@ -0,0 +1,90 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#ifndef ZEROCOINJ_PARAMS_H
+#define ZEROCOINJ_PARAMS_H
+
+#include "bignum.h"
+#include "../serialize.h"
+
+/**
+ * Zerocoin parameters as the java side serializes them (com.zerocoinj.core.FStream), same layout as libzerocoin's.
+ */
+class IntegerGroupParams
+{
+public:
+    bool initialized;
+    CBigNum g;
+    CBigNum h;
+    CBigNum modulus;
+    CBigNum groupOrder;
+
+    IntegerGroupParams() : initialized(false) {}
+
+    ADD_SERIALIZE_METHODS;
+    template <typename Stream, typename Operation>
+    inline void SerializationOp(Stream& s, Operation ser_action, int nType, int nVersion) {
+        READWRITE(initialized);
+        READWRITE(g);
+        READWRITE(h);
+        READWRITE(modulus);
+        READWRITE(groupOrder);
+    }
+};
+
+class AccumulatorAndProofParams
+{
+public:
+    bool initialized;
+    CBigNum accumulatorModulus;
+    CBigNum accumulatorBase;
+    IntegerGroupParams accumulatorPoKCommitmentGroup;
+    IntegerGroupParams accumulatorQRNCommitmentGroup;
+    CBigNum minCoinValue;
+    CBigNum maxCoinValue;
+    uint32_t k_prime;
+    uint32_t k_dprime;
+
+    AccumulatorAndProofParams() : initialized(false), k_prime(0), k_dprime(0) {}
+
+    ADD_SERIALIZE_METHODS;
+    template <typename Stream, typename Operation>
+    inline void SerializationOp(Stream& s, Operation ser_action, int nType, int nVersion) {
+        READWRITE(initialized);
+        READWRITE(accumulatorModulus);
+        READWRITE(accumulatorBase);
+        READWRITE(accumulatorPoKCommitmentGroup);
+        READWRITE(accumulatorQRNCommitmentGroup);
+        READWRITE(minCoinValue);
+        READWRITE(maxCoinValue);
+        READWRITE(k_prime);
+        READWRITE(k_dprime);
+    }
+};
+
+class ZerocoinParams
+{
+public:
+    bool initialized;
+    AccumulatorAndProofParams accumulatorParams;
+    IntegerGroupParams coinCommitmentGroup;
+    IntegerGroupParams serialNumberSoKCommitmentGroup;
+    uint32_t zkp_iterations;
+    uint32_t zkp_hash_len;
+
+    ZerocoinParams() : initialized(false), zkp_iterations(0), zkp_hash_len(0) {}
+
+    ADD_SERIALIZE_METHODS;
+    template <typename Stream, typename Operation>
+    inline void SerializationOp(Stream& s, Operation ser_action, int nType, int nVersion) {
+        READWRITE(initialized);
+        READWRITE(accumulatorParams);
+        READWRITE(coinCommitmentGroup);
+        READWRITE(serialNumberSoKCommitmentGroup);
+        READWRITE(zkp_iterations);
+        READWRITE(zkp_hash_len);
+    }
+};
+
+#endif // ZEROCOINJ_PARAMS_H
@@ -0,0 +1,68 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#include "SerialNumberSignatureOfKnowledge.h"
+#include "../hash.h"
+
+CBigNum SeedTo1024(uint256 hashSeed){
+
+    CHashWriter hasher(0,0);
+    hasher << hashSeed;
+
+    std::vector<unsigned char> vResult;
+    for (int i = 0; i < 4; i ++) {
+        uint256 hash = hasher.GetHash();
+        std::vector<unsigned char> vHash = CBigNum(hash).getvch();
+        vResult.insert(vResult.end(), vHash.begin(), vHash.end());
+        hasher << vResult;
+    }
+
+    CBigNum bnResult;
+    bnResult.setvch(vResult);
+    return bnResult;
+}
+
+bool SerialNumberSignatureOfKnowledge::Verify(const CBigNum& coinSerialNumber, const CBigNum& valueOfCommitmentToCoin, const uint256 msghash) const
+{
+    // One challenge bit per iteration, taken from the 256 bit hash
+    if (params->zkp_iterations > 256 || s_notprime.size() != params->zkp_iterations || sprime.size() != params->zkp_iterations)
+        return false;
+
+    const IntegerGroupParams& group = params->serialNumberSoKCommitmentGroup;
+    CBigNum b = params->coinCommitmentGroup.h;
+    CBigNum h = group.h;
+    CHashWriter hasher(0,0);
+    hasher << *params << valueOfCommitmentToCoin << coinSerialNumber << msghash;
+
+    std::vector<CBigNum> tprime(params->zkp_iterations);
+    const unsigned char* hashbytes = hash.begin();
+
+    for (uint32_t i = 0; i < params->zkp_iterations; i++) {
+        int bit = i % 8;
+        int byte = i / 8;
+
+        bool challenge_bit = ((hashbytes[byte] >> bit) & 0x01);
+        if (challenge_bit) {
+            tprime[i] = challengeCalculation(coinSerialNumber, s_notprime[i], SeedTo1024(sprime[i].getuint256()));
+        } else {
+            CBigNum exp = b.pow_mod(s_notprime[i], group.groupOrder);
+            tprime[i] = ((valueOfCommitmentToCoin.pow_mod(exp, group.modulus) % group.modulus) *
+                         (h.pow_mod(sprime[i], group.modulus) % group.modulus)) % group.modulus;
+        }
+    }
+    for (uint32_t i = 0; i < params->zkp_iterations; i++) {
+        hasher << tprime[i];
+    }
+    return hasher.GetHash() == hash;
+}
+
+CBigNum SerialNumberSignatureOfKnowledge::challengeCalculation(const CBigNum& a_exp, const CBigNum& b_exp, const CBigNum& h_exp) const
+{
+    CBigNum a = params->coinCommitmentGroup.g;
+    CBigNum b = params->coinCommitmentGroup.h;
+    const IntegerGroupParams& group = params->serialNumberSoKCommitmentGroup;
+
+    CBigNum exponent = (a.pow_mod(a_exp, group.groupOrder) * b.pow_mod(b_exp, group.groupOrder)) % group.groupOrder;
+    return (group.g.pow_mod(exponent, group.modulus) * group.h.pow_mod(h_exp, group.modulus)) % group.modulus;
+}
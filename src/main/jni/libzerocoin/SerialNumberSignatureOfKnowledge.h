@@ -0,0 +1,48 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#ifndef ZEROCOINJ_SERIALNUMBERSIGNATUREOFKNOWLEDGE_H
+#define ZEROCOINJ_SERIALNUMBERSIGNATUREOFKNOWLEDGE_H
+
+#include <vector>
+#include "bignum.h"
+#include "Params.h"
+#include "../uint256.h"
+#include "../serialize.h"
+
+// Use one 256 bit seed and concatenate 4 unique 256 bit hashes to make a 1024 bit hash
+CBigNum SeedTo1024(uint256 hashSeed);
+
+/**
+ * Verifying side of libzerocoin's signature of knowledge of a coin serial number,
+ * same checks as com.zerocoinj.core.SerialNumberSignatureOfKnowledge#verify.
+ */
+class SerialNumberSignatureOfKnowledge
+{
+public:
+    explicit SerialNumberSignatureOfKnowledge(const ZerocoinParams* p) : params(p) {}
+
+    bool Verify(const CBigNum& coinSerialNumber, const CBigNum& valueOfCommitmentToCoin, const uint256 msghash) const;
+
+    ADD_SERIALIZE_METHODS;
+    template <typename Stream, typename Operation>
+    inline void SerializationOp(Stream& s, Operation ser_action, int nType, int nVersion) {
+        READWRITE(s_notprime);
+        READWRITE(sprime);
+        READWRITE(hash);
+    }
+
+private:
+    const ZerocoinParams* params;
+    // challenge hash
+    uint256 hash;
+
+    // challenge response values
+    std::vector<CBigNum> s_notprime;
+    std::vector<CBigNum> sprime;
+
+    CBigNum challengeCalculation(const CBigNum& a_exp, const CBigNum& b_exp, const CBigNum& h_exp) const;
+};
+
+#endif // ZEROCOINJ_SERIALNUMBERSIGNATUREOFKNOWLEDGE_H
@@ -0,0 +1,48 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+#ifndef ZEROCOINJ_STREAMS_H
+#define ZEROCOINJ_STREAMS_H
+
+#include "serialize.h"
+#include "version.h"
+
+#include <ios>
+#include <string.h>
+#include <vector>
+
+/** Read only stream over a byte range, to unserialize the objects sent by the java side. */
+class CByteReader
+{
+    const unsigned char* pos;
+    const unsigned char* end;
+
+public:
+    int nType;
+    int nVersion;
+
+    CByteReader(const std::vector<unsigned char>& vch, int nTypeIn = SER_NETWORK, int nVersionIn = PROTOCOL_VERSION)
+        : pos(vch.data()), end(vch.data() + vch.size()), nType(nTypeIn), nVersion(nVersionIn) {}
+
+    CByteReader& read(char* pch, size_t size)
+    {
+        if (size > (size_t) (end - pos))
+            throw std::ios_base::failure("CByteReader::read() : end of data");
+        memcpy(pch, pos, size);
+        pos += size;
+        return (*this);
+    }
+
+    bool empty() const { return pos == end; }
+
+    template <typename T>
+    CByteReader& operator>>(T& obj)
+    {
+        // Unserialize from this stream
+        ::Unserialize(*this, obj, nType, nVersion);
+        return (*this);
+    }
+};
+
+#endif // ZEROCOINJ_STREAMS_H
@@ -4,11 +4,13 @@
 
 package com.zerocoinj;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.zerocoinj.base.BaseZerocoinTest;
 import com.zerocoinj.core.CoinDenomination;
 import com.zerocoinj.core.Commitment;
 import com.zerocoinj.core.ZeroCoin;
 import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
 import com.zerocoinj.core.accumulators.AccumulatorWitness;
 import com.zerocoinj.core.exceptions.InvalidSerialException;
 import com.zerocoinj.utils.ZUtils;
@@ -19,7 +21,11 @@ import org.pivxj.core.ECKey;
 import org.spongycastle.util.encoders.Hex;
 
 import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AccumulatorsTest extends BaseZerocoinTest {
 
@@ -114,6 +120,90 @@ public class AccumulatorsTest extends BaseZerocoinTest {
     }
 
 
+    @Test
+    public void parallelAccumulatorPoKMatchesSequential() throws NoSuchAlgorithmException {
+
+        List<ZeroCoin> coinList = generateCoins(zerocoinContext, 3);
+        ZeroCoin coin = coinList.get(0);
+
+        Accumulator acc = new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        AccumulatorWitness witness = new AccumulatorWitness(acc, coin);
+        for (ZeroCoin zeroCoin : coinList) {
+            acc.accumulate(zeroCoin);
+            witness.addElement(zeroCoin);
+        }
+
+        Commitment commitmentToCoin = new Commitment(
+                coin.getCommitment().getCommitmentValue(),
+                zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup()
+        );
+
+        byte[] seed = Hex.decode("5eed5eed5eed5eed5eed5eed5eed5eed");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AccumulatorProofOfKnowledge sequential = new AccumulatorProofOfKnowledge(
+                    zerocoinContext.getAccumulatorParams(), commitmentToCoin, witness, acc,
+                    seededRandom(seed), MoreExecutors.directExecutor()
+            );
+            AccumulatorProofOfKnowledge parallel = new AccumulatorProofOfKnowledge(
+                    zerocoinContext.getAccumulatorParams(), commitmentToCoin, witness, acc,
+                    seededRandom(seed), executor
+            );
+
+            Assert.assertEquals("Parallel proof differs from the sequential one", sequential, parallel);
+            Assert.assertTrue("Parallel proof not valid", parallel.verify(acc, commitmentToCoin.getCommitmentValue()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelAccumulatorPoKReportsFailingEquation() {
+
+        List<ZeroCoin> coinList = generateCoins(zerocoinContext, 3);
+        ZeroCoin coin = coinList.get(0);
+
+        Accumulator acc = new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        AccumulatorWitness witness = new AccumulatorWitness(acc, coin);
+        for (ZeroCoin zeroCoin : coinList) {
+            acc.accumulate(zeroCoin);
+            witness.addElement(zeroCoin);
+        }
+
+        Commitment commitmentToCoin = new Commitment(
+                coin.getCommitment().getCommitmentValue(),
+                zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup()
+        );
+        BigInteger value = commitmentToCoin.getCommitmentValue();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AccumulatorProofOfKnowledge proof = new AccumulatorProofOfKnowledge(
+                    zerocoinContext.getAccumulatorParams(), commitmentToCoin, witness, acc
+            );
+            Assert.assertNull("Valid proof reported as invalid", proof.findFailingEquation(acc, value, executor));
+            Assert.assertTrue("Valid proof reported as invalid", proof.verify(acc, value, executor));
+
+            // s_phi is not part of the challenge, so only st_1 is affected
+            BigInteger s_phi = proof.s_phi;
+            proof.s_phi = s_phi.add(BigInteger.ONE);
+            Assert.assertEquals(AccumulatorProofOfKnowledge.Equation.ST_1, proof.findFailingEquation(acc, value, executor));
+            Assert.assertFalse("Invalid proof verified", proof.verify(acc, value));
+            proof.s_phi = s_phi;
+
+            proof.s_alpha = zerocoinContext.getAccumulatorParams().getMaxCoinValue().shiftLeft(512);
+            Assert.assertEquals(AccumulatorProofOfKnowledge.Equation.RANGE, proof.findFailingEquation(acc, value, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static SecureRandom seededRandom(byte[] seed) throws NoSuchAlgorithmException {
+        SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+        random.setSeed(seed);
+        return random;
+    }
+
     private static ZeroCoin getFixedCoinToAccumulate() throws InvalidSerialException {
         // Initial params
         ECKey ecKey = ECKey.fromPrivate(Hex.decode("05428f06cd1dd86c202f7f768460ceb8ca613b478c2b9a56da5904a6e01feafb"));
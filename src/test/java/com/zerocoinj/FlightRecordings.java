@@ -0,0 +1,82 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import jdk.jfr.Recording;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records the zerocoinj events of an action, the only test class using jdk.jfr. Left out of the build by JDKs
+ * without Flight Recorder.
+ */
+final class FlightRecordings {
+
+    private FlightRecordings() {
+    }
+
+    /**
+     * @param events the event names without the "com.zerocoinj." prefix
+     */
+    static List<Event> record(Path file, Runnable action, String... events) throws IOException {
+        try (Recording recording = new Recording()) {
+            for (String event : events) {
+                recording.enable("com.zerocoinj." + event);
+            }
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<Event> recorded = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            Map<String, Object> values = new HashMap<>();
+            for (ValueDescriptor field : event.getFields()) {
+                values.put(field.getName(), event.getValue(field.getName()));
+            }
+            recorded.add(new Event(event.getEventType().getName(), event.getStartTime().getEpochSecond() * 1_000_000_000L
+                    + event.getStartTime().getNano(), event.getDuration().toNanos(), values));
+        }
+        return recorded;
+    }
+
+    /**
+     * @return the events with the given name, in start order
+     */
+    static List<Event> ofType(List<Event> events, String name) {
+        return events.stream()
+                .filter(event -> event.name.equals(name))
+                .sorted(Comparator.comparingLong(event -> event.startNanos))
+                .collect(Collectors.toList());
+    }
+
+    static final class Event {
+        final String name;
+        final long startNanos;
+        final long durationNanos;
+        private final Map<String, Object> values;
+
+        Event(String name, long startNanos, long durationNanos, Map<String, Object> values) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.values = values;
+        }
+
+        Object get(String field) {
+            return values.get(field);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.JniBridgeWrapper;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.pivxj.core.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class JniBridgeTest extends BaseZerocoinTest {
+
+    @Test
+    public void status() {
+        NativeStatus status = JniBridge.status();
+        Assert.assertSame(status, NativeStatus.get());
+        Assert.assertEquals(status.isLoaded(), status.getBackend() == NativeStatus.Backend.NATIVE);
+        Assert.assertEquals(status.isLoaded(), status.getLibrary() != null);
+        if (status.isLoaded()) {
+            Assert.assertNull(status.getError());
+        }
+        Assert.assertTrue(status.getPlatform(), status.getPlatform().matches("[a-z0-9]+-[a-z0-9_]+"));
+        System.out.println(status);
+    }
+
+    @Test
+    public void javaBridgeMatchesNative() {
+        Assume.assumeTrue(NativeStatus.get().isLoaded());
+        JniBridge jniBridge = new JniBridge();
+        JavaBridge javaBridge = new JavaBridge();
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            // Sizes around 256 bits, some with the sign bit set
+            BigInteger value = new BigInteger(1 + random.nextInt(300), random);
+            byte[] seed = Utils.reverseBytes(Utils.encodeMPI(i % 2 == 0 ? value : value.negate(), false));
+            Assert.assertArrayEquals(value.toString(), jniBridge.compute1024seed(seed), javaBridge.compute1024seed(seed));
+        }
+        String[] values = jniBridge.computeVSeedAndVExpanded().split("\\|\\|");
+        Assert.assertEquals(new BigInteger(values[1]), JavaBridge.seedTo1024(new BigInteger(values[0])));
+    }
+
+    @Test
+    public void fallback() {
+        JniBridge jniBridge = new JniBridge();
+        JavaBridge javaBridge = new JavaBridge();
+        byte[] seed = Utils.reverseBytes(Utils.encodeMPI(new BigInteger("123456789012345678901234567890"), false));
+        Assert.assertArrayEquals(javaBridge.compute1024seed(seed), jniBridge.compute1024seed(seed));
+
+        String[] values = jniBridge.computeVSeedAndVExpanded().split("\\|\\|");
+        BigInteger vSeed = new BigInteger(values[0]);
+        Assert.assertTrue(vSeed.bitLength() <= 256);
+        Assert.assertEquals(new BigInteger(values[1]), JavaBridge.seedTo1024(vSeed));
+        Assert.assertTrue(new BigInteger(values[1]).bitLength() > 900);
+    }
+
+    @Test
+    public void directBuffers() {
+        for (JniBridgeWrapper bridge : new JniBridgeWrapper[]{new JniBridge(), new JavaBridge()}) {
+            Random random = new Random(3);
+            for (int i = 0; i < 50; i++) {
+                BigInteger value = new BigInteger(1 + random.nextInt(300), random);
+                if (i % 2 == 1) value = value.negate();
+                BigInteger expected = Utils.decodeMPI(Utils.reverseBytes(
+                        bridge.compute1024seed(Utils.reverseBytes(Utils.encodeMPI(value, false)))), false);
+
+                for (boolean direct : new boolean[]{true, false}) {
+                    ByteBuffer seed = direct ? ByteBuffer.allocateDirect(64) : ByteBuffer.allocate(64);
+                    ByteBuffer out = direct ? ByteBuffer.allocateDirect(200) : ByteBuffer.allocate(200);
+                    ((Buffer) seed).position(3);
+                    new ByteBufferWriter(seed).writeBignum(value);
+                    ((Buffer) seed).limit(seed.position()).position(3);
+                    ((Buffer) out).position(5);
+
+                    bridge.compute1024seed(seed, out);
+                    Assert.assertEquals(3, seed.position());
+                    Assert.assertEquals(5 + ByteBufferWriter.bignumSize(expected), out.position());
+                    ((Buffer) out).limit(out.position()).position(5);
+                    Assert.assertEquals(expected, new ByteBufferReader(out).readBignum());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void directBufferTooSmall() {
+        Assume.assumeTrue(NativeStatus.get().isLoaded());
+        ByteBuffer seed = ByteBuffer.allocateDirect(64);
+        new ByteBufferWriter(seed).writeBignum(BigInteger.TEN);
+        ((Buffer) seed).flip();
+        new JniBridge().compute1024seed(seed, ByteBuffer.allocateDirect(JniBridgeWrapper.EXPANDED_SEED_SIZE / 2));
+    }
+
+    @Test
+    public void extract() throws Exception {
+        byte[] library = {1, 2, 3};
+        Path file = NativeLoader.extract(new ByteArrayInputStream(library));
+        try {
+            Assert.assertEquals(System.mapLibraryName(NativeLoader.LIBRARY), file.getFileName().toString());
+            Assert.assertArrayEquals(library, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+            Files.delete(file.getParent());
+        }
+        Assert.assertEquals("/native/" + NativeLoader.platform() + "/" + System.mapLibraryName("bridge"),
+                NativeLoader.resource(NativeLoader.platform()));
+    }
+}
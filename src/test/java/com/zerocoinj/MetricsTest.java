@@ -0,0 +1,121 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.SpendType;
+import com.zerocoinj.core.VerifiedSpendCache;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import com.zerocoinj.metrics.Histogram;
+import com.zerocoinj.metrics.InMemoryMetrics;
+import com.zerocoinj.metrics.Metrics;
+import com.zerocoinj.metrics.ZerocoinMetrics.Counter;
+import com.zerocoinj.metrics.ZerocoinMetrics.Metric;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsTest extends BaseZerocoinTest {
+
+    @After
+    public void uninstall() {
+        Metrics.set(null);
+    }
+
+    @Test
+    public void histogram() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+
+        // 1..100 are exact
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(1, histogram.getMin());
+        Assert.assertEquals(100, histogram.getMax());
+        Assert.assertEquals(50.5, histogram.getMean(), 0);
+        Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+
+        // Large values within 1/64
+        histogram.reset();
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.record((long) (random.nextDouble() * TimeUnit.SECONDS.toNanos(10)));
+        }
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(5), histogram.getValueAtPercentile(50), TimeUnit.SECONDS.toNanos(5) / 10);
+        for (int i = 0; i < 1000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            // The median is the lowest value, reported as the highest value of its bucket
+            long reported = histogramOf(value, Long.MAX_VALUE).getValueAtPercentile(50);
+            Assert.assertTrue(value + " reported as " + reported, reported >= value && reported - value <= Math.max(1, value / 64));
+        }
+        Assert.assertEquals(Long.MAX_VALUE, histogramOf(Long.MAX_VALUE).getValueAtPercentile(50));
+    }
+
+    @Test
+    public void recordsSpendLifecycle() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Metrics.set(metrics);
+
+        List<ZeroCoin> coins = generateCoins(zerocoinContext, 3);
+        Assert.assertEquals(3, metrics.getHistogram(Metric.MINT).getCount());
+        Assert.assertEquals(3, metrics.getHistogram(Metric.MINT_ATTEMPTS).getCount());
+        Assert.assertTrue(metrics.getHistogram(Metric.MINT_ATTEMPTS).getMin() >= 1);
+
+        Accumulator acc = new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        AccumulatorWitness witness = new AccumulatorWitness(acc, coins.get(0));
+        for (ZeroCoin coin : coins) {
+            acc.accumulate(coin);
+            witness.addElement(coin);
+        }
+        Assert.assertEquals(3, metrics.getHistogram(Metric.ACCUMULATE).getCount());
+        // The coin itself is not added to its witness
+        Assert.assertEquals(2, metrics.getHistogram(Metric.WITNESS_UPDATE).getCount());
+
+        CoinSpend spend = new CoinSpend(zerocoinContext, coins.get(0), acc, BigInteger.ZERO, witness, null, SpendType.SPEND, null);
+        Assert.assertEquals(1, metrics.getHistogram(Metric.SPEND_CREATE).getCount());
+        Assert.assertEquals(1, metrics.getHistogram(Metric.COMMITMENT_POK_PROVE).getCount());
+        Assert.assertEquals(1, metrics.getHistogram(Metric.ACCUMULATOR_POK_PROVE).getCount());
+        Assert.assertEquals(1, metrics.getHistogram(Metric.SERIAL_NUMBER_SOK_PROVE).getCount());
+        Assert.assertTrue(metrics.getHistogram(Metric.JNI_CALL).getCount() >= zerocoinContext.getZkp_iterations());
+
+        VerifiedSpendCache cache = new VerifiedSpendCache(10, 1, TimeUnit.MINUTES);
+        Assert.assertTrue(cache.verify(spend, acc).isValid());
+        Assert.assertTrue(cache.verify(spend, acc).isValid());
+        Assert.assertEquals(1, metrics.getCount(Counter.CACHE_MISS));
+        Assert.assertEquals(1, metrics.getCount(Counter.CACHE_HIT));
+        Assert.assertEquals(1, metrics.getHistogram(Metric.SPEND_VERIFY).getCount());
+        // Created spends check their own proofs
+        Assert.assertEquals(2, metrics.getHistogram(Metric.COMMITMENT_POK_VERIFY).getCount());
+        Assert.assertEquals(2, metrics.getHistogram(Metric.ACCUMULATOR_POK_VERIFY).getCount());
+        Assert.assertEquals(1, metrics.getHistogram(Metric.SERIAL_NUMBER_SOK_VERIFY).getCount());
+        Assert.assertTrue(metrics.getHistogram(Metric.SPEND_VERIFY).getMax() >= metrics.getHistogram(Metric.SERIAL_NUMBER_SOK_VERIFY).getMax());
+
+        System.out.println(metrics);
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getHistogram(Metric.MINT).getCount());
+        Assert.assertEquals(0, metrics.getCount(Counter.CACHE_HIT));
+    }
+
+    private static Histogram histogramOf(long... values) {
+        Histogram histogram = new Histogram();
+        for (long value : values) {
+            histogram.record(value);
+        }
+        return histogram;
+    }
+}
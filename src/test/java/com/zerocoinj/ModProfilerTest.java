@@ -0,0 +1,71 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.Commitment;
+import com.zerocoinj.core.CommitmentProofOfKnowledge;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.metrics.ModProfiler;
+import com.zerocoinj.metrics.ModProfiler.CallSite;
+import com.zerocoinj.metrics.ModProfiler.OperandSize;
+import com.zerocoinj.metrics.ModProfiler.Operation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+public class ModProfilerTest extends BaseZerocoinTest {
+
+    @After
+    public void tearDown() {
+        ModProfiler.disable();
+        ModProfiler.reset();
+    }
+
+    @Test
+    public void operandSize() {
+        Assert.assertEquals(OperandSize.BITS_256, OperandSize.of(BigInteger.ONE.shiftLeft(255)));
+        Assert.assertEquals(OperandSize.BITS_1024, OperandSize.of(BigInteger.ONE.shiftLeft(1023)));
+        Assert.assertEquals(OperandSize.BITS_1536, OperandSize.of(BigInteger.ONE.shiftLeft(1024)));
+        Assert.assertEquals(OperandSize.LARGER, OperandSize.of(BigInteger.ONE.shiftLeft(4096)));
+    }
+
+    @Test
+    public void recordsCallSites() {
+        ZeroCoin coin = generateCoins(zerocoinContext, 1).get(0);
+        ModProfiler.enable();
+        Commitment a = new Commitment(coin.getCommitment().getCommitmentValue(), zerocoinContext.getSerialNumberSoKCommitmentGroup());
+        Commitment b = new Commitment(coin.getCommitment().getCommitmentValue(), zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup());
+        CommitmentProofOfKnowledge proof = new CommitmentProofOfKnowledge(
+                zerocoinContext.getSerialNumberSoKCommitmentGroup(), zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup(), a, b);
+        Assert.assertTrue(proof.verify(a.getCommitmentValue(), b.getCommitmentValue()));
+        ModProfiler.disable();
+
+        List<CallSite> snapshot = ModProfiler.snapshot();
+        Assert.assertFalse(snapshot.isEmpty());
+        for (int i = 1; i < snapshot.size(); i++) {
+            Assert.assertTrue(snapshot.get(i - 1).getNanos() >= snapshot.get(i).getNanos());
+        }
+        boolean verifyPow = false;
+        for (CallSite callSite : snapshot) {
+            Assert.assertTrue(callSite.getCalls() > 0);
+            Assert.assertFalse(callSite.getLocation(), callSite.getLocation().startsWith("ModMath"));
+            Assert.assertFalse(callSite.getLocation(), callSite.getLocation().startsWith("ZUtils"));
+            if (callSite.getOperation() == Operation.MOD_POW && callSite.getLocation().startsWith("CommitmentProofOfKnowledge.verifyProof")) {
+                verifyPow = true;
+                Assert.assertTrue(callSite.getMeanExponentBits() > 0);
+            }
+        }
+        Assert.assertTrue(ModProfiler.dump(), verifyPow);
+
+        // Nothing recorded while disabled
+        long calls = snapshot.stream().mapToLong(CallSite::getCalls).sum();
+        new Commitment(coin.getCommitment().getCommitmentValue(), zerocoinContext.getSerialNumberSoKCommitmentGroup());
+        Assert.assertEquals(calls, ModProfiler.snapshot().stream().mapToLong(CallSite::getCalls).sum());
+    }
+}
@@ -0,0 +1,161 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.NativeProofs;
+import com.zerocoinj.core.SerialNumberSignatureOfKnowledge;
+import com.zerocoinj.core.SpendType;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorProofOfKnowledge;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.pivxj.core.Sha256Hash;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assume.assumeTrue;
+
+public class NativeProofsTest extends BaseZerocoinTest {
+
+    @Before
+    public void nativeLoaded() {
+        assumeTrue(NativeStatus.get().isLoaded());
+        Assert.assertTrue(NativeProofs.isEnabled());
+    }
+
+    @After
+    public void enable() {
+        NativeProofs.setEnabled(true);
+    }
+
+    @Test
+    public void recordedSpend() {
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, readFile("mint_spend_test/serialized_coinSpend.txt"));
+        Accumulator accumulator = Accumulator.parse(params, zerocoinContext.getAccumulatorParams(), readFile("mint_spend_test/serialized_accumulator.txt"));
+
+        assertParity(coinSpend, accumulator, true, true);
+        Assert.assertTrue(coinSpend.verify(accumulator));
+    }
+
+    @Test
+    public void tampered() {
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, readFile("mint_spend_test/serialized_coinSpend.txt"));
+        Accumulator accumulator = Accumulator.parse(params, zerocoinContext.getAccumulatorParams(), readFile("mint_spend_test/serialized_accumulator.txt"));
+        Sha256Hash msghash = Sha256Hash.wrap(coinSpend.signatureHash());
+        BigInteger serial = coinSpend.getCoinSerialNumber();
+        BigInteger commitment = coinSpend.getSerialCommitmentToCoinValue();
+        SerialNumberSignatureOfKnowledge sok = coinSpend.getSerialNumberSoK();
+
+        Sha256Hash otherHash = Sha256Hash.of(msghash.getBytes());
+        Assert.assertFalse(NativeProofs.verifySerialNumberSoK(zerocoinContext, sok, serial, commitment, otherHash));
+        Assert.assertFalse(NativeProofs.verifySerialNumberSoK(zerocoinContext, sok, serial.add(BigInteger.ONE), commitment, msghash));
+        Assert.assertFalse(verifyJava(sok, serial, commitment, otherHash));
+
+        AccumulatorProofOfKnowledge accPoK = coinSpend.getAccumulatorPoK();
+        Accumulator other = new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        Assert.assertFalse(NativeProofs.verifyAccumulatorPoK(zerocoinContext.getAccumulatorParams(), accPoK, other.getValue(), coinSpend.getAccCommitmentToCoinValue()));
+        Assert.assertFalse(accPoK.verify(other, coinSpend.getAccCommitmentToCoinValue(), Runnable::run));
+
+        // Flipped response value
+        byte[] proof = sok.bitcoinSerialize();
+        proof[proof.length - 40] ^= 1;
+        SerialNumberSignatureOfKnowledge flipped = SerialNumberSignatureOfKnowledge.parse(params, zerocoinContext, proof, 0, true);
+        Assert.assertFalse(NativeProofs.verifySerialNumberSoK(zerocoinContext, flipped, serial, commitment, msghash));
+        Assert.assertFalse(verifyJava(flipped, serial, commitment, msghash));
+    }
+
+    @Test
+    public void malformedResponses() {
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, readFile("mint_spend_test/serialized_coinSpend.txt"));
+        Sha256Hash msghash = Sha256Hash.wrap(coinSpend.signatureHash());
+        BigInteger serial = coinSpend.getCoinSerialNumber();
+        BigInteger commitment = coinSpend.getSerialCommitmentToCoinValue();
+        SerialNumberSignatureOfKnowledge sok = coinSpend.getSerialNumberSoK();
+
+        // More responses than challenge bits, fewer, and a different amount of each kind
+        int[][] deltas = {{1, 1}, {-1, -1}, {0, -1}, {1, 0}};
+        for (int[] delta : deltas) {
+            SerialNumberSignatureOfKnowledge malformed = resized(sok, delta[0], delta[1]);
+            String message = "Responses resized by " + Arrays.toString(delta);
+            Assert.assertFalse(message, NativeProofs.verifySerialNumberSoK(zerocoinContext, malformed, serial, commitment, msghash));
+            Assert.assertFalse(message, verifyJava(malformed, serial, commitment, msghash));
+        }
+    }
+
+    @Test
+    public void createdSpend() {
+        List<ZeroCoin> coins = generateCoins(zerocoinContext, 3);
+        ZeroCoin coin = coins.get(0);
+        Accumulator accumulator = new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE);
+        AccumulatorWitness witness = new AccumulatorWitness(accumulator, coin);
+        for (ZeroCoin c : coins) {
+            accumulator.accumulate(c);
+            witness.addElement(c);
+        }
+        CoinSpend coinSpend = new CoinSpend(zerocoinContext, coin, accumulator, BigInteger.ZERO, witness, null, SpendType.SPEND, null);
+
+        assertParity(coinSpend, accumulator, true, true);
+    }
+
+    private void assertParity(CoinSpend coinSpend, Accumulator accumulator, boolean sokValid, boolean accPoKValid) {
+        Sha256Hash msghash = Sha256Hash.wrap(coinSpend.signatureHash());
+        SerialNumberSignatureOfKnowledge sok = coinSpend.getSerialNumberSoK();
+        Assert.assertEquals(sokValid, NativeProofs.verifySerialNumberSoK(zerocoinContext, sok,
+                coinSpend.getCoinSerialNumber(), coinSpend.getSerialCommitmentToCoinValue(), msghash));
+        Assert.assertEquals(sokValid, verifyJava(sok, coinSpend.getCoinSerialNumber(), coinSpend.getSerialCommitmentToCoinValue(), msghash));
+
+        AccumulatorProofOfKnowledge accPoK = coinSpend.getAccumulatorPoK();
+        Assert.assertEquals(accPoKValid, NativeProofs.verifyAccumulatorPoK(zerocoinContext.getAccumulatorParams(), accPoK,
+                accumulator.getValue(), coinSpend.getAccCommitmentToCoinValue()));
+        Assert.assertEquals(accPoKValid, accPoK.verify(accumulator, coinSpend.getAccCommitmentToCoinValue(), Runnable::run));
+    }
+
+    /**
+     * @return the signature with the amount of each kind of response changed by the deltas, repeating or dropping
+     * the last ones
+     */
+    private SerialNumberSignatureOfKnowledge resized(SerialNumberSignatureOfKnowledge sok, int notPrimeDelta, int primeDelta) {
+        byte[] proof = sok.bitcoinSerialize();
+        ByteBufferReader reader = new ByteBufferReader(ByteBuffer.wrap(proof));
+        ByteBuffer out = ByteBuffer.allocate(proof.length * 2);
+        ByteBufferWriter writer = new ByteBufferWriter(out);
+        for (int delta : new int[]{notPrimeDelta, primeDelta}) {
+            List<BigInteger> responses = new ArrayList<>();
+            for (long i = reader.readVarInt(); i > 0; i--) {
+                responses.add(reader.readBignum());
+            }
+            for (; delta > 0; delta--) responses.add(responses.get(responses.size() - 1));
+            for (; delta < 0; delta++) responses.remove(responses.size() - 1);
+            writer.writeVarInt(responses.size());
+            for (BigInteger response : responses) {
+                writer.writeBignum(response);
+            }
+        }
+        writer.writeBytes(reader.readBytes(32));
+        return SerialNumberSignatureOfKnowledge.parse(params, zerocoinContext, Arrays.copyOf(out.array(), out.position()), 0, true);
+    }
+
+    private static boolean verifyJava(SerialNumberSignatureOfKnowledge sok, BigInteger serial, BigInteger commitment, Sha256Hash msghash) {
+        NativeProofs.setEnabled(false);
+        try {
+            return sok.verify(serial, commitment, msghash);
+        } finally {
+            NativeProofs.setEnabled(true);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.zerocoinj.base.BaseZerocoinTest;
 import com.zerocoinj.core.*;
 import com.zerocoinj.core.accumulators.Accumulator;
 import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import com.zerocoinj.core.accumulators.Accumulators;
 import com.zerocoinj.core.exceptions.InvalidSerialException;
 import org.junit.Assert;
 import org.junit.Test;
@@ -22,6 +23,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class SpendTest extends BaseZerocoinTest {
 
@@ -202,6 +206,140 @@ public class SpendTest extends BaseZerocoinTest {
         );
 
         Assert.assertTrue("SpendCoin not valid" , spend.verify(acc));
+
+        VerificationResult result = spend.verifyDetailed(acc);
+        Assert.assertTrue("SpendCoin not valid, " + result, result.isValid());
+        for (VerificationResult.Stage stage : VerificationResult.Stage.values()) {
+            Assert.assertNotEquals("Stage not timed: " + stage, VerificationResult.NOT_RUN, result.getNanos(stage));
+        }
+    }
+
+    @Test
+    public void mintAndSpendAsync() throws Exception {
+
+        List<ZeroCoin> randomCoins = generateCoins(zerocoinContext, 3);
+        ZeroCoin myCoin = randomCoins.get(0);
+
+        Accumulator acc = new Accumulator(
+                zerocoinContext.getAccumulatorParams(),
+                CoinDenomination.ZQ_ONE
+        );
+
+        AccumulatorWitness wAcc = new AccumulatorWitness(
+                acc,
+                myCoin
+        );
+
+        for (ZeroCoin coin : randomCoins) {
+            acc.accumulate(coin);
+            wAcc.addElement(coin);
+        }
+
+        CoinSpend spend = new CoinSpend(
+                zerocoinContext,
+                myCoin,
+                acc,
+                BigInteger.ZERO,
+                wAcc,
+                null,
+                SpendType.SPEND,
+                null
+        );
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            VerificationResult result = spend.verifyAsync(acc, executor).get();
+            Assert.assertTrue("SpendCoin not valid, " + result, result.isValid());
+            for (VerificationResult.Stage stage : VerificationResult.Stage.values()) {
+                Assert.assertNotEquals("Stage not timed: " + stage, VerificationResult.NOT_RUN, result.getNanos(stage));
+            }
+
+            // An accumulator that doesn't contain the coin
+            Accumulator otherAcc = new Accumulator(
+                    zerocoinContext.getAccumulatorParams(),
+                    CoinDenomination.ZQ_ONE
+            );
+            result = spend.verifyAsync(otherAcc, executor).get();
+            Assert.assertEquals(VerificationResult.Stage.ACCUMULATOR_POK, result.getFailedStage());
+
+            Accumulator otherDenomination = new Accumulator(
+                    zerocoinContext.getAccumulatorParams(),
+                    CoinDenomination.ZQ_FIVE,
+                    acc.getValue()
+            );
+            result = spend.verifyAsync(otherDenomination, executor).get();
+            Assert.assertEquals(VerificationResult.Stage.DENOMINATION, result.getFailedStage());
+        } finally {
+            // Let the stages still running after a failed one finish before the next test
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void verifiedSpendCache() {
+
+        List<ZeroCoin> randomCoins = generateCoins(zerocoinContext, 3);
+        ZeroCoin myCoin = randomCoins.get(0);
+
+        Accumulator acc = new Accumulator(
+                zerocoinContext.getAccumulatorParams(),
+                CoinDenomination.ZQ_ONE
+        );
+
+        AccumulatorWitness wAcc = new AccumulatorWitness(
+                acc,
+                myCoin
+        );
+
+        for (ZeroCoin coin : randomCoins) {
+            acc.accumulate(coin);
+            wAcc.addElement(coin);
+        }
+
+        CoinSpend spend = new CoinSpend(
+                zerocoinContext,
+                myCoin,
+                acc,
+                BigInteger.ZERO,
+                wAcc,
+                null,
+                SpendType.SPEND,
+                null
+        );
+
+        VerifiedSpendCache cache = new VerifiedSpendCache(10, 1, TimeUnit.HOURS);
+        Assert.assertFalse(cache.isVerified(spend, acc));
+
+        VerificationResult result = cache.verify(spend, acc);
+        Assert.assertTrue("SpendCoin not valid, " + result, result.isValid());
+        Assert.assertTrue("Valid spend not cached", cache.isVerified(spend, acc));
+        long hits = cache.stats().hitCount();
+        Assert.assertTrue(cache.verify(spend, acc).isValid());
+        Assert.assertEquals(hits + 1, cache.stats().hitCount());
+
+        // Invalid verifications are not cached
+        Accumulator otherAcc = new Accumulator(
+                zerocoinContext.getAccumulatorParams(),
+                CoinDenomination.ZQ_ONE
+        );
+        Assert.assertFalse(cache.verify(spend, otherAcc).isValid());
+        Assert.assertFalse(cache.isVerified(spend, otherAcc));
+
+        // The memoized checksum follows the accumulator value
+        Assert.assertEquals(Accumulators.getChecksum(otherAcc.getValue()), otherAcc.getChecksum());
+        otherAcc.accumulate(myCoin);
+        Assert.assertEquals(Accumulators.getChecksum(otherAcc.getValue()), otherAcc.getChecksum());
+
+        // A copy of the spend with another signature is not the verified one
+        byte[] tampered = spend.bitcoinSerialize();
+        tampered[tampered.length - 10] ^= 1;
+        Assert.assertFalse(cache.isVerified(CoinSpend.parse(params, zerocoinContext, tampered), acc));
+
+        // Accumulator reorganized
+        cache.invalidate(acc);
+        Assert.assertFalse(cache.isVerified(spend, acc));
+        Assert.assertEquals(0, cache.size());
     }
 
     private SerialNumberSignatureOfKnowledge.RandomNumbers loadRandomNumbersFromFile() {
@@ -0,0 +1,222 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.*;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.AccumulatorWitness;
+import com.zerocoinj.core.accumulators.Accumulators;
+import com.zerocoinj.service.LoopbackSpendVerificationClient;
+import com.zerocoinj.service.SpendVerificationClient;
+import com.zerocoinj.service.SpendVerificationService;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class SpendVerificationServiceTest extends BaseZerocoinTest {
+
+    private static final int SPENDS = 4;
+
+    private static Accumulator acc;
+    private static long accChecksum;
+    private static List<byte[]> rawSpends = new ArrayList<>();
+
+    @BeforeClass
+    public static void createSpends() {
+        List<ZeroCoin> randomCoins = generateCoins(zerocoinContext, 3);
+        ZeroCoin myCoin = randomCoins.get(0);
+
+        acc = new Accumulator(
+                zerocoinContext.getAccumulatorParams(),
+                CoinDenomination.ZQ_ONE
+        );
+
+        AccumulatorWitness wAcc = new AccumulatorWitness(
+                acc,
+                myCoin
+        );
+
+        for (ZeroCoin coin : randomCoins) {
+            acc.accumulate(coin);
+            wAcc.addElement(coin);
+        }
+        accChecksum = Accumulators.getChecksum(acc.getValue());
+
+        // Every spend has its own randomness, so the serializations differ
+        for (int i = 0; i < SPENDS; i++) {
+            CoinSpend spend = new CoinSpend(
+                    zerocoinContext,
+                    myCoin,
+                    acc,
+                    BigInteger.valueOf(accChecksum),
+                    wAcc,
+                    null,
+                    SpendType.SPEND,
+                    null
+            );
+            rawSpends.add(spend.bitcoinSerialize());
+        }
+    }
+
+    private static SpendVerificationService newService(int workers, int maxBatchSize, int queueCapacity) {
+        return new SpendVerificationService(
+                params,
+                zerocoinContext,
+                (denomination, checksum) -> (denomination == acc.getDenomination() && checksum == accChecksum) ? acc : null,
+                null,
+                workers,
+                maxBatchSize,
+                5,
+                TimeUnit.MILLISECONDS,
+                queueCapacity
+        );
+    }
+
+    @Test
+    public void verifySpends() throws Exception {
+        SpendVerificationService service = newService(2, 8, 100);
+        try {
+            SpendVerificationClient client = new LoopbackSpendVerificationClient(service);
+
+            List<CompletableFuture<VerificationResult>> futures = new ArrayList<>();
+            for (byte[] rawSpend : rawSpends) {
+                futures.add(client.verify(rawSpend));
+                // Duplicated submission, verified once if it lands on the same batch
+                futures.add(client.verify(rawSpend));
+            }
+            for (CompletableFuture<VerificationResult> future : futures) {
+                VerificationResult result = future.get();
+                Assert.assertTrue("SpendCoin not valid, " + result, result.isValid());
+            }
+            Assert.assertEquals(futures.size(), service.getVerificationCount() + service.getDeduplicatedCount());
+
+            // Not a spend
+            try {
+                client.verify(new byte[]{1, 2, 3}).get();
+                Assert.fail("Invalid spend verified");
+            } catch (ExecutionException e) {
+                // expected
+            }
+        } finally {
+            service.close();
+        }
+
+        // Unknown accumulator
+        service = new SpendVerificationService(params, zerocoinContext, (denomination, checksum) -> null, null, 1);
+        try {
+            service.submit(rawSpends.get(0)).get();
+            Assert.fail("Spend verified without accumulator");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void rejectsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // One worker stuck resolving the accumulator, the batcher stops taking spends once the pool is full
+        SpendVerificationService service = new SpendVerificationService(
+                params,
+                zerocoinContext,
+                (denomination, checksum) -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return acc;
+                },
+                null,
+                1,
+                1,
+                5,
+                TimeUnit.MILLISECONDS,
+                1
+        );
+        List<CompletableFuture<VerificationResult>> accepted = new ArrayList<>();
+        try {
+            CompletableFuture<VerificationResult> rejected = null;
+            for (int i = 0; i < 20 && rejected == null; i++) {
+                CompletableFuture<VerificationResult> future = service.submit(rawSpends.get(i % SPENDS));
+                if (future.isCompletedExceptionally()) {
+                    rejected = future;
+                } else {
+                    accepted.add(future);
+                }
+                Thread.sleep(20);
+            }
+            Assert.assertNotNull("Queue never full", rejected);
+            Assert.assertEquals(1, service.getRejectedCount());
+            try {
+                rejected.get();
+                Assert.fail("Spend accepted with a full queue");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        } finally {
+            release.countDown();
+            service.close();
+        }
+        // The accepted ones are still verified
+        for (CompletableFuture<VerificationResult> future : accepted) {
+            Assert.assertTrue(future.get(1, TimeUnit.MINUTES).isValid());
+        }
+
+        // Closed
+        try {
+            service.submit(rawSpends.get(0)).get();
+            Assert.fail("Spend accepted after close");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int rounds = 4;
+        SpendVerificationService service = newService(workers, 32, 1000);
+        try {
+            SpendVerificationClient client = new LoopbackSpendVerificationClient(service);
+
+            // Warm up
+            client.verify(rawSpends.get(0)).get();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<VerificationResult>> futures = new ArrayList<>();
+            for (int round = 0; round < rounds; round++) {
+                for (byte[] rawSpend : rawSpends) {
+                    futures.add(client.verify(rawSpend));
+                }
+                // Let every round land on its own batches, otherwise the copies are deduplicated
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            for (CompletableFuture<VerificationResult> future : futures) {
+                Assert.assertTrue(future.get().isValid());
+            }
+            System.out.println(String.format(
+                    "Verified %d spends in %d ms using %d workers, %.2f spends/s, %d batches",
+                    futures.size(), TimeUnit.NANOSECONDS.toMillis(elapsed), workers,
+                    futures.size() / (elapsed / 1e9), service.getBatchCount()
+            ));
+        } finally {
+            service.close();
+        }
+    }
+}
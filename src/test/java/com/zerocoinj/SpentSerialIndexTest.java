@@ -0,0 +1,182 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.store.SpentSerialIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SpentSerialIndexTest extends BaseZerocoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void markSpent() {
+        SpentSerialIndex index = new SpentSerialIndex(100);
+
+        for (ZeroCoin coin : generateCoins(zerocoinContext, 3)) {
+            Assert.assertFalse(index.isSpent(coin.getSerial()));
+            Assert.assertTrue(index.markSpent(coin.getSerial()));
+            Assert.assertTrue(index.isSpent(coin.getSerial()));
+            // Double spend
+            Assert.assertFalse(index.markSpent(coin.getSerial()));
+        }
+        Assert.assertEquals(3, index.size());
+
+        // Old negative serial
+        BigInteger negative = new BigInteger("-3426450141185389544394515773681044325391463801641779838771205630415819980801");
+        Assert.assertTrue(index.markSpent(negative));
+        Assert.assertTrue(index.isSpent(negative));
+        Assert.assertFalse(index.isSpent(negative.negate()));
+
+        // Serial with the most significant bit set
+        BigInteger high = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        Assert.assertTrue(index.markSpent(high));
+        Assert.assertTrue(index.isSpent(high));
+        Assert.assertFalse(index.isSpent(BigInteger.ONE.shiftLeft(255).subtract(BigInteger.ONE)));
+
+        // Block disconnected
+        Assert.assertTrue(index.unmarkSpent(negative));
+        Assert.assertFalse(index.isSpent(negative));
+        Assert.assertTrue(index.markSpent(negative));
+        Assert.assertTrue(index.unmarkSpent(high));
+        Assert.assertFalse(index.isSpent(high));
+        Assert.assertTrue(index.markSpent(high));
+        Assert.assertEquals(5, index.size());
+    }
+
+    @Test
+    public void negativeSerialCollision() {
+        // The two's complement of a negative serial, e.g. -1 and 2^256 - 1, must not share a key
+        BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        BigInteger negative = new BigInteger("-3426450141185389544394515773681044325391463801641779838771205630415819980801");
+        BigInteger complement = BigInteger.ONE.shiftLeft(256).add(negative);
+        Assert.assertFalse(Arrays.equals(SpentSerialIndex.toKey(BigInteger.valueOf(-1)), SpentSerialIndex.toKey(max)));
+        Assert.assertFalse(Arrays.equals(SpentSerialIndex.toKey(negative), SpentSerialIndex.toKey(complement)));
+
+        SpentSerialIndex index = new SpentSerialIndex(10);
+        Assert.assertTrue(index.markSpent(max));
+        Assert.assertTrue(index.markSpent(complement));
+        Assert.assertFalse(index.isSpent(BigInteger.valueOf(-1)));
+        Assert.assertFalse(index.isSpent(negative));
+        Assert.assertTrue(index.markSpent(BigInteger.valueOf(-1)));
+        Assert.assertTrue(index.markSpent(negative));
+        Assert.assertEquals(4, index.size());
+    }
+
+    @Test
+    public void serialRange() {
+        BigInteger max = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        byte[] key = SpentSerialIndex.toKey(max);
+        Assert.assertEquals(0, key[0]);
+        for (int i = 1; i < key.length; i++) Assert.assertEquals((byte) 0xff, key[i]);
+        Assert.assertArrayEquals(new byte[SpentSerialIndex.KEY_SIZE - 1], Arrays.copyOf(SpentSerialIndex.toKey(BigInteger.ONE), SpentSerialIndex.KEY_SIZE - 1));
+        Assert.assertEquals(1, SpentSerialIndex.toKey(max.negate())[0]);
+
+        for (BigInteger invalid : new BigInteger[]{BigInteger.ZERO, max.add(BigInteger.ONE), max.add(BigInteger.ONE).negate()}) {
+            try {
+                SpentSerialIndex.toKey(invalid);
+                Assert.fail("Serial accepted: " + invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void indexFull() {
+        SpentSerialIndex index = new SpentSerialIndex(10);
+        for (int i = 1; i <= index.capacity(); i++) {
+            index.markSpent(BigInteger.valueOf(i));
+        }
+    }
+
+    @Test
+    public void concurrentMarkSpent() throws Exception {
+        int threads = 8;
+        List<BigInteger> serials = randomSerials(10_000, 1);
+        SpentSerialIndex index = new SpentSerialIndex(serials.size());
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (BigInteger serial : serials) {
+                        if (index.markSpent(serial)) winners.incrementAndGet();
+                        Assert.assertTrue(index.isSpent(serial));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        // Every serial spent exactly once
+        Assert.assertEquals(serials.size(), winners.get());
+        Assert.assertEquals(serials.size(), index.size());
+    }
+
+    @Test
+    public void snapshotAndRestore() throws Exception {
+        List<BigInteger> serials = randomSerials(1000, 2);
+        // Old negative serials keep their sign
+        for (int i = 1; i < serials.size(); i += 10) serials.set(i, serials.get(i).negate());
+        SpentSerialIndex index = new SpentSerialIndex(serials.size());
+        for (BigInteger serial : serials) {
+            index.markSpent(serial);
+        }
+        index.unmarkSpent(serials.get(0));
+
+        Path file = folder.getRoot().toPath().resolve("spent_serials.dat");
+        index.snapshot(file);
+
+        SpentSerialIndex restored = SpentSerialIndex.restore(file);
+        Assert.assertEquals(index.size(), restored.size());
+        Assert.assertFalse(restored.isSpent(serials.get(0)));
+        for (BigInteger serial : serials.subList(1, serials.size())) {
+            Assert.assertTrue(restored.isSpent(serial));
+            Assert.assertFalse(restored.markSpent(serial));
+            Assert.assertFalse(restored.isSpent(serial.negate()));
+        }
+
+        // The restored index is writable and the file is left untouched
+        Assert.assertTrue(restored.markSpent(serials.get(0)));
+        Assert.assertEquals(serials.size() - 1, SpentSerialIndex.restore(file).size());
+    }
+
+    private static List<BigInteger> randomSerials(int amount, long seed) {
+        Random random = new Random(seed);
+        List<BigInteger> serials = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            // Random 256 bits, v2 serials are marked with 0xF on the first half byte
+            serials.add(new BigInteger(252, random).or(BigInteger.valueOf(0xF).shiftLeft(252)));
+        }
+        return serials;
+    }
+}
@@ -0,0 +1,102 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.store.WalletCoinIndex;
+import com.zerocoinj.store.ZeroCoinFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.List;
+
+public class WalletCoinIndexTest extends BaseZerocoinTest {
+
+    private static final CoinDenomination[] DENOMINATIONS = {
+            CoinDenomination.ZQ_ONE, CoinDenomination.ZQ_FIVE, CoinDenomination.ZQ_TEN, CoinDenomination.ZQ_ONE_HUNDRED
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void selectCoins() throws Exception {
+        List<ZeroCoin> minted = generateCoins(zerocoinContext, 3);
+        Path file = folder.getRoot().toPath().resolve("coins.dat");
+
+        // 2000 coins, beyond the initial capacity. Heights 1..2000, every 4th coin of each denomination
+        int amount = 2000;
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(file, zerocoinContext)) {
+            WalletCoinIndex index = new WalletCoinIndex(coinFile);
+            for (int i = 0; i < amount; i++) {
+                Assert.assertEquals(i, index.append(coin(minted.get(i % 3), DENOMINATIONS[i % 4], i + 1)));
+            }
+            Assert.assertEquals(amount, index.size());
+
+            // Tip 1100 and 100 confirmations, heights up to 1000. ZQ_TEN coins are at heights 3, 7, 11...
+            Assert.assertEquals(250, index.count(CoinDenomination.ZQ_TEN, 1000));
+            Assert.assertEquals(0, index.count(CoinDenomination.ZQ_FIFTY, 1000));
+            int[] selected = index.select(CoinDenomination.ZQ_TEN, 5, 1000);
+            Assert.assertArrayEquals(new int[]{2, 6, 10, 14, 18}, selected);
+            List<ZeroCoin> coins = index.selectCoins(CoinDenomination.ZQ_TEN, 5, 1000);
+            for (int i = 0; i < coins.size(); i++) {
+                Assert.assertEquals(CoinDenomination.ZQ_TEN, coins.get(i).getCoinDenomination());
+                Assert.assertEquals(selected[i] + 1, coins.get(i).getHeight());
+                Assert.assertEquals(minted.get(selected[i] % 3).getSerial(), coins.get(i).getSerial());
+            }
+            // Not enough mature coins
+            Assert.assertEquals(1, index.select(CoinDenomination.ZQ_TEN, 5, 3).length);
+
+            // Spent coins are not selected
+            index.setSpent(2, true);
+            Assert.assertArrayEquals(new int[]{6, 10}, index.select(CoinDenomination.ZQ_TEN, 2, 1000));
+            Assert.assertEquals(249, index.count(CoinDenomination.ZQ_TEN, 1000));
+
+            // Unconfirmed mint, confirmed later
+            ZeroCoin pending = coin(minted.get(0), CoinDenomination.ZQ_FIFTY, 0);
+            int pendingIndex = index.append(pending);
+            Assert.assertEquals(0, index.count(CoinDenomination.ZQ_FIFTY, 1000));
+            pending.setHeight(900);
+            index.update(pendingIndex, pending);
+            Assert.assertEquals(1, index.count(CoinDenomination.ZQ_FIFTY, 1000));
+        }
+
+        // Rebuilt from the file, spent flag included
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(file, zerocoinContext)) {
+            WalletCoinIndex index = new WalletCoinIndex(coinFile);
+            Assert.assertEquals(amount + 1, index.size());
+            Assert.assertTrue(index.isSpent(2));
+            Assert.assertTrue(coinFile.isSpent(2));
+            Assert.assertEquals(CoinDenomination.ZQ_FIFTY, index.getDenomination(amount));
+            Assert.assertEquals(900, index.getHeight(amount));
+            Assert.assertEquals(249, index.count(CoinDenomination.ZQ_TEN, 1000));
+        }
+    }
+
+    @Test
+    public void indexOf() throws Exception {
+        List<ZeroCoin> minted = generateCoins(zerocoinContext, 2);
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(folder.getRoot().toPath().resolve("coins.dat"), zerocoinContext)) {
+            WalletCoinIndex index = new WalletCoinIndex(coinFile);
+            index.append(minted.get(0));
+            index.append(minted.get(1));
+            Assert.assertEquals(1, index.indexOf(minted.get(1).getCommitment().getCommitmentValue()));
+            Assert.assertEquals(0, index.indexOf(minted.get(0).getCommitment().getCommitmentValue()));
+            Assert.assertEquals(-1, index.indexOf(BigInteger.valueOf(12345)));
+        }
+    }
+
+    private ZeroCoin coin(ZeroCoin minted, CoinDenomination denomination, int height) {
+        ZeroCoin coin = new ZeroCoin(zerocoinContext, minted.getSerial(), minted.getCommitment(), denomination, minted.getKeyPair());
+        coin.setHeight(height);
+        return coin;
+    }
+}
@@ -4,15 +4,40 @@
 
 package com.zerocoinj;
 
+import com.google.common.collect.Lists;
 import com.zerocoinj.base.BaseZerocoinTest;
 import com.zerocoinj.core.CoinSpend;
+import com.zerocoinj.core.FStream;
+import com.zerocoinj.core.HashWriter;
+import com.zerocoinj.core.LazyCoinSpend;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.core.accumulators.Accumulators;
+import com.zerocoinj.utils.ByteBufferReader;
+import com.zerocoinj.utils.ByteBufferWriter;
+import com.zerocoinj.utils.ZUtils;
 import org.junit.Assert;
 import org.junit.Test;
+import org.pivxj.core.ProtocolException;
+import org.pivxj.core.Sha256Hash;
 import org.pivxj.core.Utils;
+import org.pivxj.core.VarInt;
 import org.spongycastle.util.encoders.Hex;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ZSerializerTest extends BaseZerocoinTest {
 
@@ -57,18 +82,350 @@ public class ZSerializerTest extends BaseZerocoinTest {
 
     @Test
     public void parseCoinSpend(){
-        // TODO: Include the serialed file again..
-//        byte[] buf = readFile("serialized_coinSpend.txt");
-//
-//        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, buf);
-//        Assert.assertTrue("CoinSpend is not the equal", Arrays.equals(coinSpend.bitcoinSerialize(), buf));
-//
-//        byte[] accBuf = readFile("serialized_accumulator.txt");
-//        Accumulator accumulator = Accumulator.parse(params, zerocoinContext.getAccumulatorParams() ,accBuf);
-//
-//        Assert.assertTrue("CoinSpend verification failed", coinSpend.verify(accumulator));
-//
-//        System.out.println("Fuck yeah, verify coinSpend succeed!");
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, buf);
+        Assert.assertTrue("CoinSpend is not the equal", Arrays.equals(coinSpend.bitcoinSerialize(), buf));
+
+        byte[] accBuf = readFile("mint_spend_test/serialized_accumulator.txt");
+        Accumulator accumulator = Accumulator.parse(params, zerocoinContext.getAccumulatorParams() ,accBuf);
+
+        // The spend was created by the c++ library, every challenge hash has to match its encoding
+        Assert.assertTrue("CoinSpend verification failed", coinSpend.verify(accumulator));
+        Assert.assertTrue("CoinSpend signature verification failed", coinSpend.hasValidSignature());
+    }
+
+    @Test
+    public void signatureHash(){
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, buf);
+        byte[] expected = encodedSignatureHash(coinSpend);
+
+        // Hashed from the payload, once
+        byte[] hash = coinSpend.signatureHash();
+        Assert.assertArrayEquals(expected, hash);
+        hash[0]++;
+        Assert.assertArrayEquals("Memoized hash modified", expected, coinSpend.signatureHash());
+        Assert.assertArrayEquals(expected, CoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf)).signatureHash());
+
+        // Same numbers with a non minimal encoding, the accumulator commitment with an extra zero byte,
+        // has to be hashed from the decoded values
+        int length = buf[40] & 0xff;
+        ByteBuffer padded = ByteBuffer.allocate(buf.length + 1);
+        padded.put(buf, 0, 40).put((byte) (length + 1)).put(buf, 41, length).put((byte) 0).put(buf, 41 + length, buf.length - 41 - length);
+        ((Buffer) padded).flip();
+        CoinSpend paddedSpend = CoinSpend.parse(params, zerocoinContext, padded);
+        Assert.assertEquals(coinSpend.getAccCommitmentToCoinValue(), paddedSpend.getAccCommitmentToCoinValue());
+        Assert.assertArrayEquals(expected, paddedSpend.signatureHash());
+        Assert.assertArrayEquals(expected, CoinSpend.parse(params, zerocoinContext, padded.array()).signatureHash());
+    }
+
+    @Test
+    public void signatureHashAfterBufferReuse() {
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        byte[] expected = CoinSpend.parse(params, zerocoinContext, buf).signatureHash();
+        Accumulator accumulator = Accumulator.parse(params, zerocoinContext.getAccumulatorParams(), readFile("mint_spend_test/serialized_accumulator.txt"));
+
+        // The parsed spend doesn't depend on the buffer anymore, e.g. a network buffer read again
+        ByteBuffer direct = ByteBuffer.allocateDirect(buf.length);
+        direct.put(buf);
+        ((Buffer) direct).flip();
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, direct);
+        direct.put(10, (byte) (direct.get(10) ^ 1));
+        Assert.assertArrayEquals(expected, coinSpend.signatureHash());
+        Assert.assertTrue(coinSpend.verifyDetailed(accumulator).isValid());
+
+        byte[] copy = buf.clone();
+        coinSpend = CoinSpend.parse(params, zerocoinContext, copy);
+        copy[10] ^= 1;
+        Assert.assertArrayEquals(expected, coinSpend.signatureHash());
+    }
+
+    @Test
+    public void signatureHashConcurrent() throws Exception {
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        byte[] expected = encodedSignatureHash(CoinSpend.parse(params, zerocoinContext, buf));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                // Every thread computes the hash of a fresh spend at the same time
+                CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<byte[]>> hashes = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    hashes.add(executor.submit(() -> {
+                        start.await();
+                        return coinSpend.signatureHash();
+                    }));
+                }
+                start.countDown();
+                for (Future<byte[]> hash : hashes) {
+                    Assert.assertArrayEquals(expected, hash.get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] encodedSignatureHash(CoinSpend coinSpend) {
+        HashWriter h = new HashWriter();
+        h.write(coinSpend.getSerialCommitmentToCoinValue())
+                .write(coinSpend.getAccCommitmentToCoinValue())
+                .write(coinSpend.getCommitmentPoK())
+                .write(coinSpend.getAccumulatorPoK())
+                .write(coinSpend.getpTxHash())
+                .write(coinSpend.getCoinSerialNumber())
+                .write(coinSpend.getAccChecksum().longValue())
+                .write(coinSpend.getDenomination().getDenomination());
+        if (coinSpend.getVersion() >= ZeroCoin.PUBKEY_VERSION) {
+            h.writeVarInt(coinSpend.getSpendType().ordinal());
+        }
+        return h.doubleShaReversed();
+    }
+
+    @Test
+    public void fStreamEncoding() throws IOException {
+        Random random = new Random(2);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        class Collector extends FStream<Collector> {
+            @Override
+            public void writeInternal(byte[] buf) {
+                actual.write(buf, 0, buf.length);
+            }
+        }
+        Collector stream = new Collector();
+
+        List<BigInteger> values = Lists.newArrayList(
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(128), BigInteger.valueOf(-1), BigInteger.valueOf(-129),
+                new BigInteger(256, random), new BigInteger(2048, random), new BigInteger(3072, random).negate()
+        );
+        for (BigInteger value : values) {
+            byte[] mpi = Utils.reverseBytes(Utils.encodeMPI(value, false));
+            expected.write(new VarInt(mpi.length).encode());
+            expected.write(mpi);
+            stream.write(value);
+        }
+        for (int length : new int[]{0, 1, 252, 253, 300, 70_000}) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            expected.write(new VarInt(length).encode());
+            expected.write(bytes);
+            stream.write(bytes);
+        }
+        byte[] uint32 = new byte[4];
+        Utils.uint32ToByteArrayLE(0xdeadbeefL, uint32, 0);
+        expected.write(uint32);
+        stream.write(0xdeadbeefL);
+        expected.write(uint32);
+        stream.write((int) 0xdeadbeefL);
+        expected.write(1);
+        stream.write(true);
+        Sha256Hash hash = Sha256Hash.of(uint32);
+        expected.write(hash.getReversedBytes());
+        stream.write(hash);
+        expected.write(new byte[32]);
+        stream.write((Sha256Hash) null);
+        expected.write(new VarInt(70_000).encode());
+        stream.writeVarInt(70_000);
+
+        Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+        // Same digest as hashing the legacy encoding
+        HashWriter hashWriter = new HashWriter();
+        for (BigInteger value : values) {
+            hashWriter.write(value);
+        }
+        HashWriter legacy = new HashWriter();
+        for (BigInteger value : values) {
+            byte[] mpi = Utils.reverseBytes(Utils.encodeMPI(value, false));
+            legacy.writeInternal(new VarInt(mpi.length).encode());
+            legacy.writeInternal(mpi);
+        }
+        Assert.assertArrayEquals(legacy.doubleShaReversed(), hashWriter.doubleShaReversed());
+    }
+
+    @Test
+    public void parseCoinSpendFromByteBuffer(){
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        CoinSpend expected = CoinSpend.parse(params, zerocoinContext, buf);
+
+        // Heap buffer
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf));
+        Assert.assertEquals(expected, coinSpend);
+        Assert.assertArrayEquals(buf, coinSpend.bitcoinSerialize());
+
+        // Direct buffer, with the spend in the middle of other data
+        ByteBuffer direct = ByteBuffer.allocateDirect(buf.length + 20);
+        direct.put(new byte[10]).put(buf).put(new byte[10]);
+        ((Buffer) direct).position(10).limit(10 + buf.length);
+        coinSpend = CoinSpend.parse(params, zerocoinContext, direct);
+        Assert.assertEquals(expected, coinSpend);
+        Assert.assertArrayEquals(buf, coinSpend.bitcoinSerialize());
+        Assert.assertEquals("Buffer position modified", 10, direct.position());
+
+        // Truncated
+        try {
+            CoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf, 0, buf.length / 2));
+            Assert.fail("Truncated spend parsed");
+        } catch (ProtocolException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void lazyCoinSpend(){
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        CoinSpend expected = CoinSpend.parse(params, zerocoinContext, buf);
+
+        LazyCoinSpend lazy = LazyCoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf));
+        Assert.assertEquals(expected.getDenomination(), lazy.getDenomination());
+        Assert.assertEquals(expected.getAccChecksum(), lazy.getAccChecksum());
+        Assert.assertEquals(expected.getCoinSerialNumber(), lazy.getCoinSerialNumber());
+        Assert.assertEquals(expected.getpTxHash(), lazy.getpTxHash());
+        Assert.assertEquals(expected.getAccCommitmentToCoinValue(), lazy.getAccCommitmentToCoinValue());
+        Assert.assertEquals(expected.getSerialCommitmentToCoinValue(), lazy.getSerialCommitmentToCoinValue());
+        Assert.assertEquals(expected.getAccumulatorPoK(), lazy.getAccumulatorPoK());
+        Assert.assertEquals(expected.getCommitmentPoK(), lazy.getCommitmentPoK());
+        Assert.assertArrayEquals(expected.getSerialNumberSoK().bitcoinSerialize(), lazy.getSerialNumberSoK().bitcoinSerialize());
+        Assert.assertEquals(expected.getVersion(), lazy.getVersion());
+        Assert.assertEquals(expected.getPubKey(), lazy.getPubKey());
+        Assert.assertArrayEquals(expected.getVchSig(), lazy.getVchSig());
+        Assert.assertEquals(expected.getSpendType(), lazy.getSpendType());
+        Assert.assertEquals(expected, lazy.toCoinSpend());
+        Assert.assertEquals(buf.length, lazy.getSize());
+
+        // The scan validates the structure
+        try {
+            LazyCoinSpend.parse(params, zerocoinContext, ByteBuffer.wrap(buf, 0, buf.length - 1));
+            Assert.fail("Truncated spend parsed");
+        } catch (ProtocolException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void headerOnlyParseThroughput(){
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        ByteBuffer buffer = ByteBuffer.wrap(buf);
+        int iterations = 2000;
+        BigInteger serial = CoinSpend.parse(params, zerocoinContext, buf).getCoinSerialNumber();
+
+        // Warm up
+        for (int i = 0; i < iterations; i++) {
+            CoinSpend.parse(params, zerocoinContext, buf);
+            CoinSpend.parse(params, zerocoinContext, buffer);
+            LazyCoinSpend.parse(params, zerocoinContext, buffer).getCoinSerialNumber();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Assert.assertEquals(serial, CoinSpend.parse(params, zerocoinContext, buf).getCoinSerialNumber());
+        }
+        long eager = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Assert.assertEquals(serial, CoinSpend.parse(params, zerocoinContext, buffer).getCoinSerialNumber());
+        }
+        long eagerBuffer = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Assert.assertEquals(serial, LazyCoinSpend.parse(params, zerocoinContext, buffer).getCoinSerialNumber());
+        }
+        long lazy = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "Serial number of %d spends, parse(byte[]): %.0f spends/s, parse(ByteBuffer): %.0f spends/s, LazyCoinSpend: %.0f spends/s",
+                iterations, iterations / (eager / 1e9), iterations / (eagerBuffer / 1e9), iterations / (lazy / 1e9)
+        ));
+    }
+
+    @Test
+    public void hashWriterPool() throws IOException {
+        BigInteger value = new BigInteger(1024, new Random(3));
+        byte[] expected = new HashWriter().write(value).doubleShaReversed();
+
+        HashWriter first = HashWriter.acquire();
+        first.write(BigInteger.TEN);
+        // Nested usage gets its own writer
+        try (HashWriter nested = HashWriter.acquire()) {
+            Assert.assertNotSame(first, nested);
+            Assert.assertArrayEquals(expected, nested.write(value).doubleShaReversed());
+        }
+        first.close();
+
+        // Closed writers are reset and reused
+        try (HashWriter reused = HashWriter.acquire()) {
+            Assert.assertSame(first, reused);
+            Assert.assertArrayEquals(expected, reused.write(value).doubleShaReversed());
+        }
+
+        HashWriter writer = new HashWriter().write(BigInteger.ONE);
+        Assert.assertArrayEquals(expected, writer.reset().write(value).doubleShaReversed());
+
+        // Checksum through the pooled writer
+        ByteArrayOutputStream serializedBn = new ByteArrayOutputStream();
+        ZUtils.serializeBigInteger(serializedBn, value);
+        long legacyChecksum = Utils.readUint32(Sha256Hash.twiceOf(serializedBn.toByteArray()).getBytes(), 0);
+        Assert.assertEquals(legacyChecksum, Accumulators.getChecksum(value));
+    }
+
+    @Test
+    public void bignumEncoding() throws IOException {
+        Random random = new Random(1);
+        List<BigInteger> values = Lists.newArrayList(
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(127), BigInteger.valueOf(128), BigInteger.valueOf(255),
+                BigInteger.valueOf(256), BigInteger.valueOf(-1), BigInteger.valueOf(-128), BigInteger.valueOf(-129),
+                BigInteger.ONE.shiftLeft(255).negate(), BigInteger.ONE.shiftLeft(2048).subtract(BigInteger.ONE),
+                new BigInteger(3072, random), new BigInteger(3072, random).negate()
+        );
+        for (BigInteger value : values) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            ZUtils.serializeBigInteger(expected, value);
+
+            ByteBuffer buffer = ByteBuffer.allocate(ByteBufferWriter.bignumSize(value));
+            new ByteBufferWriter(buffer).writeBignum(value);
+            Assert.assertFalse("Size mismatch for " + value, buffer.hasRemaining());
+            Assert.assertArrayEquals("Encoding mismatch for " + value, expected.toByteArray(), buffer.array());
+
+            ((Buffer) buffer).flip();
+            Assert.assertEquals(value, new ByteBufferReader(buffer).readBignum());
+        }
+    }
+
+    @Test
+    public void serializeCoinSpend() throws IOException {
+        byte[] buf = readFile("mint_spend_test/serialized_coinSpend.txt");
+        CoinSpend coinSpend = CoinSpend.parse(params, zerocoinContext, buf);
+        Assert.assertEquals(buf.length, coinSpend.getSerializedSize());
+        Assert.assertArrayEquals(buf, coinSpend.bitcoinSerialize());
+
+        // Into a direct buffer after other data
+        ByteBuffer direct = ByteBuffer.allocateDirect(buf.length + 10);
+        ((Buffer) direct).position(10);
+        coinSpend.serialize(direct);
+        Assert.assertFalse(direct.hasRemaining());
+        byte[] written = new byte[buf.length];
+        ((Buffer) direct).position(10);
+        direct.get(written);
+        Assert.assertArrayEquals(buf, written);
+
+        // Not enough space
+        ByteBuffer small = ByteBuffer.allocate(buf.length - 1);
+        try {
+            coinSpend.serialize(small);
+            Assert.fail("Spend serialized in a small buffer");
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, small.position());
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        coinSpend.bitcoinSerialize(stream);
+        Assert.assertArrayEquals(buf, stream.toByteArray());
     }
 
     @Test
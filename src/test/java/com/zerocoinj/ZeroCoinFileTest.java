@@ -0,0 +1,141 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.store.ZeroCoinFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pivxj.core.ECKey;
+import org.pivxj.core.Sha256Hash;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ZeroCoinFileTest extends BaseZerocoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndReadAll() throws Exception {
+        List<ZeroCoin> coins = generateCoins(zerocoinContext, 3);
+        coins.get(0).setHeight(1_200_345);
+        coins.get(0).setParentTxId(Sha256Hash.of(new byte[]{1}));
+        // Public key only
+        ZeroCoin watchOnly = new ZeroCoin(zerocoinContext, coins.get(1).getSerial(), coins.get(1).getCommitment(),
+                CoinDenomination.ZQ_FIVE_THOUSAND, ECKey.fromPublicOnly(coins.get(1).getKeyPair().getPubKey()));
+        watchOnly.setVersion(1);
+        coins.add(watchOnly);
+
+        Path file = folder.getRoot().toPath().resolve("coins.dat");
+        ZeroCoinFile.writeAll(file, zerocoinContext, coins);
+        List<ZeroCoin> read = ZeroCoinFile.readAll(file, zerocoinContext);
+
+        Assert.assertEquals(coins, read);
+        for (int i = 0; i < coins.size(); i++) {
+            assertSameCoin(coins.get(i), read.get(i));
+        }
+        Assert.assertTrue(read.get(0).getKeyPair().hasPrivKey());
+        Assert.assertTrue(read.get(3).getKeyPair().isPubKeyOnly());
+        // Same json, the import/export format
+        Assert.assertEquals(coins.get(0).toJsonString(), read.get(0).toJsonString());
+    }
+
+    @Test
+    public void mappedFile() throws Exception {
+        List<ZeroCoin> coins = generateCoins(zerocoinContext, 2);
+        Path file = folder.getRoot().toPath().resolve("coins.dat");
+
+        // Beyond the initial capacity
+        int amount = 1500;
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(file, zerocoinContext)) {
+            for (int i = 0; i < amount; i++) {
+                ZeroCoin coin = coins.get(i % 2);
+                coin.setHeight(i);
+                Assert.assertEquals(i, coinFile.append(coin));
+            }
+            Assert.assertEquals(amount - 1, coinFile.get(amount - 1).getHeight());
+            Assert.assertEquals(amount, coinFile.size());
+        }
+
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(file, zerocoinContext)) {
+            Assert.assertEquals(amount, coinFile.size());
+            for (int i = 0; i < amount; i++) {
+                ZeroCoin coin = coinFile.get(i);
+                Assert.assertEquals(coins.get(i % 2), coin);
+                Assert.assertEquals(i, coin.getHeight());
+            }
+            // Confirmed
+            ZeroCoin coin = coinFile.get(10);
+            coin.setParentTxId(Sha256Hash.of(new byte[]{2}));
+            coinFile.set(10, coin);
+            coinFile.append(coins.get(0));
+        }
+
+        List<ZeroCoin> read = ZeroCoinFile.readAll(file, zerocoinContext);
+        Assert.assertEquals(amount + 1, read.size());
+        Assert.assertEquals(Sha256Hash.of(new byte[]{2}), read.get(10).getParentTxId());
+    }
+
+    @Test
+    public void appendToWrittenFile() throws Exception {
+        List<ZeroCoin> coins = generateCoins(zerocoinContext, 1);
+        Path file = folder.getRoot().toPath().resolve("coins.dat");
+
+        // Header only, no room for records
+        ZeroCoinFile.writeAll(file, zerocoinContext, new ArrayList<>());
+        try (ZeroCoinFile coinFile = ZeroCoinFile.open(file, zerocoinContext)) {
+            Assert.assertEquals(0, coinFile.size());
+            Assert.assertEquals(0, coinFile.append(coins.get(0)));
+            Assert.assertEquals(1, coinFile.append(coins.get(0)));
+        }
+        Assert.assertEquals(Arrays.asList(coins.get(0), coins.get(0)), ZeroCoinFile.readAll(file, zerocoinContext));
+    }
+
+    @Test
+    public void loadThroughput() throws Exception {
+        List<ZeroCoin> minted = generateCoins(zerocoinContext, 4);
+        List<ZeroCoin> coins = new ArrayList<>();
+        List<String> json = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            ZeroCoin coin = minted.get(i % minted.size());
+            coin.setHeight(i);
+            coin.setParentTxId(Sha256Hash.of(new byte[]{(byte) i}));
+            coins.add(coin);
+            json.add(coin.toJsonString());
+        }
+        Path file = folder.getRoot().toPath().resolve("coins.dat");
+        ZeroCoinFile.writeAll(file, zerocoinContext, coins);
+
+        long start = System.nanoTime();
+        for (String coin : json) {
+            ZeroCoin.fromJson(params, zerocoinContext, coin);
+        }
+        long jsonTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<ZeroCoin> read = ZeroCoinFile.readAll(file, zerocoinContext);
+        long binaryTime = System.nanoTime() - start;
+
+        Assert.assertEquals(coins.size(), read.size());
+        System.out.println(String.format("Loaded %d coins, json: %d ms, binary: %d ms",
+                coins.size(), jsonTime / 1_000_000, binaryTime / 1_000_000));
+    }
+
+    private static void assertSameCoin(ZeroCoin expected, ZeroCoin actual) {
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.getVersion(), actual.getVersion());
+        Assert.assertEquals(expected.getHeight(), actual.getHeight());
+        Assert.assertEquals(expected.getParentTxId(), actual.getParentTxId());
+        Assert.assertArrayEquals(expected.getKeyPair().getPubKey(), actual.getKeyPair().getPubKey());
+    }
+}
@@ -0,0 +1,71 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj;
+
+import com.zerocoinj.base.BaseZerocoinTest;
+import com.zerocoinj.core.CoinDenomination;
+import com.zerocoinj.core.Commitment;
+import com.zerocoinj.core.CommitmentProofOfKnowledge;
+import com.zerocoinj.core.ZeroCoin;
+import com.zerocoinj.core.accumulators.Accumulator;
+import com.zerocoinj.jfr.Span;
+import com.zerocoinj.jfr.ZerocoinEvents;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The jdk.jfr types are used through {@link FlightRecordings} only, so the test class loads and skips on runtimes
+ * without Flight Recorder.
+ */
+public class ZerocoinEventsTest extends BaseZerocoinTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void noopWhenNotRecording() {
+        Assert.assertSame(Span.NOOP, ZerocoinEvents.proof(ZerocoinEvents.COMMITMENT_POK, ZerocoinEvents.VERIFY));
+    }
+
+    @Test
+    public void recordsEvents() throws Exception {
+        Assume.assumeTrue(ZerocoinEvents.isAvailable());
+        Path file = folder.getRoot().toPath().resolve("zerocoinj.jfr");
+        List<FlightRecordings.Event> events = FlightRecordings.record(file, () -> {
+            ZeroCoin coin = generateCoins(zerocoinContext, 1).get(0);
+            new Accumulator(zerocoinContext.getAccumulatorParams(), CoinDenomination.ZQ_ONE).accumulate(coin);
+            Commitment a = new Commitment(coin.getCommitment().getCommitmentValue(), zerocoinContext.getSerialNumberSoKCommitmentGroup());
+            Commitment b = new Commitment(coin.getCommitment().getCommitmentValue(), zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup());
+            CommitmentProofOfKnowledge proof = new CommitmentProofOfKnowledge(
+                    zerocoinContext.getSerialNumberSoKCommitmentGroup(), zerocoinContext.getAccumulatorParams().getAccumulatorPoKCommitmentGroup(), a, b);
+            Assert.assertTrue(proof.verify(a.getCommitmentValue(), b.getCommitmentValue()));
+        }, "Commitment", "Proof", "AccumulatorUpdate");
+
+        List<FlightRecordings.Event> commitments = FlightRecordings.ofType(events, "com.zerocoinj.Commitment");
+        Assert.assertEquals(1, commitments.size());
+        Assert.assertTrue((Integer) commitments.get(0).get("attempts") >= 1);
+
+        List<FlightRecordings.Event> updates = FlightRecordings.ofType(events, "com.zerocoinj.AccumulatorUpdate");
+        Assert.assertEquals(1, updates.size());
+        Assert.assertEquals("ZQ_ONE", updates.get(0).get("denomination"));
+        Assert.assertEquals(false, updates.get(0).get("witness"));
+
+        List<FlightRecordings.Event> proofs = FlightRecordings.ofType(events, "com.zerocoinj.Proof");
+        Assert.assertEquals(2, proofs.size());
+        Assert.assertEquals(ZerocoinEvents.PROVE, proofs.get(0).get("operation"));
+        Assert.assertEquals(ZerocoinEvents.VERIFY, proofs.get(1).get("operation"));
+        for (FlightRecordings.Event event : proofs) {
+            Assert.assertEquals(ZerocoinEvents.COMMITMENT_POK, event.get("proof"));
+            Assert.assertEquals(true, event.get("valid"));
+            Assert.assertTrue(event.durationNanos > 0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+// Copyright (c) 2019 Matias Furszyfer
+// Distributed under the MIT software license, see the accompanying
+// file COPYING or http://www.opensource.org/licenses/mit-license.php.
+
+package com.zerocoinj.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class PerformanceGateTest {
+
+    private static final String VERIFY = "com.zerocoinj.benchmarks.CoinSpendBenchmark.verify";
+    private static final String MINT = "com.zerocoinj.benchmarks.MintBenchmark.mintCoin";
+    private static final String PROVE = "com.zerocoinj.benchmarks.ProofBenchmark.prove";
+
+    @Test
+    public void compare() {
+        JSONObject baseline = new JSONObject()
+                .put("defaultTolerance", 0.25)
+                .put("benchmarks", new JSONObject()
+                        .put(VERIFY, entry("thrpt", 2.0, "ops/s").put("tolerance", 0.1))
+                        .put(MINT, entry("thrpt", 2.0, "ops/s"))
+                        .put(PROVE, entry("avgt", 100.0, "ms/op")));
+
+        // Within the tolerances, faster, or new
+        JSONArray results = new JSONArray()
+                .put(result(VERIFY, "thrpt", 1.9, "ops/s"))
+                .put(result(MINT, "thrpt", 3.0, "ops/s"))
+                .put(result(PROVE, "avgt", 120.0, "ms/op"))
+                .put(result("com.zerocoinj.benchmarks.New.run", "thrpt", 1.0, "ops/s"));
+        Assert.assertEquals(0, PerformanceGate.compare(baseline, results).size());
+
+        // Slower than the per benchmark tolerance, and a time mode slower than the default tolerance
+        results = new JSONArray()
+                .put(result(VERIFY, "thrpt", 1.7, "ops/s"))
+                .put(result(MINT, "thrpt", 2.0, "ops/s"))
+                .put(result(PROVE, "avgt", 130.0, "ms/op"));
+        List<String> regressions = PerformanceGate.compare(baseline, results);
+        Assert.assertEquals(2, regressions.size());
+        Assert.assertTrue(regressions.get(0).startsWith(VERIFY));
+        Assert.assertTrue(regressions.get(1).startsWith(PROVE));
+
+        // Another mode than the baseline's
+        results = new JSONArray()
+                .put(result(VERIFY, "avgt", 500.0, "ms/op"))
+                .put(result(MINT, "thrpt", 2.0, "ops/s"))
+                .put(result(PROVE, "avgt", 100.0, "ms/op"));
+        regressions = PerformanceGate.compare(baseline, results);
+        Assert.assertEquals(1, regressions.size());
+        Assert.assertTrue(regressions.get(0).startsWith(VERIFY));
+    }
+
+    @Test
+    public void missingResults() {
+        JSONObject baseline = new JSONObject()
+                .put("benchmarks", new JSONObject()
+                        .put(VERIFY, entry("thrpt", 2.0, "ops/s"))
+                        .put(MINT, entry("thrpt", 2.0, "ops/s")));
+
+        // A failed benchmark has no result, it can't pass the gate
+        JSONArray results = new JSONArray().put(result(MINT, "thrpt", 2.0, "ops/s"));
+        List<String> regressions = PerformanceGate.compare(baseline, results);
+        Assert.assertEquals(1, regressions.size());
+        Assert.assertTrue(regressions.get(0).startsWith(VERIFY));
+
+        Assert.assertEquals(2, PerformanceGate.compare(baseline, new JSONArray()).size());
+    }
+
+    private static JSONObject entry(String mode, double score, String unit) {
+        return new JSONObject().put("mode", mode).put("score", score).put("unit", unit);
+    }
+
+    private static JSONObject result(String benchmark, String mode, double score, String unit) {
+        return new JSONObject()
+                .put("benchmark", benchmark)
+                .put("mode", mode)
+                .put("primaryMetric", new JSONObject().put("score", score).put("scoreUnit", unit));
+    }
+}